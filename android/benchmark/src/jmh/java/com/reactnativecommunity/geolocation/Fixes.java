@@ -0,0 +1,63 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Bundle;
+
+import java.util.Random;
+
+/**
+ * Synthetic fixes for the benchmarks: a walk at about 1.4 m/s with one fix per second, mixing
+ * precise GPS fixes with coarse network fixes, and occasionally a stale fix delivered late.
+ */
+final class Fixes {
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    private Fixes() {
+    }
+
+    static Location[] walk(int count, long seed) {
+        Random random = new Random(seed);
+        Location[] fixes = new Location[count];
+        double latitude = 52.2297;
+        double longitude = 21.0122;
+        long time = 1700000000000L;
+        for (int i = 0; i < count; i++) {
+            latitude += 1.4 / METERS_PER_DEGREE;
+            time += 1000;
+            boolean gps = random.nextInt(4) != 0;
+            Location location = new Location(gps ? LocationManager.GPS_PROVIDER : LocationManager.NETWORK_PROVIDER);
+            location.setLatitude(latitude + random.nextGaussian() * 5 / METERS_PER_DEGREE);
+            location.setLongitude(longitude + random.nextGaussian() * 5 / METERS_PER_DEGREE);
+            location.setAltitude(110 + random.nextGaussian());
+            location.setAccuracy(gps ? 3 + random.nextFloat() * 15 : 20 + random.nextFloat() * 400);
+            location.setBearing(random.nextFloat() * 360);
+            location.setSpeed(1.4f + (float) random.nextGaussian() * 0.2f);
+            // One fix in 16 arrives three minutes late
+            location.setTime(random.nextInt(16) == 0 ? time - 180000 : time);
+            location.setElapsedRealtimeNanos(time * 1000000);
+            if (gps) {
+                location.setExtras(gpsExtras(random));
+            }
+            fixes[i] = location;
+        }
+        return fixes;
+    }
+
+    /**
+     * Extras as reported with GPS fixes on current devices.
+     */
+    static Bundle gpsExtras(Random random) {
+        Bundle extras = new Bundle();
+        extras.putInt("satellites", 6 + random.nextInt(12));
+        extras.putInt("meanCn0", 20 + random.nextInt(15));
+        extras.putInt("maxCn0", 35 + random.nextInt(10));
+        extras.putFloat("verticalAccuracy", 2 + random.nextFloat() * 10);
+        extras.putDouble("mslAltitude", 80 + random.nextGaussian());
+        extras.putLong("elapsedRealtimeUncertaintyNanos", 1000000L + random.nextInt(1000000));
+        extras.putString("networkLocationType", "gps");
+        extras.putBoolean("isIndoor", false);
+        extras.putIntArray("usedSatellites", new int[] {3, 7, 11, 14, 19, 22, 28, 31});
+        return extras;
+    }
+}
@@ -0,0 +1,49 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per fix of picking the best location from a stream, as single location requests do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LocationSelectionBenchmark {
+    private static final int FIXES = 1024;
+
+    private Location[] mFixes;
+
+    @Setup
+    public void setup() {
+        mFixes = Fixes.walk(FIXES, 7);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIXES)
+    public Location isBetterLocation() {
+        Location best = null;
+        for (Location location : mFixes) {
+            if (LocationQuality.isBetterLocation(location, best)) {
+                best = location;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,85 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one fix into the objects sent to JS. The maps are the Java-only stand-ins, so
+ * this measures the module's own work and allocations, not the JNI copy of native maps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SerializationBenchmark {
+    private Location mLocation;
+    private Location mLocationWithExtras;
+    private Bundle mExtras;
+
+    @Setup
+    public void setup() {
+        Location[] fixes = Fixes.walk(1, 42);
+        mLocation = fixes[0];
+        mLocation.setExtras(null);
+        mLocationWithExtras = Fixes.walk(1, 42)[0];
+        mExtras = Fixes.gpsExtras(new Random(42));
+        mLocationWithExtras.setExtras(mExtras);
+    }
+
+    @Benchmark
+    public WritableMap locationToMap() {
+        return BaseLocationManager.locationToMap(mLocation);
+    }
+
+    @Benchmark
+    public WritableMap locationToMapWithExtras() {
+        return BaseLocationManager.locationToMap(mLocationWithExtras);
+    }
+
+    @Benchmark
+    public WritableArray locationToCompactArray() {
+        return BaseLocationManager.positionToArray(
+                mLocation.getLatitude(),
+                mLocation.getLongitude(),
+                mLocation.getAltitude(),
+                mLocation.getAccuracy(),
+                mLocation.getBearing(),
+                mLocation.getSpeed(),
+                mLocation.getTime(),
+                mLocation.isFromMockProvider());
+    }
+
+    @Benchmark
+    public WritableMap putIntoMap() {
+        WritableMap map = Arguments.createMap();
+        for (String key : mExtras.keySet()) {
+            BaseLocationManager.putIntoMap(map, key, mExtras.get(key));
+        }
+        return map;
+    }
+
+    @Benchmark
+    public WritableMap buildError() {
+        return PositionError.buildError(PositionError.TIMEOUT, "Location request timed out");
+    }
+}
@@ -0,0 +1,89 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold cost of constructing the module, in a fresh JVM each time so class loading is included.
+ * {@code eagerModuleStartup} is the constructor as it was, creating the location manager right
+ * away, {@code lazyModuleStartup} the constructor now, which leaves it to the first location
+ * request. On a device, starting the background service adds to the eager cost.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+
+    /**
+     * A manager without a provider, so only the module's own setup is measured.
+     */
+    private static class IdleLocationManager extends BaseLocationManager {
+        IdleLocationManager(ReactApplicationContext reactContext) {
+            super(reactContext, false, LocationThread.getLooper(false));
+        }
+
+        @Override
+        protected void getCurrentLocation(LocationOptions options, Callback success, Callback error) {
+        }
+
+        @Override
+        protected void startLocationUpdates(LocationOptions options) {
+        }
+
+        @Override
+        protected void stopLocationUpdates() {
+        }
+
+        @Override
+        protected void startPassiveUpdates() {
+        }
+
+        @Override
+        protected void stopPassiveUpdates() {
+        }
+
+        @Override
+        public void stopService() {
+        }
+
+        @Override
+        protected void releaseProvider(boolean keepService) {
+        }
+    }
+
+    /**
+     * Mirrors the constructor state the module keeps until the first request.
+     */
+    private static class ModuleState {
+        final ReactApplicationContext reactContext;
+        BaseLocationManager locationManager;
+
+        ModuleState(ReactApplicationContext reactContext) {
+            this.reactContext = reactContext;
+        }
+    }
+
+    @Benchmark
+    public ModuleState eagerModuleStartup() {
+        ModuleState module = new ModuleState(new ReactApplicationContext(null));
+        module.locationManager = new IdleLocationManager(module.reactContext);
+        return module;
+    }
+
+    @Benchmark
+    public ModuleState lazyModuleStartup() {
+        return new ModuleState(new ReactApplicationContext(null));
+    }
+}
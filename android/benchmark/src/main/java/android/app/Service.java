@@ -0,0 +1,24 @@
+package android.app;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.IBinder;
+
+public abstract class Service extends Context {
+    public static final int START_STICKY = 1;
+
+    public void onCreate() {
+    }
+
+    public void onDestroy() {
+    }
+
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_STICKY;
+    }
+
+    public abstract IBinder onBind(Intent intent);
+
+    public final void startForeground(int id, Notification notification) {
+    }
+}
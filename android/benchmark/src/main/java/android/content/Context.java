@@ -0,0 +1,17 @@
+package android.content;
+
+import java.io.File;
+
+public abstract class Context {
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public File getNoBackupFilesDir() {
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    public <T> T getSystemService(Class<T> serviceClass) {
+        return null;
+    }
+}
@@ -0,0 +1,161 @@
+package android.location;
+
+import android.os.Bundle;
+
+/**
+ * Stand-in holding the fields of a fix. Distances use the haversine formula rather than the
+ * platform's ellipsoid computation, which only matters for accuracy, not for cost comparisons
+ * between runs.
+ */
+public class Location {
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private String mProvider;
+    private double mLatitude;
+    private double mLongitude;
+    private double mAltitude;
+    private float mAccuracy;
+    private float mBearing;
+    private float mSpeed;
+    private long mTime;
+    private long mElapsedRealtimeNanos;
+    private boolean mHasAccuracy;
+    private boolean mHasSpeed;
+    private boolean mMock;
+    private Bundle mExtras;
+
+    public Location(String provider) {
+        mProvider = provider;
+    }
+
+    public Location(Location location) {
+        mProvider = location.mProvider;
+        mLatitude = location.mLatitude;
+        mLongitude = location.mLongitude;
+        mAltitude = location.mAltitude;
+        mAccuracy = location.mAccuracy;
+        mBearing = location.mBearing;
+        mSpeed = location.mSpeed;
+        mTime = location.mTime;
+        mElapsedRealtimeNanos = location.mElapsedRealtimeNanos;
+        mHasAccuracy = location.mHasAccuracy;
+        mHasSpeed = location.mHasSpeed;
+        mMock = location.mMock;
+        mExtras = location.mExtras;
+    }
+
+    public String getProvider() {
+        return mProvider;
+    }
+
+    public double getLatitude() {
+        return mLatitude;
+    }
+
+    public void setLatitude(double latitude) {
+        mLatitude = latitude;
+    }
+
+    public double getLongitude() {
+        return mLongitude;
+    }
+
+    public void setLongitude(double longitude) {
+        mLongitude = longitude;
+    }
+
+    public double getAltitude() {
+        return mAltitude;
+    }
+
+    public void setAltitude(double altitude) {
+        mAltitude = altitude;
+    }
+
+    public boolean hasAccuracy() {
+        return mHasAccuracy;
+    }
+
+    public float getAccuracy() {
+        return mAccuracy;
+    }
+
+    public void setAccuracy(float accuracy) {
+        mAccuracy = accuracy;
+        mHasAccuracy = true;
+    }
+
+    public float getBearing() {
+        return mBearing;
+    }
+
+    public void setBearing(float bearing) {
+        mBearing = bearing;
+    }
+
+    public boolean hasSpeed() {
+        return mHasSpeed;
+    }
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    public void setSpeed(float speed) {
+        mSpeed = speed;
+        mHasSpeed = true;
+    }
+
+    public long getTime() {
+        return mTime;
+    }
+
+    public void setTime(long time) {
+        mTime = time;
+    }
+
+    public long getElapsedRealtimeNanos() {
+        return mElapsedRealtimeNanos;
+    }
+
+    public void setElapsedRealtimeNanos(long elapsedRealtimeNanos) {
+        mElapsedRealtimeNanos = elapsedRealtimeNanos;
+    }
+
+    public boolean isFromMockProvider() {
+        return mMock;
+    }
+
+    public void setMock(boolean mock) {
+        mMock = mock;
+    }
+
+    public Bundle getExtras() {
+        return mExtras;
+    }
+
+    public void setExtras(Bundle extras) {
+        mExtras = extras;
+    }
+
+    public float distanceTo(Location destination) {
+        float[] results = new float[1];
+        distanceBetween(mLatitude, mLongitude, destination.mLatitude, destination.mLongitude, results);
+        return results[0];
+    }
+
+    public static void distanceBetween(
+            double startLatitude,
+            double startLongitude,
+            double endLatitude,
+            double endLongitude,
+            float[] results) {
+        double startPhi = Math.toRadians(startLatitude);
+        double endPhi = Math.toRadians(endLatitude);
+        double deltaPhi = endPhi - startPhi;
+        double deltaLambda = Math.toRadians(endLongitude - startLongitude);
+        double a = Math.sin(deltaPhi / 2) * Math.sin(deltaPhi / 2)
+                + Math.cos(startPhi) * Math.cos(endPhi) * Math.sin(deltaLambda / 2) * Math.sin(deltaLambda / 2);
+        results[0] = (float) (2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a))));
+    }
+}
@@ -0,0 +1,8 @@
+package android.location;
+
+public class LocationManager {
+    public static final String GPS_PROVIDER = "gps";
+    public static final String NETWORK_PROVIDER = "network";
+    public static final String PASSIVE_PROVIDER = "passive";
+    public static final String FUSED_PROVIDER = "fused";
+}
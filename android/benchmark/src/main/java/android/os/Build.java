@@ -0,0 +1,18 @@
+package android.os;
+
+/**
+ * Stand-in reporting a recent platform, so every version dependent branch is taken.
+ */
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = 34;
+    }
+
+    public static class VERSION_CODES {
+        public static final int JELLY_BEAN_MR2 = 18;
+        public static final int M = 23;
+        public static final int O = 26;
+        public static final int Q = 29;
+        public static final int S = 31;
+    }
+}
@@ -0,0 +1,27 @@
+package android.os;
+
+/**
+ * Stand-in that never runs anything, benchmarks do not depend on posted work.
+ */
+public class Handler {
+    public Handler(Looper looper) {
+    }
+
+    public boolean post(Runnable runnable) {
+        return true;
+    }
+
+    public boolean postDelayed(Runnable runnable, long delayMillis) {
+        return true;
+    }
+
+    public boolean postAtTime(Runnable runnable, Object token, long uptimeMillis) {
+        return true;
+    }
+
+    public void removeCallbacks(Runnable runnable) {
+    }
+
+    public void removeCallbacksAndMessages(Object token) {
+    }
+}
@@ -0,0 +1,11 @@
+package android.os;
+
+public class HandlerThread extends Thread {
+    public HandlerThread(String name, int priority) {
+        super(name);
+    }
+
+    public Looper getLooper() {
+        return Looper.getMainLooper();
+    }
+}
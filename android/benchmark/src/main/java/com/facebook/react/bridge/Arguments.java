@@ -0,0 +1,37 @@
+package com.facebook.react.bridge;
+
+public class Arguments {
+    public static WritableMap createMap() {
+        return new JavaOnlyMap();
+    }
+
+    public static WritableArray createArray() {
+        return new JavaOnlyArray();
+    }
+
+    public static WritableArray fromArray(Object array) {
+        WritableArray result = createArray();
+        if (array instanceof int[]) {
+            for (int value : (int[]) array) {
+                result.pushInt(value);
+            }
+        } else if (array instanceof long[]) {
+            for (long value : (long[]) array) {
+                result.pushDouble(value);
+            }
+        } else if (array instanceof double[]) {
+            for (double value : (double[]) array) {
+                result.pushDouble(value);
+            }
+        } else if (array instanceof boolean[]) {
+            for (boolean value : (boolean[]) array) {
+                result.pushBoolean(value);
+            }
+        } else if (array instanceof String[]) {
+            for (String value : (String[]) array) {
+                result.pushString(value);
+            }
+        }
+        return result;
+    }
+}
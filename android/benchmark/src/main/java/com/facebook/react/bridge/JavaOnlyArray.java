@@ -0,0 +1,91 @@
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Array backed by an {@link ArrayList}, like the class of the same name in React Native.
+ */
+public class JavaOnlyArray implements WritableArray {
+    private final List<Object> mBackingList = new ArrayList<>();
+
+    @Override
+    public int size() {
+        return mBackingList.size();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return mBackingList.get(index) == null;
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        return (Boolean) mBackingList.get(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return ((Number) mBackingList.get(index)).doubleValue();
+    }
+
+    @Override
+    public int getInt(int index) {
+        return ((Number) mBackingList.get(index)).intValue();
+    }
+
+    @Override
+    public String getString(int index) {
+        return (String) mBackingList.get(index);
+    }
+
+    @Override
+    public ReadableArray getArray(int index) {
+        return (ReadableArray) mBackingList.get(index);
+    }
+
+    @Override
+    public ReadableMap getMap(int index) {
+        return (ReadableMap) mBackingList.get(index);
+    }
+
+    @Override
+    public ReadableType getType(int index) {
+        return JavaOnlyMap.typeOf(mBackingList.get(index));
+    }
+
+    @Override
+    public void pushNull() {
+        mBackingList.add(null);
+    }
+
+    @Override
+    public void pushBoolean(boolean value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushInt(int value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushString(String value) {
+        mBackingList.add(value);
+    }
+
+    @Override
+    public void pushArray(ReadableArray array) {
+        mBackingList.add(array);
+    }
+
+    @Override
+    public void pushMap(ReadableMap map) {
+        mBackingList.add(map);
+    }
+}
@@ -0,0 +1,107 @@
+package com.facebook.react.bridge;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Map backed by a {@link HashMap}, like the class of the same name in React Native. Native maps
+ * additionally copy their entries across JNI, which these benchmarks do not cover.
+ */
+public class JavaOnlyMap implements WritableMap {
+    private final Map<String, Object> mBackingMap = new HashMap<>();
+
+    @Override
+    public boolean hasKey(String name) {
+        return mBackingMap.containsKey(name);
+    }
+
+    @Override
+    public boolean isNull(String name) {
+        return mBackingMap.get(name) == null;
+    }
+
+    @Override
+    public boolean getBoolean(String name) {
+        return (Boolean) mBackingMap.get(name);
+    }
+
+    @Override
+    public double getDouble(String name) {
+        return ((Number) mBackingMap.get(name)).doubleValue();
+    }
+
+    @Override
+    public int getInt(String name) {
+        return ((Number) mBackingMap.get(name)).intValue();
+    }
+
+    @Override
+    public String getString(String name) {
+        return (String) mBackingMap.get(name);
+    }
+
+    @Override
+    public ReadableArray getArray(String name) {
+        return (ReadableArray) mBackingMap.get(name);
+    }
+
+    @Override
+    public ReadableMap getMap(String name) {
+        return (ReadableMap) mBackingMap.get(name);
+    }
+
+    @Override
+    public ReadableType getType(String name) {
+        return typeOf(mBackingMap.get(name));
+    }
+
+    @Override
+    public void putNull(String key) {
+        mBackingMap.put(key, null);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putInt(String key, int value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putArray(String key, ReadableArray value) {
+        mBackingMap.put(key, value);
+    }
+
+    @Override
+    public void putMap(String key, ReadableMap value) {
+        mBackingMap.put(key, value);
+    }
+
+    static ReadableType typeOf(Object value) {
+        if (value == null) {
+            return ReadableType.Null;
+        } else if (value instanceof Boolean) {
+            return ReadableType.Boolean;
+        } else if (value instanceof Number) {
+            return ReadableType.Number;
+        } else if (value instanceof String) {
+            return ReadableType.String;
+        } else if (value instanceof ReadableMap) {
+            return ReadableType.Map;
+        }
+        return ReadableType.Array;
+    }
+}
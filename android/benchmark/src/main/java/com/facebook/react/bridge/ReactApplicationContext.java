@@ -0,0 +1,26 @@
+package com.facebook.react.bridge;
+
+import android.content.Context;
+
+public class ReactApplicationContext extends Context {
+    private final JavaScriptModule mModule;
+
+    /**
+     * @param module the module returned for every {@link #getJSModule} call
+     */
+    public ReactApplicationContext(JavaScriptModule module) {
+        mModule = module;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends JavaScriptModule> T getJSModule(Class<T> moduleInterface) {
+        return (T) mModule;
+    }
+
+    /**
+     * Runs the runnable right away, there is no JS thread to wait for.
+     */
+    public void runOnJSQueueThread(Runnable runnable) {
+        runnable.run();
+    }
+}
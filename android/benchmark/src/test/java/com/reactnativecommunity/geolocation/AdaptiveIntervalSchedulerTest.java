@@ -0,0 +1,66 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+public class AdaptiveIntervalSchedulerTest {
+
+    private static Location location(float speed, long seconds) {
+        Location location = new Location("gps");
+        location.setSpeed(speed);
+        location.setElapsedRealtimeNanos(seconds * 1000000000L);
+        return location;
+    }
+
+    private static LocationOptions options(boolean explicitInterval) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putInt("maxInterval", 30000);
+        map.putDouble("distanceFilter", 10);
+        if (explicitInterval) {
+            map.putInt("interval", 2000);
+        }
+        return LocationOptions.fromReactMap(map);
+    }
+
+    @Test
+    public void implicitIntervalIsTheShortest() {
+        AdaptiveIntervalScheduler scheduler = new AdaptiveIntervalScheduler();
+        scheduler.start(options(false), 1000);
+
+        assertEquals(30000, scheduler.update(location(0, 0)).interval);
+        // 10 m at 50 m/s would be 200 ms, the interval the provider started with is the floor
+        assertEquals(1000, scheduler.update(location(50, 1)).interval);
+    }
+
+    @Test
+    public void explicitIntervalIsTheShortest() {
+        AdaptiveIntervalScheduler scheduler = new AdaptiveIntervalScheduler();
+        scheduler.start(options(true), 1000);
+
+        assertEquals(30000, scheduler.update(location(0, 0)).interval);
+        assertEquals(2000, scheduler.update(location(50, 1)).interval);
+    }
+
+    @Test
+    public void smallChangesKeepTheRequest() {
+        AdaptiveIntervalScheduler scheduler = new AdaptiveIntervalScheduler();
+        scheduler.start(options(false), 1000);
+
+        // 10 m at 2 m/s is 5 seconds
+        assertEquals(5000, scheduler.update(location(2, 0)).interval);
+        assertNull(scheduler.update(location(2.2f, 1)));
+    }
+
+    @Test
+    public void withoutMaxIntervalNothingIsScheduled() {
+        AdaptiveIntervalScheduler scheduler = new AdaptiveIntervalScheduler();
+        scheduler.start(LocationOptions.fromReactMap(new JavaOnlyMap()), 1000);
+        assertNull(scheduler.update(location(0, 0)));
+    }
+}
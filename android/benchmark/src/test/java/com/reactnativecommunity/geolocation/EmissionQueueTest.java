@@ -0,0 +1,172 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EmissionQueueTest {
+    private static final String POSITION = "geolocationDidChange";
+    private static final String ERROR = "geolocationError";
+
+    // Runs only when the test says so, like a busy JS thread
+    private final List<Runnable> mJSQueue = new ArrayList<>();
+    private final List<String> mEmitted = new ArrayList<>();
+    private DeviceEventManagerModule.RCTDeviceEventEmitter mEmitter = this::record;
+    private EmissionQueue mQueue;
+
+    @Before
+    public void setUp() {
+        GeolocationMetrics.getInstance().reset();
+        ReactApplicationContext reactContext = new ReactApplicationContext((DeviceEventManagerModule.RCTDeviceEventEmitter)
+                (name, data) -> mEmitter.emit(name, data)) {
+            @Override
+            public void runOnJSQueueThread(Runnable runnable) {
+                mJSQueue.add(runnable);
+            }
+        };
+        mQueue = new EmissionQueue(reactContext);
+    }
+
+    private void record(String name, Object data) {
+        if (data instanceof ReadableArray) {
+            ReadableArray batch = (ReadableArray) data;
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                ids.add(batch.getMap(i).getString("id"));
+            }
+            mEmitted.add(name + ids);
+        } else {
+            mEmitted.add(name + ":" + ((ReadableMap) data).getString("id"));
+        }
+    }
+
+    private static JavaOnlyMap payload(String id) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putString("id", id);
+        return map;
+    }
+
+    private void runJSQueue() {
+        while (!mJSQueue.isEmpty()) {
+            mJSQueue.remove(0).run();
+        }
+    }
+
+    private static double metric(String name) {
+        return GeolocationMetrics.getInstance().toMap().getDouble(name);
+    }
+
+    @Test
+    public void noneEmitsRightAway() {
+        mQueue.offer(POSITION, payload("p1"), 1);
+        mQueue.offer(ERROR, payload("e1"));
+        assertEquals(Arrays.asList(POSITION + ":p1", ERROR + ":e1"), mEmitted);
+        assertEquals(0, mJSQueue.size());
+    }
+
+    @Test
+    public void latestWinsReplacesCoveredPositions() {
+        mQueue.setPolicy(EmissionQueue.POLICY_LATEST_WINS, 16);
+        mQueue.offer(POSITION, payload("p1"), 0b01);
+        mQueue.offer(POSITION, payload("p2"), 0b10);
+        mQueue.offer(POSITION, payload("p3"), 0b11);
+        mQueue.offer(POSITION, payload("p4"), 0b01);
+        assertEquals(0, mEmitted.size());
+
+        runJSQueue();
+        // p4 does not cover p3, which is also for the second watch
+        assertEquals(Arrays.asList(POSITION + ":p3", POSITION + ":p4"), mEmitted);
+        assertEquals(2, metric("eventsCoalesced"), 0);
+    }
+
+    @Test
+    public void dropOldestKeepsTheCapacity() {
+        mQueue.setPolicy(EmissionQueue.POLICY_DROP_OLDEST, 2);
+        mQueue.offer(POSITION, payload("p1"), 1);
+        mQueue.offer(ERROR, payload("e1"));
+        mQueue.offer(POSITION, payload("p2"), 1);
+        mQueue.offer(POSITION, payload("p3"), 1);
+
+        runJSQueue();
+        assertEquals(Arrays.asList(ERROR + ":e1", POSITION + ":p2", POSITION + ":p3"), mEmitted);
+        assertEquals(1, metric("eventsDropped"), 0);
+    }
+
+    @Test
+    public void batchKeepsOtherEventsInOrder() {
+        mQueue.setPolicy(EmissionQueue.POLICY_BATCH, 16);
+        mQueue.offer(POSITION, payload("p1"), 1);
+        mQueue.offer(POSITION, payload("p2"), 2);
+        mQueue.offer(ERROR, payload("e1"));
+        mQueue.offer(POSITION, payload("p3"), 1);
+
+        runJSQueue();
+        assertEquals(Arrays.asList("geolocationDidChangeBatch[p1, p2]", ERROR + ":e1", POSITION + ":p3"), mEmitted);
+        assertEquals(1, metric("eventsBatched"), 0);
+    }
+
+    @Test
+    public void noneDoesNotOvertakeADrain() {
+        mQueue.setPolicy(EmissionQueue.POLICY_DROP_OLDEST, 16);
+        mQueue.offer(POSITION, payload("p1"), 1);
+        mQueue.offer(POSITION, payload("p2"), 1);
+        mQueue.setPolicy(EmissionQueue.POLICY_NONE, 16);
+
+        // An event arrives from the location thread while p1 is being emitted
+        mEmitter = (name, data) -> {
+            record(name, data);
+            if (mEmitted.size() == 1) {
+                mQueue.offer(ERROR, payload("e1"));
+            }
+        };
+        runJSQueue();
+        assertEquals(Arrays.asList(POSITION + ":p1", POSITION + ":p2", ERROR + ":e1"), mEmitted);
+
+        // Once drained, events are emitted right away again
+        mQueue.offer(ERROR, payload("e2"));
+        assertEquals(ERROR + ":e2", mEmitted.get(3));
+        assertEquals(0, mJSQueue.size());
+    }
+
+    @Test
+    public void compactPositionsAreBatchedAsArrays() {
+        mQueue.setPolicy(EmissionQueue.POLICY_BATCH, 16);
+        mEmitter = (name, data) -> mEmitted.add(name + ((ReadableArray) data).size());
+        JavaOnlyArray position = new JavaOnlyArray();
+        position.pushDouble(1);
+        mQueue.offer(POSITION, position, 1);
+        mQueue.offer(POSITION, position, 1);
+
+        runJSQueue();
+        assertEquals(Arrays.asList("geolocationDidChangeBatch2"), mEmitted);
+    }
+
+    @Test
+    public void buildsOnlyTheEmittedPositions() {
+        mQueue.setPolicy(EmissionQueue.POLICY_LATEST_WINS, 16);
+        List<String> built = new ArrayList<>();
+        for (String id : Arrays.asList("p1", "p2", "p3")) {
+            mQueue.offer(POSITION, (EmissionQueue.Payload) () -> {
+                built.add(id);
+                return payload(id);
+            }, 1);
+        }
+        assertEquals(0, built.size());
+
+        runJSQueue();
+        assertEquals(Arrays.asList("p3"), built);
+        assertEquals(Arrays.asList(POSITION + ":p3"), mEmitted);
+    }
+}
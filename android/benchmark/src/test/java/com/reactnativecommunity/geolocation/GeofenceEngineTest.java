@@ -0,0 +1,160 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Test;
+
+public class GeofenceEngineTest {
+    private static final long SECOND = 1000000000L;
+    // About 111 m of latitude
+    private static final double HUNDRED_METERS = 0.001;
+
+    private final GeofenceEngine mEngine = new GeofenceEngine();
+
+    private static JavaOnlyMap circle(String id, double latitude, double longitude, double radius) {
+        JavaOnlyMap fence = new JavaOnlyMap();
+        fence.putString("id", id);
+        fence.putDouble("latitude", latitude);
+        fence.putDouble("longitude", longitude);
+        fence.putDouble("radius", radius);
+        return fence;
+    }
+
+    private static JavaOnlyMap polygon(String id, double... points) {
+        JavaOnlyArray polygon = new JavaOnlyArray();
+        for (double point : points) {
+            polygon.pushDouble(point);
+        }
+        JavaOnlyMap fence = new JavaOnlyMap();
+        fence.putString("id", id);
+        fence.putArray("polygon", polygon);
+        return fence;
+    }
+
+    private static ReadableArray array(ReadableMap... fences) {
+        JavaOnlyArray array = new JavaOnlyArray();
+        for (ReadableMap fence : fences) {
+            array.pushMap(fence);
+        }
+        return array;
+    }
+
+    private static void assertTransitions(ReadableArray transitions, String... expected) {
+        assertEquals(expected.length / 2, transitions.size());
+        for (int i = 0; i < transitions.size(); i++) {
+            assertEquals(expected[2 * i], transitions.getMap(i).getString("id"));
+            assertEquals(expected[2 * i + 1], transitions.getMap(i).getString("transition"));
+        }
+    }
+
+    @Test
+    public void reportsEnterAndExit() {
+        assertEquals(1, mEngine.add(array(circle("home", 0, 0, 200))));
+        assertNull(mEngine.evaluate(5 * HUNDRED_METERS, 0, 0));
+
+        assertTransitions(mEngine.evaluate(HUNDRED_METERS, 0, SECOND), "home", "enter");
+        assertNull(mEngine.evaluate(-HUNDRED_METERS, 0, 2 * SECOND));
+        assertTransitions(mEngine.evaluate(-3 * HUNDRED_METERS, 0, 3 * SECOND), "home", "exit");
+        assertNull(mEngine.evaluate(-4 * HUNDRED_METERS, 0, 4 * SECOND));
+    }
+
+    @Test
+    public void reportsDwellOnce() {
+        JavaOnlyMap fence = circle("office", 0, 0, 200);
+        fence.putDouble("dwellTime", 60000);
+        mEngine.add(array(fence));
+
+        assertTransitions(mEngine.evaluate(0, 0, 0), "office", "enter");
+        assertNull(mEngine.evaluate(0, 0, 59 * SECOND));
+        assertTransitions(mEngine.evaluate(0, 0, 60 * SECOND), "office", "dwell");
+        assertNull(mEngine.evaluate(0, 0, 120 * SECOND));
+
+        // Leaving restarts the dwell time
+        assertTransitions(mEngine.evaluate(HUNDRED_METERS * 5, 0, 121 * SECOND), "office", "exit");
+        assertTransitions(mEngine.evaluate(0, 0, 122 * SECOND), "office", "enter");
+        assertNull(mEngine.evaluate(0, 0, 150 * SECOND));
+        assertTransitions(mEngine.evaluate(0, 0, 182 * SECOND), "office", "dwell");
+    }
+
+    @Test
+    public void zeroDwellTimeDwellsOnEnter() {
+        JavaOnlyMap fence = circle("stop", 0, 0, 200);
+        fence.putDouble("dwellTime", 0);
+        mEngine.add(array(fence));
+        assertTransitions(mEngine.evaluate(0, 0, 0), "stop", "enter", "stop", "dwell");
+    }
+
+    @Test
+    public void containsPointsOfPolygons() {
+        // A concave, U shaped polygon open to the north
+        mEngine.add(array(polygon("u",
+                0, 0,
+                0, 0.003,
+                0.003, 0.003,
+                0.003, 0.002,
+                0.001, 0.002,
+                0.001, 0.001,
+                0.003, 0.001,
+                0.003, 0)));
+
+        assertNull(mEngine.evaluate(0.002, 0.0015, 0));
+        assertTransitions(mEngine.evaluate(0.002, 0.0005, SECOND), "u", "enter");
+        assertNull(mEngine.evaluate(0.0005, 0.0015, 2 * SECOND));
+        assertNull(mEngine.evaluate(0.002, 0.0025, 3 * SECOND));
+        assertTransitions(mEngine.evaluate(0.002, 0.0015, 4 * SECOND), "u", "exit");
+    }
+
+    @Test
+    public void testsFencesAcrossCells() {
+        // A small fence straddling cell borders and one spanning far more than the index allows
+        mEngine.add(array(
+                circle("border", 0.01, 0.01, 300),
+                circle("city", 10, 10, 50000)));
+
+        assertTransitions(mEngine.evaluate(0.0095, 0.0095, 0), "border", "enter");
+        assertNull(mEngine.evaluate(0.0105, 0.0105, SECOND));
+        assertTransitions(mEngine.evaluate(10.3, 9.7, 2 * SECOND), "border", "exit", "city", "enter");
+    }
+
+    @Test
+    public void removedFencesDoNotTransition() {
+        mEngine.add(array(circle("a", 0, 0, 200), circle("b", 0, 0, 500)));
+        assertTransitions(mEngine.evaluate(0, 0, 0), "a", "enter", "b", "enter");
+
+        JavaOnlyArray ids = new JavaOnlyArray();
+        ids.pushString("a");
+        mEngine.remove(ids);
+        assertNull(mEngine.evaluate(HUNDRED_METERS * 3, 0, SECOND));
+        assertTransitions(mEngine.evaluate(HUNDRED_METERS * 6, 0, 2 * SECOND), "b", "exit");
+    }
+
+    @Test
+    public void skipsInvalidFences() {
+        JavaOnlyMap noId = new JavaOnlyMap();
+        noId.putDouble("radius", 10);
+        assertEquals(1, mEngine.add(array(
+                noId,
+                polygon("line", 0, 0, 1, 1),
+                circle("valid", 0, 0, 10))));
+        assertTrue(!mEngine.isEmpty());
+    }
+
+    @Test
+    public void movesOccupiedFencesToAnotherEngine() {
+        mEngine.add(array(circle("home", 0, 0, 200)));
+        mEngine.evaluate(0, 0, 0);
+
+        GeofenceEngine engine = new GeofenceEngine();
+        engine.moveFrom(mEngine);
+        assertTrue(mEngine.isEmpty());
+        assertNull(engine.evaluate(0, 0, SECOND));
+        assertTransitions(engine.evaluate(HUNDRED_METERS * 5, 0, 2 * SECOND), "home", "exit");
+    }
+}
@@ -0,0 +1,88 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import org.junit.Test;
+
+public class GeohashTest {
+    private static final long SECOND = 1000000000L;
+
+    @Test
+    public void encodesKnownCells() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", Geohash.encode(42.605, -5.603, 5));
+        assertEquals("gcpvj0duq53", Geohash.encode(51.5074, -0.1278, 11));
+        assertEquals("r3gx2f77b", Geohash.encode(-33.8688, 151.2093, 9));
+    }
+
+    @Test
+    public void coversTheWholeGrid() {
+        assertEquals("000000000000", Geohash.encode(-90, -180, Geohash.MAX_PRECISION));
+        assertEquals("zzzzzzzzzzzz", Geohash.encode(90, 180, Geohash.MAX_PRECISION));
+        assertEquals("s0000", Geohash.encode(0, 0, 5));
+    }
+
+    @Test
+    public void prefixesNameContainingCells() {
+        String full = Geohash.encode(57.64911, 10.40744, Geohash.MAX_PRECISION);
+        for (int precision = 1; precision < Geohash.MAX_PRECISION; precision++) {
+            assertEquals(full.substring(0, precision), Geohash.encode(57.64911, 10.40744, precision));
+            assertEquals(Geohash.encodeCell(57.64911, 10.40744, Geohash.MAX_PRECISION) >>> (5 * (Geohash.MAX_PRECISION - precision)),
+                    Geohash.encodeCell(57.64911, 10.40744, precision));
+        }
+    }
+
+    @Test
+    public void cellsCompareWithoutStrings() {
+        // About 10 m apart, same 150 m cell but different 5 m cells
+        assertEquals(Geohash.encodeCell(57.64911, 10.40744, 7), Geohash.encodeCell(57.64920, 10.40744, 7));
+        assertNotEquals(Geohash.encodeCell(57.64911, 10.40744, 9), Geohash.encodeCell(57.64920, 10.40744, 9));
+        assertEquals(Geohash.encode(57.64911, 10.40744, 7), Geohash.toString(Geohash.encodeCell(57.64920, 10.40744, 7), 7));
+    }
+
+    @Test
+    public void compactPositionsCarryTheGeohash() {
+        Location location = new Location("gps");
+        location.setLatitude(57.64911);
+        location.setLongitude(10.40744);
+
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putBoolean("compact", true);
+        map.putInt("geohashPrecision", 7);
+        ReadableArray compact = (ReadableArray) BaseLocationManager.encodeLocation(location, LocationOptions.fromReactMap(map));
+        assertEquals(9, compact.size());
+        assertEquals("u4pruyd", compact.getString(8));
+
+        map.putBoolean("compact", false);
+        ReadableMap position = (ReadableMap) BaseLocationManager.encodeLocation(location, LocationOptions.fromReactMap(map));
+        assertEquals("u4pruyd", position.getString("geohash"));
+
+        map.putBoolean("compact", true);
+        map.putInt("geohashPrecision", 0);
+        compact = (ReadableArray) BaseLocationManager.encodeLocation(location, LocationOptions.fromReactMap(map));
+        assertEquals(ReadableType.Null, compact.getType(8));
+    }
+
+    @Test
+    public void cellChangesOnlyWatchesSkipFixesInTheSameCell() {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putDouble("distanceFilter", 0);
+        map.putInt("geohashPrecision", 7);
+        map.putBoolean("cellChangesOnly", true);
+        WatchRegistry registry = new WatchRegistry();
+        registry.add(1, LocationOptions.fromReactMap(map));
+
+        assertEquals(1, registry.match(57.64911, 10.40744, 0));
+        assertEquals(0, registry.match(57.64920, 10.40744, SECOND));
+        assertTrue(registry.match(57.651, 10.40744, 2 * SECOND) != 0);
+    }
+}
@@ -0,0 +1,111 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class KalmanFilterTest {
+    private static final long SECOND = 1000000000L;
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    private final KalmanFilter mFilter = new KalmanFilter();
+    private final double[] mResult = new double[3];
+
+    @Test
+    public void firstFixPassesThrough() {
+        mFilter.filter(52.52, 13.405, 8, SECOND, mResult);
+        assertEquals(52.52, mResult[0], 0);
+        assertEquals(13.405, mResult[1], 0);
+        assertEquals(8, mResult[2], 1e-9);
+    }
+
+    @Test
+    public void updateMovesPartwayToTheMeasurement() {
+        mFilter.filter(0, 0, 10, SECOND, mResult);
+        // 20 m north
+        double measured = 20 / METERS_PER_DEGREE;
+        mFilter.filter(measured, 0, 10, 2 * SECOND, mResult);
+
+        assertTrue(mResult[0] > 0);
+        assertTrue(mResult[0] < measured);
+        assertEquals(0, mResult[1], 1e-12);
+        // Two fixes together are more accurate than either
+        assertTrue(mResult[2] < 10);
+    }
+
+    @Test
+    public void crossesTheAntimeridian() {
+        // 10 m west and 10 m east of the antimeridian
+        double offset = 10 / METERS_PER_DEGREE;
+        mFilter.filter(0, 180 - offset, 10, SECOND, mResult);
+        mFilter.filter(0, -180 + offset, 10, 2 * SECOND, mResult);
+
+        // Between the two fixes, not half way round the world
+        double distance = Math.abs(Math.abs(mResult[1]) - 180);
+        assertTrue(distance < offset);
+        assertTrue(mResult[1] >= -180 && mResult[1] < 180);
+        assertTrue(mResult[2] < 10);
+    }
+
+    @Test
+    public void preciseFixesCountMore() {
+        double measured = 20 / METERS_PER_DEGREE;
+
+        mFilter.filter(0, 0, 10, SECOND, mResult);
+        mFilter.filter(measured, 0, 50, 2 * SECOND, mResult);
+        double imprecise = mResult[0];
+
+        mFilter.reset();
+        mFilter.filter(0, 0, 10, SECOND, mResult);
+        mFilter.filter(measured, 0, 2, 2 * SECOND, mResult);
+        double precise = mResult[0];
+
+        assertTrue(precise > imprecise);
+        assertEquals(measured, precise, 2 / METERS_PER_DEGREE);
+    }
+
+    @Test
+    public void smoothsJitterWhileStandingStill() {
+        double maxError = 0;
+        for (int i = 0; i < 60; i++) {
+            // Alternating 10 m either side of the origin
+            double jitter = (i % 2 == 0 ? 10 : -10) / METERS_PER_DEGREE;
+            mFilter.filter(jitter, -jitter, 10, i * SECOND, mResult);
+            if (i >= 10) {
+                maxError = Math.max(maxError, Math.abs(mResult[0]) * METERS_PER_DEGREE);
+            }
+        }
+        assertTrue("error " + maxError, maxError < 5);
+    }
+
+    @Test
+    public void followsConstantMovement() {
+        // 10 m/s north-east
+        double step = 10 / METERS_PER_DEGREE;
+        for (int i = 0; i < 30; i++) {
+            mFilter.filter(i * step, i * step, 5, i * SECOND, mResult);
+        }
+        assertEquals(29 * step, mResult[0], 1 / METERS_PER_DEGREE);
+        assertEquals(29 * step, mResult[1], 1 / METERS_PER_DEGREE);
+    }
+
+    @Test
+    public void restartsAfterAGap() {
+        mFilter.filter(0, 0, 10, SECOND, mResult);
+        mFilter.filter(1, 1, 10, 62 * SECOND, mResult);
+        assertEquals(1, mResult[0], 0);
+        assertEquals(1, mResult[1], 0);
+        assertEquals(10, mResult[2], 1e-9);
+    }
+
+    @Test
+    public void lateFixesOnlyUpdate() {
+        mFilter.filter(0, 0, 10, 2 * SECOND, mResult);
+        double measured = 20 / METERS_PER_DEGREE;
+        mFilter.filter(measured, 0, 10, SECOND, mResult);
+        // Equal variances without prediction split the difference
+        assertEquals(measured / 2, mResult[0], 1e-12);
+        assertEquals(Math.sqrt(50), mResult[2], 1e-9);
+    }
+}
@@ -0,0 +1,76 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.SystemClock;
+
+import org.junit.Test;
+
+public class LastLocationCacheTest {
+    private static final long MINUTE = 60 * 1000;
+
+    private final LastLocationCache mCache = new LastLocationCache();
+
+    private static Location location(String provider, float accuracy, long ageMillis) {
+        Location location = new Location(provider);
+        location.setAccuracy(accuracy);
+        location.setTime(System.currentTimeMillis() - ageMillis);
+        location.setElapsedRealtimeNanos(SystemClock.elapsedRealtimeNanos() - ageMillis * 1000000);
+        return location;
+    }
+
+    @Test
+    public void freshCoarseFixWinsOverAnOldPreciseOne() {
+        Location precise = location(LocationManager.GPS_PROVIDER, 5, 3 * 60 * MINUTE);
+        Location coarse = location(LocationManager.NETWORK_PROVIDER, 60, 5000);
+        mCache.put(precise);
+        mCache.put(coarse);
+
+        assertSame(coarse, mCache.get(Double.POSITIVE_INFINITY, false));
+        assertSame(coarse, mCache.get(Double.POSITIVE_INFINITY, true));
+    }
+
+    @Test
+    public void preciseFixWinsWhenBothAreRecent() {
+        Location precise = location(LocationManager.GPS_PROVIDER, 5, 30000);
+        Location coarse = location(LocationManager.NETWORK_PROVIDER, 60, 5000);
+        mCache.put(precise);
+        mCache.put(coarse);
+
+        assertSame(precise, mCache.get(Double.POSITIVE_INFINITY, false));
+    }
+
+    @Test
+    public void respectsMaximumAge() {
+        mCache.put(location(LocationManager.GPS_PROVIDER, 5, 10 * MINUTE));
+        Location coarse = location(LocationManager.NETWORK_PROVIDER, 60, 5000);
+        mCache.put(coarse);
+
+        assertSame(coarse, mCache.get(MINUTE, false));
+        assertNull(mCache.get(1000, false));
+    }
+
+    @Test
+    public void highAccuracySkipsCoarseFixes() {
+        Location precise = location(LocationManager.GPS_PROVIDER, 5, 10 * MINUTE);
+        mCache.put(precise);
+        mCache.put(location(LocationManager.NETWORK_PROVIDER, 500, 5000));
+
+        assertSame(precise, mCache.get(Double.POSITIVE_INFINITY, true));
+        assertNull(mCache.get(MINUTE, true));
+    }
+
+    @Test
+    public void keepsTheNewestFixPerProviderAndTier() {
+        Location older = location(LocationManager.GPS_PROVIDER, 5, 20000);
+        Location newer = location(LocationManager.GPS_PROVIDER, 6, 10000);
+        mCache.put(newer);
+        mCache.put(older);
+
+        assertSame(newer, mCache.get(Double.POSITIVE_INFINITY, false));
+        assertSame(newer, mCache.getLatest());
+    }
+}
@@ -0,0 +1,166 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+import android.os.Handler;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LocationBatcherTest {
+    private final List<ReadableArray> mBatches = new ArrayList<>();
+    private Runnable mPending;
+    private LocationRingBuffer mBuffer;
+    private LocationBatcher mBatcher;
+
+    private class RecordingLocationManager extends BaseLocationManager {
+        RecordingLocationManager() {
+            super(new ReactApplicationContext((DeviceEventManagerModule.RCTDeviceEventEmitter) (name, data) -> {
+            }), false, LocationThread.getLooper(false));
+        }
+
+        @Override
+        public void emit(String message, Object o) {
+            assertEquals("geolocationDidChangeBatch", message);
+            mBatches.add((ReadableArray) o);
+        }
+
+        @Override
+        protected void pushEncoded(WritableArray batch, long sequence) {
+            batch.pushDouble(mBuffer.toRawCoordsMap(sequence).getDouble("latitude"));
+        }
+
+        @Override
+        protected void getCurrentLocation(LocationOptions options, Callback success, Callback error) {
+        }
+
+        @Override
+        protected void startLocationUpdates(LocationOptions options) {
+        }
+
+        @Override
+        protected void stopLocationUpdates() {
+        }
+
+        @Override
+        protected void startPassiveUpdates() {
+        }
+
+        @Override
+        protected void stopPassiveUpdates() {
+        }
+
+        @Override
+        public void stopService() {
+        }
+
+        @Override
+        protected void releaseProvider(boolean keepService) {
+        }
+    }
+
+    // Keeps the age flush so the test can run it when it likes
+    private class DeferringHandler extends Handler {
+        DeferringHandler() {
+            super(null);
+        }
+
+        @Override
+        public boolean postDelayed(Runnable runnable, long delayMillis) {
+            mPending = runnable;
+            return true;
+        }
+
+        @Override
+        public void removeCallbacks(Runnable runnable) {
+            if (mPending == runnable) {
+                mPending = null;
+            }
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mBuffer = new LocationRingBuffer(4);
+        mBatcher = new LocationBatcher(new RecordingLocationManager(), new DeferringHandler(), mBuffer);
+    }
+
+    private long write(double latitude) {
+        Location location = new Location("gps");
+        location.setLatitude(latitude);
+        return mBuffer.write(location, latitude, 0, 0, 1);
+    }
+
+    @Test
+    public void disabledBelowTwo() {
+        mBatcher.configure(1, -1);
+        assertFalse(mBatcher.isEnabled());
+        mBatcher.configure(2, -1);
+        assertTrue(mBatcher.isEnabled());
+    }
+
+    @Test
+    public void flushesWhenFull() {
+        mBatcher.configure(3, -1);
+        mBatcher.add(write(1));
+        mBatcher.add(write(2));
+        assertTrue(mBatches.isEmpty());
+
+        mBatcher.add(write(3));
+        assertEquals(1, mBatches.size());
+        ReadableArray batch = mBatches.get(0);
+        assertEquals(3, batch.size());
+        assertEquals(1, batch.getDouble(0), 0);
+        assertEquals(3, batch.getDouble(2), 0);
+
+        mBatcher.add(write(4));
+        assertEquals(1, mBatches.size());
+    }
+
+    @Test
+    public void flushesWhenTheOldestEntryIsTooOld() {
+        mBatcher.configure(3, 1000);
+        assertNull(mPending);
+        mBatcher.add(write(1));
+        mBatcher.add(write(2));
+        mPending.run();
+
+        assertEquals(1, mBatches.size());
+        assertEquals(2, mBatches.get(0).size());
+        assertNull(mPending);
+    }
+
+    @Test
+    public void growsTheBufferToTheBatchSize() {
+        mBatcher.configure(10, -1);
+        assertEquals(10, mBuffer.capacity());
+        for (int i = 0; i < 10; i++) {
+            mBatcher.add(write(i));
+        }
+        assertEquals(10, mBatches.get(0).size());
+    }
+
+    @Test
+    public void reconfiguringFlushesPendingEntries() {
+        mBatcher.configure(3, -1);
+        mBatcher.add(write(1));
+        mBatcher.configure(0, -1);
+        assertEquals(1, mBatches.size());
+
+        mBatcher.flush();
+        assertEquals(1, mBatches.size());
+    }
+}
@@ -0,0 +1,163 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LocationJournalTest {
+    private static final int HEADER_SIZE = 16;
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("journal").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    private static Location location(double latitude) {
+        Location location = new Location("gps");
+        location.setLatitude(latitude);
+        location.setLongitude(-latitude);
+        location.setAccuracy(5);
+        location.setTime(1000 + (long) latitude);
+        return location;
+    }
+
+    private LocationJournal open() {
+        LocationJournal journal = new LocationJournal(mDirectory);
+        journal.setEnabled(true);
+        return journal;
+    }
+
+    private static List<Double> readLatitudes(LocationJournal journal, long cursor) throws IOException {
+        List<Double> latitudes = new ArrayList<>();
+        journal.read(cursor, 100, (sequence, latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked) -> {
+            latitudes.add(latitude);
+            return true;
+        });
+        return latitudes;
+    }
+
+    /**
+     * @return the offset just past the last non-zero byte written to the segment
+     */
+    private static int dataEnd(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] == 0) {
+            end--;
+        }
+        return end;
+    }
+
+    @Test
+    public void readsFromTheCursor() throws IOException {
+        LocationJournal journal = open();
+        for (int i = 0; i < 5; i++) {
+            journal.append(location(i));
+        }
+
+        List<Double> latitudes = new ArrayList<>();
+        long next = journal.read(1, 2, (sequence, latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked) -> {
+            assertEquals(-latitude, longitude, 0);
+            assertEquals(1000 + (long) latitude, timestamp);
+            latitudes.add(latitude);
+            return true;
+        });
+        assertEquals(3, next);
+        assertEquals(Arrays.asList(1.0, 2.0), latitudes);
+        assertEquals(Arrays.asList(3.0, 4.0), readLatitudes(journal, next));
+        assertEquals(Arrays.asList(2.0, 3.0, 4.0), readLatitudes(journal, 2));
+    }
+
+    @Test
+    public void storesDeltaEncodedRecords() throws IOException {
+        LocationJournal journal = open();
+        for (int i = 0; i < 1000; i++) {
+            Location location = location(52 + i * 1e-5);
+            location.setTime(1_700_000_000_000L + i * 1000L);
+            location.setAltitude(30);
+            location.setSpeed(1.5f);
+            location.setBearing(90);
+            journal.append(location);
+        }
+
+        File[] segments = mDirectory.listFiles();
+        assertEquals(1, segments.length);
+        assertTrue(dataEnd(segments[0]) - HEADER_SIZE < 1000 * 24);
+
+        List<Double> latitudes = readLatitudes(journal, 998);
+        assertEquals(2, latitudes.size());
+        assertEquals(52 + 999 * 1e-5, latitudes.get(1), 1e-7);
+    }
+
+    @Test
+    public void dropsATornRecordOnReopen() throws IOException {
+        LocationJournal journal = open();
+        for (int i = 0; i < 3; i++) {
+            journal.append(location(i));
+        }
+
+        // The process died while the last record was being written
+        File[] segments = mDirectory.listFiles();
+        assertEquals(1, segments.length);
+        int end = dataEnd(segments[0]);
+        try (RandomAccessFile segment = new RandomAccessFile(segments[0], "rw")) {
+            segment.seek(end - 1);
+            int last = segment.read();
+            segment.seek(end - 1);
+            segment.write(last ^ 0xFF);
+        }
+
+        LocationJournal reopened = open();
+        assertEquals(Arrays.asList(0.0, 1.0), readLatitudes(reopened, 0));
+        reopened.append(location(7));
+        assertEquals(Arrays.asList(0.0, 1.0, 7.0), readLatitudes(reopened, 0));
+    }
+
+    @Test
+    public void disabledJournalRecordsNothing() throws IOException {
+        LocationJournal journal = new LocationJournal(mDirectory);
+        journal.append(location(1));
+        journal.record(location(2));
+        assertEquals(0, readLatitudes(journal, 0).size());
+    }
+
+    @Test
+    public void recordsOnItsOwnThread() throws Exception {
+        LocationJournal journal = open();
+        for (int i = 0; i < 3; i++) {
+            journal.record(location(i));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (readLatitudes(journal, 0).size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Arrays.asList(0.0, 1.0, 2.0), readLatitudes(journal, 0));
+    }
+}
@@ -0,0 +1,106 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.junit.Test;
+
+public class LocationManagerSwapTest {
+    private static final ReactApplicationContext CONTEXT =
+            new ReactApplicationContext((DeviceEventManagerModule.RCTDeviceEventEmitter) (name, data) -> {
+            });
+
+    // Its provider only starts when the test says so, like a background service being bound
+    private static class SlowLocationManager extends BaseLocationManager {
+        int started;
+        int released;
+
+        SlowLocationManager() {
+            super(CONTEXT, false, LocationThread.getLooper(false));
+        }
+
+        @Override
+        protected void getCurrentLocation(LocationOptions options, Callback success, Callback error) {
+        }
+
+        @Override
+        protected void startLocationUpdates(LocationOptions options) {
+            started++;
+        }
+
+        @Override
+        protected void stopLocationUpdates() {
+        }
+
+        @Override
+        protected void startPassiveUpdates() {
+        }
+
+        @Override
+        protected void stopPassiveUpdates() {
+        }
+
+        @Override
+        public void stopService() {
+        }
+
+        @Override
+        protected void releaseProvider(boolean keepService) {
+            released++;
+        }
+    }
+
+    private static SlowLocationManager watching() {
+        SlowLocationManager manager = new SlowLocationManager();
+        JavaOnlyMap options = new JavaOnlyMap();
+        options.putInt("watchId", 1);
+        manager.startObserving(options);
+        return manager;
+    }
+
+    @Test
+    public void keepsThePreviousProviderUntilTheNewOneStarted() {
+        SlowLocationManager previous = watching();
+        SlowLocationManager manager = new SlowLocationManager();
+        manager.takeOver(previous, false);
+
+        assertEquals(1, manager.started);
+        assertEquals(0, previous.released);
+
+        manager.onLocationUpdatesStarted();
+        assertEquals(1, previous.released);
+        // Later provider requests do not release it again
+        manager.onLocationUpdatesStarted();
+        assertEquals(1, previous.released);
+        assertEquals(0, manager.released);
+    }
+
+    @Test
+    public void releasesRightAwayWithoutObservers() {
+        SlowLocationManager previous = new SlowLocationManager();
+        SlowLocationManager manager = new SlowLocationManager();
+        manager.takeOver(previous, false);
+
+        assertEquals(0, manager.started);
+        assertEquals(1, previous.released);
+    }
+
+    @Test
+    public void releasesEveryManagerReplacedBeforeStarting() {
+        SlowLocationManager first = watching();
+        SlowLocationManager second = new SlowLocationManager();
+        second.takeOver(first, false);
+        SlowLocationManager third = new SlowLocationManager();
+        third.takeOver(second, false);
+        assertEquals(0, first.released);
+        assertEquals(0, second.released);
+
+        third.onLocationUpdatesStarted();
+        assertEquals(1, first.released);
+        assertEquals(1, second.released);
+    }
+}
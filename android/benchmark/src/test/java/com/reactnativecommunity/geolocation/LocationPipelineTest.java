@@ -0,0 +1,172 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class LocationPipelineTest {
+
+    private static Location location(double latitude, double longitude, float accuracy, long seconds) {
+        Location location = new Location("gps");
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        location.setAccuracy(accuracy);
+        location.setElapsedRealtimeNanos(seconds * 1000000000L);
+        return location;
+    }
+
+    private static JavaOnlyMap stage(String type) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putString("type", type);
+        return map;
+    }
+
+    @Test
+    public void accuracyFilterDropsInaccurateFixes() {
+        LocationPipeline.AccuracyFilter filter = new LocationPipeline.AccuracyFilter(20);
+        Location accurate = location(0, 0, 20, 0);
+        assertSame(accurate, filter.process(accurate));
+        assertNull(filter.process(location(0, 0, 21, 0)));
+        assertNull(filter.process(new Location("gps")));
+    }
+
+    @Test
+    public void speedFilterDropsJumps() {
+        LocationPipeline.SpeedFilter filter = new LocationPipeline.SpeedFilter(10);
+        assertNotNull(filter.process(location(0, 0, 5, 0)));
+        // About 111 m in one second
+        assertNull(filter.process(location(0.001, 0, 5, 1)));
+        // The same place, ten seconds after the last fix passed on
+        assertNotNull(filter.process(location(0.0005, 0, 5, 10)));
+    }
+
+    @Test
+    public void mockFilterDropsMockedFixes() {
+        Location mocked = location(0, 0, 5, 0);
+        mocked.setMock(true);
+        assertNull(new LocationPipeline.MockFilter().process(mocked));
+    }
+
+    @Test
+    public void roundCoordinatesCopiesTheFix() {
+        Location original = location(52.123456, 13.987654, 5, 0);
+        Location rounded = new LocationPipeline.RoundCoordinates(3).process(original);
+        assertEquals(52.123, rounded.getLatitude(), 1e-9);
+        assertEquals(13.988, rounded.getLongitude(), 1e-9);
+        assertEquals(52.123456, original.getLatitude(), 0);
+    }
+
+    @Test
+    public void averageHoldsFixesBack() {
+        LocationPipeline.Average average = new LocationPipeline.Average(2);
+        assertNull(average.process(location(10, 20, 4, 0)));
+        Location result = average.process(location(12, 22, 8, 1));
+        assertEquals(11, result.getLatitude(), 1e-9);
+        assertEquals(21, result.getLongitude(), 1e-6);
+        assertEquals(6, result.getAccuracy(), 1e-6);
+        assertNull(average.process(location(0, 0, 1, 2)));
+    }
+
+    @Test
+    public void averageAcrossTheAntimeridian() {
+        LocationPipeline.Average average = new LocationPipeline.Average(2);
+        average.process(location(0, 179.9, 5, 0));
+        Location result = average.process(location(0, -179.9, 5, 1));
+        assertEquals(180, Math.abs(result.getLongitude()), 1e-6);
+    }
+
+    @Test
+    public void sinkEndsThePipeline() {
+        final List<Location> accepted = new ArrayList<>();
+        LocationPipeline.Sink sink = new LocationPipeline.Sink() {
+            @Override
+            protected void accept(Location location) {
+                accepted.add(location);
+            }
+        };
+        Location location = location(0, 0, 5, 0);
+        assertNull(sink.process(location));
+        assertEquals(1, accepted.size());
+        assertSame(location, accepted.get(0));
+    }
+
+    @Test
+    public void skipsUnknownStages() {
+        JavaOnlyArray stages = new JavaOnlyArray();
+        stages.pushMap(stage("unknown"));
+        assertTrue(LocationPipeline.fromReactArray(stages).isEmpty());
+        assertTrue(LocationPipeline.fromReactArray(null).isEmpty());
+    }
+
+    @Test
+    public void runsStagesInOrderOnTheWorker() throws InterruptedException {
+        JavaOnlyMap accuracy = stage("accuracyFilter");
+        accuracy.putDouble("maxAccuracy", 10);
+        JavaOnlyArray stages = new JavaOnlyArray();
+        stages.pushMap(accuracy);
+        stages.pushMap(stage("roundCoordinates"));
+        LocationPipeline pipeline = LocationPipeline.fromReactArray(stages);
+
+        final List<Location> results = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        LocationPipeline.Listener listener = result -> {
+            synchronized (results) {
+                results.add(result);
+                threads.add(Thread.currentThread());
+            }
+            if (result.getAccuracy() == 2) {
+                done.countDown();
+            }
+        };
+        pipeline.process(location(1.123456, 2.654321, 5, 0), listener);
+        pipeline.process(location(1, 2, 50, 1), listener);
+        pipeline.process(location(3, 4, 2, 2), listener);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        synchronized (results) {
+            assertEquals(2, results.size());
+            assertEquals(1.1235, results.get(0).getLatitude(), 1e-9);
+            assertEquals(2.6543, results.get(0).getLongitude(), 1e-9);
+            assertEquals(3, results.get(1).getLatitude(), 1e-9);
+            assertEquals("RNCGeolocationPipeline", threads.get(0).getName());
+        }
+    }
+
+    @Test
+    public void averagedFixesAreNotCountedAsFiltered() throws InterruptedException {
+        GeolocationMetrics.getInstance().reset();
+        JavaOnlyMap accuracy = stage("accuracyFilter");
+        accuracy.putDouble("maxAccuracy", 10);
+        JavaOnlyMap average = stage("average");
+        average.putInt("count", 2);
+        JavaOnlyArray stages = new JavaOnlyArray();
+        stages.pushMap(accuracy);
+        stages.pushMap(average);
+        LocationPipeline pipeline = LocationPipeline.fromReactArray(stages);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        LocationPipeline.Listener listener = result -> done.countDown();
+        pipeline.process(location(1, 2, 5, 0), listener);
+        pipeline.process(location(1, 2, 50, 1), listener);
+        pipeline.process(location(3, 4, 5, 2), listener);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // Only the inaccurate fix was filtered, the first one went into the average
+        assertEquals(1, GeolocationMetrics.getInstance().toMap().getDouble("pipelineFiltered"), 0);
+    }
+}
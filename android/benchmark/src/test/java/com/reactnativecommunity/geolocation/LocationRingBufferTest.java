@@ -0,0 +1,83 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Test;
+
+public class LocationRingBufferTest {
+
+    private static long write(LocationRingBuffer buffer, int index) {
+        Location location = new Location("gps");
+        location.setLatitude(index);
+        location.setLongitude(-index);
+        location.setAccuracy(index + 0.5f);
+        location.setTime(1000L * index);
+        // The emitted coordinates differ from the raw ones, as with smoothing
+        return buffer.write(location, index + 0.25, -index - 0.25, index, 1L << index);
+    }
+
+    @Test
+    public void overwritesTheOldestEntries() {
+        LocationRingBuffer buffer = new LocationRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i, write(buffer, i));
+        }
+
+        assertFalse(buffer.contains(0));
+        assertFalse(buffer.contains(1));
+        assertTrue(buffer.contains(2));
+        assertTrue(buffer.contains(5));
+        assertFalse(buffer.contains(6));
+
+        // Sequence 5 took the slot of sequence 1
+        ReadableMap coords = buffer.toMap(5).getMap("coords");
+        assertEquals(5.25, coords.getDouble("latitude"), 0);
+        assertEquals(-5.25, coords.getDouble("longitude"), 0);
+        assertEquals(5, coords.getDouble("accuracy"), 0);
+        assertEquals(5000, buffer.toMap(5).getDouble("timestamp"), 0);
+        assertEquals(1L << 5, buffer.getWatchMask(5));
+        assertEquals(2.25, buffer.toMap(2).getMap("coords").getDouble("latitude"), 0);
+    }
+
+    @Test
+    public void keepsTheRawCoordinates() {
+        LocationRingBuffer buffer = new LocationRingBuffer(2);
+        long sequence = write(buffer, 3);
+        ReadableMap raw = buffer.toRawCoordsMap(sequence);
+        assertEquals(3, raw.getDouble("latitude"), 0);
+        assertEquals(-3, raw.getDouble("longitude"), 0);
+        assertEquals(3.5, raw.getDouble("accuracy"), 1e-6);
+    }
+
+    @Test
+    public void encodesTheCompactLayout() {
+        LocationRingBuffer buffer = new LocationRingBuffer(2);
+        long sequence = write(buffer, 1);
+        ReadableArray array = buffer.toArray(sequence);
+        assertEquals(8, array.size());
+        assertEquals(1.25, array.getDouble(0), 0);
+        assertEquals(-1.25, array.getDouble(1), 0);
+        assertEquals(1, array.getDouble(3), 0);
+        assertEquals(1000, array.getDouble(6), 0);
+        assertEquals(0, array.getInt(7));
+    }
+
+    @Test
+    public void growingDropsTheEntries() {
+        LocationRingBuffer buffer = new LocationRingBuffer(2);
+        write(buffer, 0);
+        buffer.ensureCapacity(1);
+        assertEquals(2, buffer.capacity());
+        buffer.ensureCapacity(8);
+        assertEquals(8, buffer.capacity());
+        assertEquals(1, write(buffer, 1));
+        assertEquals(1.25, buffer.toMap(1).getMap("coords").getDouble("latitude"), 0);
+    }
+}
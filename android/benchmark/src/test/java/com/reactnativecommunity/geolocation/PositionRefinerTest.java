@@ -0,0 +1,75 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.location.Location;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PositionRefinerTest {
+
+    private static Location location(float accuracy) {
+        Location location = new Location("gps");
+        location.setLatitude(52.52);
+        location.setLongitude(13.405);
+        location.setAccuracy(accuracy);
+        return location;
+    }
+
+    @Test
+    public void loneRefinementHasNoDistanceFilter() {
+        PositionRefiner refiner = new PositionRefiner();
+        refiner.add(1, LocationOptions.fromReactMap(new JavaOnlyMap()), null);
+
+        LocationOptions merged = refiner.getMergedOptions();
+        assertNotNull(merged);
+        assertEquals(0, merged.distanceFilter, 0);
+        assertEquals(1000, merged.interval);
+    }
+
+    @Test
+    public void explicitDistanceFilterIsIgnored() {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putDouble("distanceFilter", 50);
+        map.putInt("interval", 5000);
+        PositionRefiner refiner = new PositionRefiner();
+        refiner.add(1, LocationOptions.fromReactMap(map), null);
+
+        LocationOptions merged = refiner.getMergedOptions();
+        assertEquals(0, merged.distanceFilter, 0);
+        assertEquals(5000, merged.interval);
+    }
+
+    @Test
+    public void reportsOnlyImprovingFixes() {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putDouble("desiredAccuracy", 10);
+        PositionRefiner refiner = new PositionRefiner();
+        PositionRefiner.Refinement refinement = refiner.add(1, LocationOptions.fromReactMap(map), location(50));
+        assertFalse(refinement.finished);
+
+        List<PositionRefiner.Refinement> improved = new ArrayList<>();
+        refiner.offer(location(60), improved);
+        assertTrue(improved.isEmpty());
+
+        refiner.offer(location(20), improved);
+        assertEquals(1, improved.size());
+        assertFalse(refinement.finished);
+
+        improved.clear();
+        refiner.offer(location(5), improved);
+        assertEquals(1, improved.size());
+        assertTrue(refinement.finished);
+        assertTrue(refiner.isEmpty());
+        assertNull(refiner.getMergedOptions());
+    }
+}
@@ -0,0 +1,133 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TrackEncoderTest {
+    private static class Position {
+        final double latitude;
+        final double longitude;
+        final double altitude;
+        final float accuracy;
+        final float heading;
+        final float speed;
+        final long timestamp;
+        final boolean mocked;
+
+        Position(double latitude, double longitude, double altitude, float accuracy, float heading, float speed, long timestamp, boolean mocked) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.altitude = altitude;
+            this.accuracy = accuracy;
+            this.heading = heading;
+            this.speed = speed;
+            this.timestamp = timestamp;
+            this.mocked = mocked;
+        }
+    }
+
+    private static byte[] encode(List<Position> positions) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TrackEncoder encoder = new TrackEncoder(output);
+        for (Position position : positions) {
+            encoder.write(position.latitude, position.longitude, position.altitude, position.accuracy,
+                    position.heading, position.speed, position.timestamp, position.mocked);
+        }
+        encoder.flush();
+        return output.toByteArray();
+    }
+
+    private static List<Position> decode(byte[] track) throws IOException {
+        final List<Position> positions = new ArrayList<>();
+        TrackDecoder decoder = new TrackDecoder(new ByteArrayInputStream(track));
+        LocationJournal.Visitor visitor = (sequence, latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked) -> {
+            assertEquals(positions.size(), sequence);
+            positions.add(new Position(latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked));
+            return true;
+        };
+        while (decoder.next(visitor)) {
+            // Keep reading
+        }
+        return positions;
+    }
+
+    @Test
+    public void roundTripsPositions() throws IOException {
+        // Crosses the equator and the antimeridian, climbs then descends, and goes back in time
+        List<Position> written = Arrays.asList(
+                new Position(0.0000001, 179.9999999, 12.3, 5, 359.9f, 1.5f, 1700000000000L, false),
+                new Position(-0.0000001, -179.9999999, 8000.1, 12.5f, 0, 0, 1700000001000L, true),
+                new Position(-33.8688197, 151.2092955, -3.5, 2000, 90.5f, 33.33f, 1699999999000L, false),
+                new Position(-33.8688198, 151.2092954, -3.6, 2000, 90.5f, 33.33f, 1699999999001L, false));
+
+        List<Position> read = decode(encode(written));
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            Position expected = written.get(i);
+            Position actual = read.get(i);
+            assertEquals(expected.latitude, actual.latitude, 1e-9);
+            assertEquals(expected.longitude, actual.longitude, 1e-9);
+            assertEquals(expected.altitude, actual.altitude, 1e-9);
+            assertEquals(expected.accuracy, actual.accuracy, 0.05);
+            assertEquals(expected.heading, actual.heading, 0.05);
+            assertEquals(expected.speed, actual.speed, 0.005);
+            assertEquals(expected.timestamp, actual.timestamp);
+            assertEquals(expected.mocked, actual.mocked);
+        }
+    }
+
+    @Test
+    public void storesUnknownValuesAsZero() throws IOException {
+        Position position = decode(encode(Arrays.asList(
+                new Position(1, 2, 3, -1, -1, -1, 0, false)))).get(0);
+        assertEquals(0, position.accuracy, 0);
+        assertEquals(0, position.heading, 0);
+        assertEquals(0, position.speed, 0);
+    }
+
+    @Test
+    public void nearbyPositionsAreSmall() throws IOException {
+        List<Position> written = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            written.add(new Position(48.8566 + i * 0.00001, 2.3522 - i * 0.00001, 35, 4, 135, 1.4f, 1700000000000L + i * 1000, false));
+        }
+        byte[] track = encode(written);
+        // The first record holds absolute values, the others only small deltas
+        assertTrue(track.length < 4 + 30 + 99 * 15);
+        assertEquals(100, decode(track).size());
+    }
+
+    @Test
+    public void rejectsOtherFiles() {
+        try {
+            decode("{\"type\":\"FeatureCollection\"}".getBytes());
+            fail();
+        } catch (IOException e) {
+            assertEquals("Not a location track", e.getMessage());
+        }
+    }
+
+    @Test
+    public void reportsTruncatedTracks() throws IOException {
+        byte[] track = encode(Arrays.asList(new Position(1, 2, 3, 4, 5, 6, 7, false)));
+        try {
+            decode(Arrays.copyOf(track, track.length - 1));
+            fail();
+        } catch (EOFException e) {
+            // Expected
+        }
+        assertFalse(decode(Arrays.copyOf(track, 4)).iterator().hasNext());
+    }
+}
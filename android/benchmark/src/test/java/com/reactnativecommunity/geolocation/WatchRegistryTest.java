@@ -0,0 +1,135 @@
+package com.reactnativecommunity.geolocation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+
+import org.junit.Test;
+
+public class WatchRegistryTest {
+    private static final long SECOND = 1000000000L;
+
+    private static LocationOptions options(int interval, double distanceFilter) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        if (interval > 0) {
+            map.putInt("interval", interval);
+        }
+        map.putDouble("distanceFilter", distanceFilter);
+        return LocationOptions.fromReactMap(map);
+    }
+
+    @Test
+    public void watchesOwnOneBitEach() {
+        WatchRegistry registry = new WatchRegistry();
+        registry.add(10, options(0, 0));
+        registry.add(20, options(0, 0));
+        assertEquals(0b11, registry.match(1, 2, 0));
+
+        // A new watch takes the slot of a removed one
+        assertTrue(registry.remove(10));
+        assertFalse(registry.remove(10));
+        registry.add(30, options(0, 0));
+        ReadableArray ids = registry.getWatchIds(0b11);
+        assertEquals(2, ids.size());
+        assertEquals(30, ids.getInt(0));
+        assertEquals(20, ids.getInt(1));
+        assertEquals(20, registry.getWatchIds(0b10).getInt(0));
+    }
+
+    @Test
+    public void defaultWatchHasNoId() {
+        WatchRegistry registry = new WatchRegistry();
+        registry.add(WatchRegistry.DEFAULT_WATCH_ID, options(0, 0));
+        assertEquals(1, registry.match(1, 2, 0));
+        assertNull(registry.getWatchIds(1));
+    }
+
+    @Test
+    public void atMost64Watches() {
+        WatchRegistry registry = new WatchRegistry();
+        for (int id = 0; id < 64; id++) {
+            assertTrue(registry.add(id, options(0, 0)));
+        }
+        assertFalse(registry.add(64, options(0, 0)));
+        // Replacing the options of an existing watch keeps its slot
+        assertTrue(registry.add(63, options(0, 0)));
+        assertEquals(-1L, registry.match(1, 2, 0));
+    }
+
+    @Test
+    public void filtersByDistance() {
+        WatchRegistry registry = new WatchRegistry();
+        registry.add(1, options(0, 100));
+        registry.add(2, options(0, 0));
+        assertEquals(0b11, registry.match(0, 0, 0));
+
+        // About 56 m
+        assertEquals(0b10, registry.match(0.0005, 0, SECOND));
+        // About 167 m from the last fix the first watch was given
+        assertEquals(0b11, registry.match(0.0015, 0, 2 * SECOND));
+    }
+
+    @Test
+    public void filtersByInterval() {
+        WatchRegistry registry = new WatchRegistry();
+        registry.add(1, options(1000, 0));
+        registry.add(2, options(5000, 0));
+        assertEquals(0b11, registry.match(0, 0, 0));
+
+        assertEquals(0, registry.match(0, 0, SECOND / 2));
+        // Fixes up to 10% early are accepted
+        assertEquals(0b01, registry.match(0, 0, SECOND * 95 / 100));
+        assertEquals(0b01, registry.match(0, 0, 2 * SECOND));
+        assertEquals(0b11, registry.match(0, 0, 5 * SECOND));
+    }
+
+    @Test
+    public void mergesTheMostDemandingOptions() {
+        WatchRegistry registry = new WatchRegistry();
+        assertNull(registry.getMergedOptions());
+        registry.add(1, options(1000, 50));
+        registry.add(2, options(5000, 10));
+
+        LocationOptions merged = registry.getMergedOptions();
+        assertEquals(1000, merged.interval);
+        assertEquals(10, merged.distanceFilter, 0);
+
+        registry.remove(1);
+        assertEquals(5000, registry.getMergedOptions().interval);
+    }
+
+    @Test
+    public void simplificationDropsStraightLines() {
+        JavaOnlyMap map = new JavaOnlyMap();
+        map.putDouble("distanceFilter", 0);
+        map.putDouble("simplifyTolerance", 5);
+        WatchRegistry registry = new WatchRegistry();
+        registry.add(1, LocationOptions.fromReactMap(map));
+
+        assertEquals(1, registry.match(0, 0, 0));
+        // Heading north in a straight line, about 11 m apart
+        for (int i = 1; i < 10; i++) {
+            assertEquals(0, registry.match(i * 0.0001, 0, i * SECOND));
+        }
+        // Turning east leaves the sleeve
+        assertEquals(1, registry.match(0.0009, 0.0005, 10 * SECOND));
+    }
+
+    @Test
+    public void movesWatchesToAnotherRegistry() {
+        WatchRegistry previous = new WatchRegistry();
+        previous.add(7, options(0, 100));
+        previous.match(0, 0, 0);
+
+        WatchRegistry registry = new WatchRegistry();
+        registry.moveFrom(previous);
+        assertTrue(previous.isEmpty());
+        // The last delivered fix moved along, so the distance filter still applies
+        assertEquals(0, registry.match(0.0005, 0, SECOND));
+        assertEquals(7, registry.getWatchIds(1).getInt(0));
+    }
+}
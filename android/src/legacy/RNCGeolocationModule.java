@@ -1,11 +1,14 @@
 package com.reactnativecommunity.geolocation;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Callback;
 
 public class RNCGeolocationModule extends ReactContextBaseJavaModule {
@@ -46,11 +49,73 @@ public class RNCGeolocationModule extends ReactContextBaseJavaModule {
       mImpl.startObserving(options);
     }
 
+    @ReactMethod
+    public void clearWatch(double watchId) {
+      mImpl.clearWatch((int) watchId);
+    }
+
+    @ReactMethod
+    public void startRefinement(double id, ReadableMap options) {
+      mImpl.startRefinement((int) id, options);
+    }
+
+    @ReactMethod
+    public void stopRefinement(double id) {
+      mImpl.stopRefinement((int) id);
+    }
+
     @ReactMethod
     public void stopObserving() {
       mImpl.stopObserving();
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    @Nullable
+    public WritableMap getLastKnownPosition() {
+      return mImpl.getLastKnownPosition();
+    }
+
+    @ReactMethod
+    public void addGeofences(ReadableArray fences, ReadableMap options) {
+      mImpl.addGeofences(fences, options);
+    }
+
+    @ReactMethod
+    public void removeGeofences(ReadableArray ids) {
+      mImpl.removeGeofences(ids);
+    }
+
+    @ReactMethod
+    public void clearGeofences() {
+      mImpl.clearGeofences();
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getMetrics() {
+      return mImpl.getMetrics();
+    }
+
+    @ReactMethod
+    public void resetMetrics() {
+      mImpl.resetMetrics();
+    }
+
+    @ReactMethod
+    public void readLocationJournal(
+        final ReadableMap options,
+        final Callback success,
+        final Callback error) {
+          mImpl.readLocationJournal(options, success, error);
+    }
+
+    @ReactMethod
+    public void exportLocationTrack(
+        final ReadableMap options,
+        final Callback success,
+        final Callback error) {
+          mImpl.exportLocationTrack(options, success, error);
+    }
+
     @ReactMethod
     public void addListener(String eventName) {
         // Keep: Required for RN RCTEventEmitter class (iOS).
@@ -0,0 +1,103 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Adapts the interval of the provider request to the speed of the device, between the
+ * {@code interval} and {@code maxInterval} of the observing options. The interval is chosen so
+ * that the device moves about the distance filter between fixes, and is at its maximum while
+ * the device stands still.
+ *
+ * Speed is smoothed over several fixes and the request is only re-issued when the interval
+ * changes by half or more, so noisy speeds do not restart the provider on every fix.
+ */
+public class AdaptiveIntervalScheduler {
+    /**
+     * Devices slower than this, in m/s, are treated as standing still.
+     */
+    private static final float STATIONARY_SPEED = 0.5f;
+    private static final float MIN_SAMPLING_DISTANCE = 5;
+    private static final double SPEED_SMOOTHING = 0.5;
+    private static final double HYSTERESIS = 1.5;
+
+    private @Nullable LocationOptions mOptions;
+    private int mInterval;
+    private boolean mHasSpeed;
+    private double mSpeed;
+    private boolean mHasLastLocation;
+    private double mLastLatitude;
+    private double mLastLongitude;
+    private long mLastElapsedRealtimeNanos;
+    private final float[] mDistance = new float[1];
+
+    /**
+     * Starts scheduling for new observing options. Updates start at the shortest interval.
+     *
+     * @param implicitInterval the interval the provider uses if the options do not set one,
+     *                         which is then the shortest interval
+     * @return the options to request
+     */
+    public synchronized LocationOptions start(LocationOptions options, int implicitInterval) {
+        int interval = options.explicitInterval ? options.interval : implicitInterval;
+        // Without a maxInterval of its own, it is the interval of the options
+        boolean adaptive = options.maxInterval > options.interval && options.maxInterval > interval;
+        mOptions = adaptive ? options.withInterval(interval) : null;
+        mInterval = interval;
+        mHasSpeed = false;
+        mHasLastLocation = false;
+        return options;
+    }
+
+    public synchronized void stop() {
+        mOptions = null;
+    }
+
+    /**
+     * Adds an observed location to the speed estimate.
+     *
+     * @return the options to request again, or null to keep the current request
+     */
+    @Nullable
+    public synchronized LocationOptions update(Location location) {
+        if (mOptions == null) {
+            return null;
+        }
+
+        float speed = -1;
+        if (location.hasSpeed()) {
+            speed = location.getSpeed();
+        } else if (mHasLastLocation && location.getElapsedRealtimeNanos() > mLastElapsedRealtimeNanos) {
+            Location.distanceBetween(mLastLatitude, mLastLongitude, location.getLatitude(), location.getLongitude(), mDistance);
+            speed = mDistance[0] * 1e9f / (location.getElapsedRealtimeNanos() - mLastElapsedRealtimeNanos);
+        }
+        mHasLastLocation = true;
+        mLastLatitude = location.getLatitude();
+        mLastLongitude = location.getLongitude();
+        mLastElapsedRealtimeNanos = location.getElapsedRealtimeNanos();
+        if (speed < 0) {
+            return null;
+        }
+
+        mSpeed = mHasSpeed ? mSpeed + SPEED_SMOOTHING * (speed - mSpeed) : speed;
+        mHasSpeed = true;
+
+        int interval = getInterval(mOptions, mSpeed);
+        if (interval * HYSTERESIS > mInterval && interval < mInterval * HYSTERESIS) {
+            return null;
+        }
+        mInterval = interval;
+        return mOptions.withInterval(interval);
+    }
+
+    private static int getInterval(LocationOptions options, double speed) {
+        if (speed < STATIONARY_SPEED) {
+            return options.maxInterval;
+        }
+
+        double distance = Math.max(options.distanceFilter, MIN_SAMPLING_DISTANCE);
+        long interval = Math.round(distance * 1000 / speed);
+        return (int) Math.max(options.interval, Math.min(options.maxInterval, interval));
+    }
+}
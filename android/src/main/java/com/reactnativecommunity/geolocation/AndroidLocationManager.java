@@ -2,7 +2,6 @@ package com.reactnativecommunity.geolocation;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
@@ -11,6 +10,7 @@ import android.os.Bundle;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.content.ServiceConnection;
 import android.content.Intent;
 import android.content.ComponentName;
@@ -18,24 +18,33 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
 
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReadableMap;
-import com.facebook.react.common.SystemClock;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 @SuppressLint("MissingPermission")
 public class AndroidLocationManager extends BaseLocationManager {
+    // Without an explicit interval, keep the 1 second updates this module always used
+    private static final int IMPLICIT_INTERVAL = 1000;
+
+    private final LocationManager mLocationManager;
     private boolean mIsServiceRunning = false;
 
     private @Nullable LocationHandler mLocationHandler;
+    // The handler this manager gave the background service, which may be handed another one
+    private @Nullable LocationHandler mServiceLocationHandler;
+    // Answers requests without the background service, or while it is being bound
+    private @Nullable LocationHandler mForegroundLocationHandler;
     private final LocationListener mLocationListener = new LocationListener() {
         @Override
         public void onLocationChanged(Location location) {
-            mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                    .emit("geolocationDidChange", locationToMap(location));
+            emitLocation(location);
         }
 
         @Override
@@ -56,6 +65,26 @@ public class AndroidLocationManager extends BaseLocationManager {
         }
     };
 
+    // Only fills the cache, passive fixes are not emitted to watches
+    private final LocationListener mPassiveListener = new LocationListener() {
+        @Override
+        public void onLocationChanged(Location location) {
+            mLocationCache.put(location);
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {
+        }
+
+        @Override
+        public void onProviderEnabled(String provider) {
+        }
+
+        @Override
+        public void onProviderDisabled(String provider) {
+        }
+    };
+
     private final ServiceConnection mConnection = new ServiceConnection() {
         @Override
         public void onServiceConnected(ComponentName className, IBinder service) {
@@ -65,9 +94,13 @@ public class AndroidLocationManager extends BaseLocationManager {
                     new AndroidLocationManager.LocationHandlerImpl(
                             (LocationService)mLocationHandler,
                             mLocationListener,
-                            AndroidLocationManager.this);
+                            AndroidLocationManager.this,
+                            mLocationCache,
+                            mLooper);
             ((LocationService) mLocationHandler).setLocationHandler(locationHandlerImpl);
+            mServiceLocationHandler = locationHandlerImpl;
             mIsServiceRunning = true;
+            resumeObserving();
         }
 
         @Override
@@ -77,29 +110,33 @@ public class AndroidLocationManager extends BaseLocationManager {
         }
     };
 
-    protected AndroidLocationManager(ReactApplicationContext reactContext, boolean enableBackgroundLocationUpdates) {
-        super(reactContext, enableBackgroundLocationUpdates);
+    protected AndroidLocationManager(ReactApplicationContext reactContext, boolean enableBackgroundLocationUpdates, Looper looper) {
+        super(reactContext, enableBackgroundLocationUpdates, looper);
+        mLocationManager = (LocationManager) reactContext.getSystemService(Context.LOCATION_SERVICE);
         Log.d("AndroidLocationManager", "enableBackgroundLocationUpdates:" + enableBackgroundLocationUpdates);
         if (enableBackgroundLocationUpdates) {
             startService();
         } else {
-            mLocationHandler = new LocationHandlerImpl(reactContext, mLocationListener, this);
+            mLocationHandler = getForegroundLocationHandler();
         }
     }
 
-    public void getCurrentLocationData(
-            ReadableMap options,
+    @Override
+    protected void getCurrentLocation(
+            LocationOptions locationOptions,
             final Callback success,
             Callback error) {
-        LocationOptions locationOptions = LocationOptions.fromReactMap(options);
+        if (respondFromCache(locationOptions, success)) {
+            return;
+        }
 
         try {
             if (mIsServiceRunning) {
                 if (!mEnableBackgroundLocationUpdates) {
                     stopService();
-                    mLocationHandler = new LocationHandlerImpl(mReactContext, mLocationListener, this);
+                    mLocationHandler = getForegroundLocationHandler();
                 } else if (mLocationHandler == null) {
-                    mLocationHandler = new LocationHandlerImpl(mReactContext, mLocationListener, this);
+                    mLocationHandler = getForegroundLocationHandler();
                 }
             } else {
                 if (mEnableBackgroundLocationUpdates) {
@@ -107,25 +144,74 @@ public class AndroidLocationManager extends BaseLocationManager {
                 }
             }
 
-            mLocationHandler.getCurrentLocation(locationOptions, success, error);
+            // While the background service is being bound, answer from the foreground
+            LocationHandler handler = mLocationHandler != null
+                    ? mLocationHandler
+                    : getForegroundLocationHandler();
+            handler.getCurrentLocation(locationOptions, success, error);
         } catch (SecurityException e) {
             throw e;
         }
     }
 
     @Override
-    public void startObserving(ReadableMap options) {
-        LocationOptions locationOptions = LocationOptions.fromReactMap(options);
-        mLocationHandler.startLocationUpdates(locationOptions);
+    protected void startLocationUpdates(LocationOptions options) {
+        // Updates start once the background service is bound, see onServiceConnected
+        if (mLocationHandler != null) {
+            mLocationHandler.startLocationUpdates(options);
+        }
+    }
+
+    @Override
+    protected int getImplicitInterval(LocationOptions options) {
+        return IMPLICIT_INTERVAL;
     }
 
     @Override
-    public void stopObserving() {
-//        LocationManager locationManager =
-//                (LocationManager) mReactContext.getSystemService(Context.LOCATION_SERVICE);
-//        locationManager.removeUpdates(mLocationListener);
-//        mWatchedProvider = null;
-        mLocationHandler.stopLocationUpdates();
+    protected void stopLocationUpdates() {
+        if (mLocationHandler != null) {
+            mLocationHandler.stopLocationUpdates();
+        }
+    }
+
+    @Override
+    protected void startPassiveUpdates() {
+        mLocationCache.put(mLocationManager.getLastKnownLocation(LocationManager.PASSIVE_PROVIDER));
+        mLocationManager.requestLocationUpdates(LocationManager.PASSIVE_PROVIDER, 0, 0, mPassiveListener, mLooper);
+    }
+
+    @Override
+    protected void stopPassiveUpdates() {
+        mLocationManager.removeUpdates(mPassiveListener);
+    }
+
+    @Override
+    protected void releaseProvider(boolean keepService) {
+        LocationHandler handler = mLocationHandler instanceof LocationService ? mServiceLocationHandler : mLocationHandler;
+        if (handler != null) {
+            handler.release();
+        }
+        if (mForegroundLocationHandler != null && mForegroundLocationHandler != handler) {
+            mForegroundLocationHandler.release();
+        }
+
+        if (keepService && mIsServiceRunning) {
+            mReactContext.unbindService(mConnection);
+            mIsServiceRunning = false;
+        } else {
+            stopService();
+        }
+    }
+
+    /**
+     * @return the handler for requests made without the background service, created on first
+     *         use so concurrent requests share its provider requests
+     */
+    private LocationHandler getForegroundLocationHandler() {
+        if (mForegroundLocationHandler == null) {
+            mForegroundLocationHandler = new LocationHandlerImpl(mReactContext, mLocationListener, this, mLocationCache, mLooper);
+        }
+        return mForegroundLocationHandler;
     }
 
     private void startService() {
@@ -133,6 +219,7 @@ public class AndroidLocationManager extends BaseLocationManager {
             return;
         }
 
+        GeolocationMetrics.getInstance().serviceStartRequested();
         Intent intent = new Intent(mReactContext, LocationService.class);
 
         // Start the LocationService as a foreground service
@@ -151,6 +238,7 @@ public class AndroidLocationManager extends BaseLocationManager {
             return;
         }
 
+        GeolocationMetrics.getInstance().serviceStopRequested();
         mReactContext.unbindService(mConnection);
         Intent intent = new Intent(mReactContext, LocationService.class);
         mReactContext.stopService(intent);
@@ -159,41 +247,55 @@ public class AndroidLocationManager extends BaseLocationManager {
     private static class LocationHandlerImpl implements LocationHandler {
         private static final String TAG = "AndroidLocationHandlerImpl";
         private final LocationListener mLocationListener;
-        private final Context mContext;
+        private final LocationManager mLocationManager;
+        private final ProviderState mProviderState;
         private @Nullable String mWatchedProvider;
+        private float mWatchedDistanceFilter;
+        private long mWatchedMinTime;
+        private final Map<String, SingleUpdateRequest> mSingleUpdateRequests = new HashMap<>();
+        // Guarded by mSingleUpdateRequests
+        private final List<RaceRequest> mRaceRequests = new ArrayList<>();
         private final EventEmitter mEventEmitter;
-
-        public LocationHandlerImpl(Context context, LocationListener locationListener, EventEmitter errorEmitter) {
-            mContext = context;
+        private final LastLocationCache mLocationCache;
+        private final Looper mLooper;
+
+        public LocationHandlerImpl(Context context, LocationListener locationListener, EventEmitter errorEmitter, LastLocationCache locationCache, Looper looper) {
+            mLocationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+            mProviderState = ProviderState.getInstance(context);
+            mLooper = looper;
+            mLocationCache = locationCache;
             mLocationListener = locationListener;
             mEventEmitter = errorEmitter;
         }
 
         public void startLocationUpdates(LocationOptions options) {
             Log.i(TAG, "startLocationUpdates");
-            if (LocationManager.GPS_PROVIDER.equals(mWatchedProvider)) {
-                return;
-            }
-
             try {
-                LocationManager locationManager =
-                        (LocationManager) mContext.getSystemService(Context.LOCATION_SERVICE);
-                String provider = getValidProvider(locationManager, options.highAccuracy);
+                String provider = getValidProvider(options.highAccuracy);
                 if (provider == null) {
                     // handle error
                     // emitError(PositionError.POSITION_UNAVAILABLE, "No location provider available.");
                     mEventEmitter.emitError(PositionError.POSITION_UNAVAILABLE, "No location provider available.");
                     return;
                 }
-                if (!provider.equals(mWatchedProvider)) {
-                    locationManager.removeUpdates(mLocationListener);
-                    locationManager.requestLocationUpdates(
+                long minTime = options.explicitInterval ? options.interval : IMPLICIT_INTERVAL;
+                // Watches are filtered individually, so the provider request is only re-issued
+                // when the combined provider, interval or distance filter changes
+                if (!provider.equals(mWatchedProvider)
+                        || options.distanceFilter != mWatchedDistanceFilter
+                        || minTime != mWatchedMinTime) {
+                    mLocationManager.removeUpdates(mLocationListener);
+                    mLocationManager.requestLocationUpdates(
                             provider,
-                            1000,
+                            minTime,
                             options.distanceFilter,
-                            mLocationListener);
+                            mLocationListener,
+                            mLooper);
                 }
                 mWatchedProvider = provider;
+                mWatchedDistanceFilter = options.distanceFilter;
+                mWatchedMinTime = minTime;
+                mEventEmitter.onLocationUpdatesStarted();
             } catch (SecurityException e) {
                 throw e;
             }
@@ -201,21 +303,37 @@ public class AndroidLocationManager extends BaseLocationManager {
 
         public void stopLocationUpdates() {
             Log.i(TAG, "stopLocationUpdates");
-            LocationManager locationManager =
-                    (LocationManager) mContext.getSystemService(Context.LOCATION_SERVICE);
-            locationManager.removeUpdates(mLocationListener);
+            mLocationManager.removeUpdates(mLocationListener);
             mWatchedProvider = null;
         }
 
+        public void release() {
+            Log.i(TAG, "release");
+            stopLocationUpdates();
+            synchronized (mSingleUpdateRequests) {
+                for (SingleUpdateRequest request : mSingleUpdateRequests.values()) {
+                    request.cancel();
+                }
+                mSingleUpdateRequests.clear();
+                for (RaceRequest request : mRaceRequests) {
+                    request.cancel();
+                }
+                mRaceRequests.clear();
+            }
+        }
+
         public void getCurrentLocation(LocationOptions options,
                                        final Callback success,
                                        Callback error) {
             Log.i(TAG, "getCurrentLocation");
 
             try {
-                LocationManager locationManager = (LocationManager) mContext.getSystemService(Context.LOCATION_SERVICE);
+                if (options.raceProviders) {
+                    raceProviders(mLocationManager, options, success, error);
+                    return;
+                }
 
-                String provider = getValidProvider(locationManager, options.highAccuracy);
+                String provider = getValidProvider(options.highAccuracy);
                 if (provider == null) {
                     error.invoke(
                             PositionError.buildError(
@@ -223,37 +341,91 @@ public class AndroidLocationManager extends BaseLocationManager {
                     return;
                 }
 
-                Location location = locationManager.getLastKnownLocation(provider);
-                if (location != null && (SystemClock.currentTimeMillis() - location.getTime()) < options.maximumAge) {
-                    success.invoke(locationToMap(location));
+                Location location = mLocationManager.getLastKnownLocation(provider);
+                mLocationCache.put(location);
+                if (location != null && LastLocationCache.getAge(location) < options.maximumAge) {
+                    success.invoke(encodeLocation(location, options));
                     return;
                 }
 
-                new LocationHandlerImpl.SingleUpdateRequest(locationManager, provider, options.timeout, success, error).invoke(location);
+                // Concurrent requests for the same provider share one provider request
+                synchronized (mSingleUpdateRequests) {
+                    SingleUpdateRequest request = mSingleUpdateRequests.get(provider);
+                    if (request == null || !request.addCallback(options, success, error)) {
+                        request = new LocationHandlerImpl.SingleUpdateRequest(mLocationManager, provider, mLocationCache, mLooper);
+                        request.addCallback(options, success, error);
+                        request.invoke(location);
+                        mSingleUpdateRequests.put(provider, request);
+                    }
+                }
             } catch (SecurityException e) {
                 throw e;
             }
         }
 
+        /**
+         * Queries every enabled provider at once, see {@link RaceRequest}.
+         */
+        private void raceProviders(LocationManager locationManager, LocationOptions options, Callback success, Callback error) {
+            List<String> providers = getRaceProviders();
+            if (providers.isEmpty()) {
+                error.invoke(
+                        PositionError.buildError(
+                                PositionError.POSITION_UNAVAILABLE, "No location provider available."));
+                return;
+            }
+
+            RaceRequest request = new RaceRequest(locationManager, mLocationCache, mLooper, options, success, error);
+            synchronized (mSingleUpdateRequests) {
+                Iterator<RaceRequest> iterator = mRaceRequests.iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().isFinished()) {
+                        iterator.remove();
+                    }
+                }
+                mRaceRequests.add(request);
+            }
+            request.start(providers);
+        }
+
+        /**
+         * @return the enabled providers the module has permission for, the fused provider only
+         *         where the platform has one
+         */
+        private List<String> getRaceProviders() {
+            boolean fine = mProviderState.hasFinePermission();
+            boolean coarse = mProviderState.hasCoarsePermission();
+
+            List<String> providers = new ArrayList<>();
+            if (fine && mProviderState.isProviderEnabled(LocationManager.GPS_PROVIDER)) {
+                providers.add(LocationManager.GPS_PROVIDER);
+            }
+            if (coarse && mProviderState.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
+                providers.add(LocationManager.NETWORK_PROVIDER);
+            }
+            if (coarse && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                    && mProviderState.isProviderEnabled(LocationManager.FUSED_PROVIDER)) {
+                providers.add(LocationManager.FUSED_PROVIDER);
+            }
+            return providers;
+        }
+
         @Nullable
-        private String getValidProvider(LocationManager locationManager, boolean highAccuracy) {
+        private String getValidProvider(boolean highAccuracy) {
             String provider = highAccuracy ? LocationManager.GPS_PROVIDER : LocationManager.NETWORK_PROVIDER;
-            if (!locationManager.isProviderEnabled(provider)) {
+            if (!mProviderState.isProviderEnabled(provider)) {
                 provider = provider.equals(LocationManager.GPS_PROVIDER)
                         ? LocationManager.NETWORK_PROVIDER
                         : LocationManager.GPS_PROVIDER;
 
-                if (!locationManager.isProviderEnabled(provider)) {
+                if (!mProviderState.isProviderEnabled(provider)) {
                     return null;
                 }
             }
 
             // If it's an enabled provider, but we don't have permissions, ignore it
-            int finePermission = ContextCompat.checkSelfPermission(mContext, android.Manifest.permission.ACCESS_FINE_LOCATION);
-            int coarsePermission = ContextCompat.checkSelfPermission(mContext, android.Manifest.permission.ACCESS_COARSE_LOCATION);
-
-            if ((provider.equals(LocationManager.GPS_PROVIDER) && finePermission != PackageManager.PERMISSION_GRANTED) ||
-                    (provider.equals(LocationManager.NETWORK_PROVIDER) && coarsePermission != PackageManager.PERMISSION_GRANTED)) {
+            if ((provider.equals(LocationManager.GPS_PROVIDER) && !mProviderState.hasFinePermission()) ||
+                    (provider.equals(LocationManager.NETWORK_PROVIDER) && !mProviderState.hasCoarsePermission())) {
                 return null;
             }
 
@@ -261,34 +433,25 @@ public class AndroidLocationManager extends BaseLocationManager {
         }
 
         private static class SingleUpdateRequest {
-            private final Callback mSuccess;
-            private final Callback mError;
             private final LocationManager mLocationManager;
             private final String mProvider;
-            private final long mTimeout;
+            private final LastLocationCache mLocationCache;
+            private final List<PendingCallback> mCallbacks = new ArrayList<>();
             private Location mOldLocation;
-            private final Handler mHandler = new Handler();
-            private final Runnable mTimeoutRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    synchronized (SingleUpdateRequest.this) {
-                        if (!mTriggered) {
-                            mError.invoke(PositionError.TIMEOUT, "Location request timed out");
-                            mLocationManager.removeUpdates(mLocationListener);
-                            mTriggered = true;
-                        }
-                    }
-                }
-            };
+            private final Looper mLooper;
+            private final Handler mHandler;
             private final LocationListener mLocationListener = new LocationListener() {
                 @Override
                 public void onLocationChanged(@NonNull Location location) {
+                    mLocationCache.put(location);
                     synchronized (SingleUpdateRequest.this) {
-                        if (!mTriggered && isBetterLocation(location, mOldLocation)) {
-                            mSuccess.invoke(location);
-                            mHandler.removeCallbacks(mTimeoutRunnable);
-                            mTriggered = true;
-                            mLocationManager.removeUpdates(mLocationListener);
+                        if (!mTriggered && LocationQuality.isBetterLocation(location, mOldLocation)) {
+                            for (PendingCallback callback : mCallbacks) {
+                                mHandler.removeCallbacks(callback);
+                                callback.success.invoke(encodeLocation(location, callback.options));
+                            }
+                            mCallbacks.clear();
+                            finish();
                         }
 
                         mOldLocation = location;
@@ -309,85 +472,191 @@ public class AndroidLocationManager extends BaseLocationManager {
             };
             private boolean mTriggered;
 
-            private SingleUpdateRequest(
-                    LocationManager locationManager,
-                    String provider,
-                    long timeout,
-                    Callback success,
-                    Callback error) {
+            /**
+             * A caller waiting for this request. Runs as the caller's own timeout.
+             */
+            private class PendingCallback implements Runnable {
+                final LocationOptions options;
+                final Callback success;
+                final Callback error;
+
+                PendingCallback(LocationOptions options, Callback success, Callback error) {
+                    this.options = options;
+                    this.success = success;
+                    this.error = error;
+                }
+
+                @Override
+                public void run() {
+                    synchronized (SingleUpdateRequest.this) {
+                        if (!mCallbacks.remove(this)) {
+                            return;
+                        }
+
+                        error.invoke(PositionError.buildError(PositionError.TIMEOUT, "Location request timed out"));
+                        if (mCallbacks.isEmpty()) {
+                            finish();
+                        }
+                    }
+                }
+            }
+
+            private SingleUpdateRequest(LocationManager locationManager, String provider, LastLocationCache locationCache, Looper looper) {
                 mLocationManager = locationManager;
                 mProvider = provider;
-                mTimeout = timeout;
-                mSuccess = success;
-                mError = error;
+                mLocationCache = locationCache;
+                mLooper = looper;
+                mHandler = new Handler(looper);
+            }
+
+            /**
+             * Attaches a caller to this request, with its own timeout.
+             *
+             * @return false if the request already finished and cannot take more callers
+             */
+            public synchronized boolean addCallback(LocationOptions options, Callback success, Callback error) {
+                if (mTriggered) {
+                    return false;
+                }
+
+                PendingCallback callback = new PendingCallback(options, success, error);
+                mCallbacks.add(callback);
+                mHandler.postDelayed(callback, options.timeout);
+                return true;
+            }
+
+            private void finish() {
+                mTriggered = true;
+                mLocationManager.removeUpdates(mLocationListener);
+            }
+
+            public synchronized void cancel() {
+                for (PendingCallback callback : mCallbacks) {
+                    mHandler.removeCallbacks(callback);
+                }
+                mCallbacks.clear();
+                finish();
             }
 
             public void invoke(Location location) {
                 mOldLocation = location;
-                mLocationManager.requestLocationUpdates(mProvider, 100, 1, mLocationListener);
-                mHandler.postDelayed(mTimeoutRunnable, mTimeout);
+                mLocationManager.requestLocationUpdates(mProvider, 100, 1, mLocationListener, mLooper);
+            }
+        }
+
+        /**
+         * A single request sent to several providers at the same time. The first fix within
+         * {@link LocationOptions#desiredAccuracy} wins and the other providers are cancelled
+         * right away, so a slow provider, like GPS indoors, does not hold the caller up. When
+         * the timeout passes without such a fix, the best fix received so far is returned
+         * instead, if there is one.
+         */
+        private static class RaceRequest implements LocationListener, Runnable {
+            private final LocationManager mLocationManager;
+            private final LastLocationCache mLocationCache;
+            private final Looper mLooper;
+            private final Handler mHandler;
+            private final LocationOptions mOptions;
+            private final Callback mSuccess;
+            private final Callback mError;
+            private @Nullable Location mBestLocation;
+            private boolean mFinished;
+
+            private RaceRequest(LocationManager locationManager, LastLocationCache locationCache, Looper looper, LocationOptions options, Callback success, Callback error) {
+                mLocationManager = locationManager;
+                mLocationCache = locationCache;
+                mLooper = looper;
+                mHandler = new Handler(looper);
+                mOptions = options;
+                mSuccess = success;
+                mError = error;
             }
 
-            private static final int TWO_MINUTES = 1000 * 60 * 2;
+            public synchronized void start(List<String> providers) {
+                for (String provider : providers) {
+                    Location location = mLocationManager.getLastKnownLocation(provider);
+                    mLocationCache.put(location);
+                    if (location != null && LastLocationCache.getAge(location) < mOptions.maximumAge && offer(location)) {
+                        return;
+                    }
+                }
+
+                for (String provider : providers) {
+                    mLocationManager.requestLocationUpdates(provider, 100, 1, this, mLooper);
+                }
+                mHandler.postDelayed(this, mOptions.timeout);
+            }
 
             /**
-             * Determines whether one Location reading is better than the current Location fix
-             * taken from Android Examples https://developer.android.com/guide/topics/location/strategies.html
-             *
-             * @param location            The new Location that you want to evaluate
-             * @param currentBestLocation The current Location fix, to which you want to compare the new one
+             * @return true if the location settled the request
              */
-            private boolean isBetterLocation(Location location, Location currentBestLocation) {
-                if (currentBestLocation == null) {
-                    // A new location is always better than no location
+            private boolean offer(Location location) {
+                if (mFinished) {
                     return true;
                 }
 
-                // Check whether the new location fix is newer or older
-                long timeDelta = location.getTime() - currentBestLocation.getTime();
-                boolean isSignificantlyNewer = timeDelta > TWO_MINUTES;
-                boolean isSignificantlyOlder = timeDelta < -TWO_MINUTES;
-                boolean isNewer = timeDelta > 0;
-
-                // If it's been more than two minutes since the current location, use the new location
-                // because the user has likely moved
-                if (isSignificantlyNewer) {
+                float accuracy = location.hasAccuracy() ? location.getAccuracy() : Float.POSITIVE_INFINITY;
+                if (accuracy <= mOptions.desiredAccuracy) {
+                    finish();
+                    mSuccess.invoke(encodeLocation(location, mOptions));
                     return true;
-                    // If the new location is more than two minutes older, it must be worse
-                } else if (isSignificantlyOlder) {
-                    return false;
                 }
 
-                // Check whether the new location fix is more or less accurate
-                int accuracyDelta = (int) (location.getAccuracy() - currentBestLocation.getAccuracy());
-                boolean isLessAccurate = accuracyDelta > 0;
-                boolean isMoreAccurate = accuracyDelta < 0;
-                boolean isSignificantlyLessAccurate = accuracyDelta > 200;
+                if (LocationQuality.isBetterLocation(location, mBestLocation)) {
+                    mBestLocation = location;
+                }
+                return false;
+            }
 
-                // Check if the old and new location are from the same provider
-                boolean isFromSameProvider = isSameProvider(location.getProvider(),
-                        currentBestLocation.getProvider());
+            private void finish() {
+                mFinished = true;
+                mHandler.removeCallbacks(this);
+                mLocationManager.removeUpdates(this);
+            }
 
-                // Determine location quality using a combination of timeliness and accuracy
-                if (isMoreAccurate) {
-                    return true;
-                } else if (isNewer && !isLessAccurate) {
-                    return true;
-                } else if (isNewer && !isSignificantlyLessAccurate && isFromSameProvider) {
-                    return true;
+            public synchronized boolean isFinished() {
+                return mFinished;
+            }
+
+            public synchronized void cancel() {
+                if (!mFinished) {
+                    finish();
                 }
+            }
 
-                return false;
+            @Override
+            public synchronized void onLocationChanged(@NonNull Location location) {
+                mLocationCache.put(location);
+                offer(location);
+            }
+
+            @Override
+            public void onStatusChanged(String provider, int status, Bundle extras) {
+            }
+
+            @Override
+            public void onProviderEnabled(String provider) {
+            }
+
+            @Override
+            public void onProviderDisabled(String provider) {
             }
 
             /**
-             * Checks whether two providers are the same
+             * Runs as the timeout of the request.
              */
-            private boolean isSameProvider(String provider1, String provider2) {
-                if (provider1 == null) {
-                    return provider2 == null;
+            @Override
+            public synchronized void run() {
+                if (mFinished) {
+                    return;
+                }
+
+                finish();
+                if (mBestLocation != null) {
+                    mSuccess.invoke(encodeLocation(mBestLocation, mOptions));
+                } else {
+                    mError.invoke(PositionError.buildError(PositionError.TIMEOUT, "Location request timed out"));
                 }
-                return provider1.equals(provider2);
             }
         }
     }
@@ -3,36 +3,106 @@ package com.reactnativecommunity.geolocation;
 import android.location.Location;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public abstract class BaseLocationManager implements EventEmitter {
     public ReactApplicationContext mReactContext;
     public boolean mEnableBackgroundLocationUpdates;
+    protected final Looper mLooper;
+    protected final Handler mHandler;
+    private final LocationJournal mLocationJournal;
+    private final LocationRingBuffer mLocationBuffer = new LocationRingBuffer(LocationRingBuffer.DEFAULT_CAPACITY);
+    private final LocationBatcher mLocationBatcher;
+    private final EmissionQueue mEmissionQueue;
+    private volatile LocationPipeline mPipeline = LocationPipeline.fromReactArray(null);
+    private volatile boolean mCompactPositions;
+    private volatile int mGeohashPrecision;
+    private final KalmanFilter mKalmanFilter = new KalmanFilter();
+    private final double[] mFiltered = new double[3];
+    private volatile boolean mSmoothPositions;
+    private volatile boolean mIncludeRawCoordinates;
+    protected final WatchRegistry mWatchRegistry = new WatchRegistry();
+    protected final LastLocationCache mLocationCache = new LastLocationCache();
+    private final AdaptiveIntervalScheduler mIntervalScheduler = new AdaptiveIntervalScheduler();
+    protected final GeofenceEngine mGeofenceEngine = new GeofenceEngine();
+    private volatile @Nullable LocationOptions mGeofenceOptions;
+    private final PositionRefiner mPositionRefiner = new PositionRefiner();
+    private final Set<PendingRequest> mPendingRequests = new HashSet<>();
+    private boolean mWarmStart;
+    // The manager this one replaced, which keeps its provider until this one has started
+    private @Nullable BaseLocationManager mReplacedManager;
+    private boolean mKeepReplacedService;
+    // The manager that replaced this one, which receives the locations this one still gets
+    private volatile @Nullable BaseLocationManager mSuccessor;
 
-    protected BaseLocationManager(ReactApplicationContext reactContext, boolean enableBackgroundLocationUpdates) {
+    /**
+     * @param looper the looper provider callbacks, timeouts and batching run on, see
+     *        {@link LocationThread}
+     */
+    protected BaseLocationManager(ReactApplicationContext reactContext, boolean enableBackgroundLocationUpdates, Looper looper) {
         mReactContext = reactContext;
         mEnableBackgroundLocationUpdates = enableBackgroundLocationUpdates;
+        mLooper = looper;
+        mHandler = new Handler(looper);
+        mLocationBatcher = new LocationBatcher(this, mHandler, mLocationBuffer);
+        mEmissionQueue = new EmissionQueue(reactContext);
+        mLocationJournal = LocationJournal.getInstance(reactContext);
     }
 
     protected static WritableMap locationToMap(Location location) {
+        boolean mocked = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && location.isFromMockProvider();
+        return positionToMap(
+                location.getLatitude(),
+                location.getLongitude(),
+                location.getAltitude(),
+                location.getAccuracy(),
+                location.getBearing(),
+                location.getSpeed(),
+                location.getTime(),
+                location.getExtras(),
+                mocked);
+    }
+
+    protected static WritableMap positionToMap(
+            double latitude,
+            double longitude,
+            double altitude,
+            double accuracy,
+            double heading,
+            double speed,
+            long timestamp,
+            Bundle bundle,
+            boolean mocked) {
         WritableMap map = Arguments.createMap();
         WritableMap coords = Arguments.createMap();
-        coords.putDouble("latitude", location.getLatitude());
-        coords.putDouble("longitude", location.getLongitude());
-        coords.putDouble("altitude", location.getAltitude());
-        coords.putDouble("accuracy", location.getAccuracy());
-        coords.putDouble("heading", location.getBearing());
-        coords.putDouble("speed", location.getSpeed());
+        coords.putDouble("latitude", latitude);
+        coords.putDouble("longitude", longitude);
+        coords.putDouble("altitude", altitude);
+        coords.putDouble("accuracy", accuracy);
+        coords.putDouble("heading", heading);
+        coords.putDouble("speed", speed);
         map.putMap("coords", coords);
-        map.putDouble("timestamp", location.getTime());
+        map.putDouble("timestamp", timestamp);
 
-        Bundle bundle = location.getExtras();
         if (bundle != null) {
             WritableMap extras = Arguments.createMap();
             for (String key: bundle.keySet()) {
@@ -43,12 +113,79 @@ public abstract class BaseLocationManager implements EventEmitter {
         }
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            map.putBoolean("mocked", location.isFromMockProvider());
+            map.putBoolean("mocked", mocked);
         }
 
         return map;
     }
 
+    /**
+     * Encodes a position as a flat array, see {@link #positionToArray}, or as the regular map,
+     * with the {@code geohash} of the location if the options ask for one.
+     */
+    protected static Object encodeLocation(Location location, LocationOptions options) {
+        if (!options.compact) {
+            WritableMap map = locationToMap(location);
+            if (options.geohashPrecision > 0) {
+                map.putString("geohash", Geohash.encode(location.getLatitude(), location.getLongitude(), options.geohashPrecision));
+            }
+            return map;
+        }
+
+        boolean mocked = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && location.isFromMockProvider();
+        WritableArray array = positionToArray(
+                location.getLatitude(),
+                location.getLongitude(),
+                location.getAltitude(),
+                location.getAccuracy(),
+                location.getBearing(),
+                location.getSpeed(),
+                location.getTime(),
+                mocked);
+        pushGeohash(array, location.getLatitude(), location.getLongitude(), options.geohashPrecision);
+        return array;
+    }
+
+    /**
+     * Compact position encoding. The field order is part of the contract with the JS decoder in
+     * {@code implementation.native.ts}: latitude, longitude, altitude, accuracy, heading, speed,
+     * timestamp, mocked (1 or 0). Extras are not included. Positions sent to callbacks and
+     * watches add the geohash, see {@link #pushGeohash}.
+     */
+    protected static WritableArray positionToArray(
+            double latitude,
+            double longitude,
+            double altitude,
+            double accuracy,
+            double heading,
+            double speed,
+            long timestamp,
+            boolean mocked) {
+        WritableArray array = Arguments.createArray();
+        array.pushDouble(latitude);
+        array.pushDouble(longitude);
+        array.pushDouble(altitude);
+        array.pushDouble(accuracy);
+        array.pushDouble(heading);
+        array.pushDouble(speed);
+        array.pushDouble(timestamp);
+        array.pushInt(mocked ? 1 : 0);
+        return array;
+    }
+
+    /**
+     * Appends the geohash with the given precision to a compact position, or null without a
+     * precision, so the watch ids that may follow always start at the same index.
+     */
+    protected static void pushGeohash(WritableArray array, double latitude, double longitude, int precision) {
+        if (precision > 0) {
+            array.pushString(Geohash.encode(latitude, longitude, precision));
+        } else {
+            array.pushNull();
+        }
+    }
+
     protected static void putIntoMap(WritableMap map, String key, Object value) {
         if (value instanceof Integer) {
             map.putInt(key, (Integer) value);
@@ -72,17 +209,678 @@ public abstract class BaseLocationManager implements EventEmitter {
     }
 
     public void emitError(int code, String message) {
-        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit("geolocationError", PositionError.buildError(code, message));
+        emit("geolocationError", PositionError.buildError(code, message));
     }
 
+    /**
+     * Emits an event through the {@link EmissionQueue}, which keeps every event other than
+     * single positions.
+     */
     public void emit(String message, Object o) {
-        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit(message, o);
+        mEmissionQueue.offer(message, o);
+    }
+
+    public void emitLocation(Location location) {
+        BaseLocationManager successor = mSuccessor;
+        if (successor != null) {
+            successor.mHandler.post(() -> successor.emitLocation(location));
+            return;
+        }
+
+        GeolocationMetrics.getInstance().fixReceived(location.getProvider());
+
+        mLocationJournal.record(location);
+
+        mLocationCache.put(location);
+        rescheduleLocationUpdates(location);
+        refinePositions(location);
+
+        LocationPipeline pipeline = mPipeline;
+        if (pipeline.isEmpty()) {
+            deliverLocation(location);
+        } else {
+            // What comes out of the stages continues on the location thread, in order
+            pipeline.process(location, result -> mHandler.post(() -> deliverLocation(result)));
+        }
+    }
+
+    /**
+     * Sends a fix that went through the {@link LocationPipeline} to the geofences and watches.
+     */
+    private void deliverLocation(Location location) {
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        double accuracy = location.getAccuracy();
+        if (mSmoothPositions) {
+            mKalmanFilter.filter(latitude, longitude, location.getAccuracy(), location.getElapsedRealtimeNanos(), mFiltered);
+            latitude = mFiltered[0];
+            longitude = mFiltered[1];
+            accuracy = mFiltered[2];
+        }
+
+        WritableArray transitions = mGeofenceEngine.evaluate(latitude, longitude, location.getElapsedRealtimeNanos());
+        if (transitions != null) {
+            WritableMap event = Arguments.createMap();
+            event.putArray("transitions", transitions);
+            // The position the fences were checked against, smoothed if the watches are
+            event.putMap("position", encodeMap(location, latitude, longitude, accuracy, 0));
+            emit("geolocationGeofenceTransition", event);
+        }
+
+        long watchMask = mWatchRegistry.match(latitude, longitude, location.getElapsedRealtimeNanos());
+        if (watchMask == 0) {
+            return;
+        }
+        GeolocationMetrics.getInstance().fixEmitted();
+
+        // Only batched positions wait in the ring buffer, the others are encoded right away
+        if (mLocationBatcher.isEnabled()) {
+            mLocationBatcher.add(mLocationBuffer.write(location, latitude, longitude, accuracy, watchMask));
+            return;
+        }
+
+        // Encoded once the queue emits it, positions it coalesces or drops never are
+        final double emittedLatitude = latitude;
+        final double emittedLongitude = longitude;
+        final double emittedAccuracy = accuracy;
+        final boolean compact = mCompactPositions;
+        EmissionQueue.Payload position = () -> compact
+                ? encodeCompact(location, emittedLatitude, emittedLongitude, emittedAccuracy, watchMask)
+                : encodeMap(location, emittedLatitude, emittedLongitude, emittedAccuracy, watchMask);
+        mEmissionQueue.offer("geolocationDidChange", position, watchMask);
+    }
+
+    /**
+     * Reports the location to the refinements it improves, and stops requesting locations for
+     * the ones that reached their desired accuracy.
+     */
+    private void refinePositions(Location location) {
+        if (mPositionRefiner.isEmpty()) {
+            return;
+        }
+
+        List<PositionRefiner.Refinement> improved = new ArrayList<>();
+        mPositionRefiner.offer(location, improved);
+        boolean finished = false;
+        for (PositionRefiner.Refinement refinement : improved) {
+            emitRefinement(refinement);
+            if (refinement.finished) {
+                mHandler.removeCallbacksAndMessages(refinement);
+                finished = true;
+            }
+        }
+        if (finished) {
+            updateObserving();
+        }
+    }
+
+    private void emitRefinement(PositionRefiner.Refinement refinement) {
+        WritableMap event = Arguments.createMap();
+        event.putInt("id", refinement.id);
+        event.putBoolean("final", refinement.finished);
+        Object position = encodeLocation(refinement.best, refinement.options);
+        if (position instanceof WritableArray) {
+            event.putArray("position", (WritableArray) position);
+        } else {
+            event.putMap("position", (WritableMap) position);
+        }
+        emit("geolocationRefinement", event);
+    }
+
+    /**
+     * Appends the encoded position with the given ring buffer sequence number to a batch.
+     */
+    protected void pushEncoded(WritableArray batch, long sequence) {
+        if (mCompactPositions) {
+            batch.pushArray(encodeCompact(sequence));
+        } else {
+            batch.pushMap(encodeMap(sequence));
+        }
     }
 
-    abstract public void getCurrentLocationData(ReadableMap options, final Callback success, Callback error);
-    abstract public void startObserving(ReadableMap options);
-    abstract public void stopObserving();
+    private WritableMap encodeMap(long sequence) {
+        WritableMap map = mLocationBuffer.toMap(sequence);
+        WritableArray watchIds = mWatchRegistry.getWatchIds(mLocationBuffer.getWatchMask(sequence));
+        if (watchIds != null) {
+            map.putArray("watchIds", watchIds);
+        }
+        if (mSmoothPositions && mIncludeRawCoordinates) {
+            map.putMap("rawCoords", mLocationBuffer.toRawCoordsMap(sequence));
+        }
+        int geohashPrecision = mGeohashPrecision;
+        if (geohashPrecision > 0) {
+            map.putString("geohash", mLocationBuffer.getGeohash(sequence, geohashPrecision));
+        }
+        return map;
+    }
+
+    /**
+     * Same as {@link #encodeMap(long)}, for a position that is not kept in the ring buffer.
+     */
+    private WritableMap encodeMap(Location location, double latitude, double longitude, double accuracy, long watchMask) {
+        boolean mocked = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && location.isFromMockProvider();
+        WritableMap map = positionToMap(
+                latitude,
+                longitude,
+                location.getAltitude(),
+                accuracy,
+                location.getBearing(),
+                location.getSpeed(),
+                location.getTime(),
+                location.getExtras(),
+                mocked);
+        WritableArray watchIds = mWatchRegistry.getWatchIds(watchMask);
+        if (watchIds != null) {
+            map.putArray("watchIds", watchIds);
+        }
+        if (mSmoothPositions && mIncludeRawCoordinates) {
+            WritableMap coords = Arguments.createMap();
+            coords.putDouble("latitude", location.getLatitude());
+            coords.putDouble("longitude", location.getLongitude());
+            coords.putDouble("accuracy", location.getAccuracy());
+            map.putMap("rawCoords", coords);
+        }
+        int geohashPrecision = mGeohashPrecision;
+        if (geohashPrecision > 0) {
+            map.putString("geohash", Geohash.encode(latitude, longitude, geohashPrecision));
+        }
+        return map;
+    }
+
+    /**
+     * Ids of the watches a compact position is meant for follow the position fields and the
+     * geohash.
+     */
+    private WritableArray encodeCompact(long sequence) {
+        WritableArray array = mLocationBuffer.toArray(sequence);
+        int geohashPrecision = mGeohashPrecision;
+        if (geohashPrecision > 0) {
+            array.pushString(mLocationBuffer.getGeohash(sequence, geohashPrecision));
+        } else {
+            array.pushNull();
+        }
+        pushWatchIds(array, mLocationBuffer.getWatchMask(sequence));
+        return array;
+    }
+
+    /**
+     * Same as {@link #encodeCompact(long)}, for a position that is not kept in the ring buffer.
+     */
+    private WritableArray encodeCompact(Location location, double latitude, double longitude, double accuracy, long watchMask) {
+        boolean mocked = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && location.isFromMockProvider();
+        WritableArray array = positionToArray(
+                latitude,
+                longitude,
+                location.getAltitude(),
+                accuracy,
+                location.getBearing(),
+                location.getSpeed(),
+                location.getTime(),
+                mocked);
+        pushGeohash(array, latitude, longitude, mGeohashPrecision);
+        pushWatchIds(array, watchMask);
+        return array;
+    }
+
+    private void pushWatchIds(WritableArray array, long watchMask) {
+        WritableArray watchIds = mWatchRegistry.getWatchIds(watchMask);
+        if (watchIds != null) {
+            for (int i = 0; i < watchIds.size(); i++) {
+                array.pushInt(watchIds.getInt(i));
+            }
+        }
+    }
+
+    /**
+     * Replaces the stages fixes go through before reaching the geofences and watches, see
+     * {@link LocationPipeline}. The stages start without state.
+     *
+     * @param stages the stages as configured from JS, or null for none
+     */
+    public void setPipeline(@Nullable ReadableArray stages) {
+        mPipeline = LocationPipeline.fromReactArray(stages);
+    }
+
+    /**
+     * Sets how events wait while JS is busy, see {@link EmissionQueue}.
+     *
+     * @param policy one of the {@code EmissionQueue.POLICY_} constants
+     * @param capacity the most positions kept waiting
+     */
+    public void setEventQueue(String policy, int capacity) {
+        mEmissionQueue.setPolicy(policy, capacity);
+    }
+
+    /**
+     * Enables the Kalman filter for observed positions. The cached locations and the journal
+     * keep the raw positions.
+     *
+     * @param includeRawCoordinates whether emitted positions also carry the unfiltered
+     *        {@code rawCoords}, which are not part of the compact encoding
+     */
+    public void setPositionSmoothing(boolean smoothPositions, boolean includeRawCoordinates) {
+        if (smoothPositions != mSmoothPositions) {
+            mKalmanFilter.reset();
+        }
+        mSmoothPositions = smoothPositions;
+        mIncludeRawCoordinates = includeRawCoordinates;
+    }
+
+    /**
+     * Answers a position request from the locations already seen by the module, if one is recent
+     * and accurate enough.
+     *
+     * @return whether the request was answered
+     */
+    protected boolean respondFromCache(LocationOptions options, Callback success) {
+        Location location = mLocationCache.get(options.maximumAge, options.highAccuracy);
+        if (location == null) {
+            return false;
+        }
+
+        success.invoke(encodeLocation(location, options));
+        return true;
+    }
+
+    /**
+     * @return the most recent location seen by the module as {@code position}, with its
+     *         {@code age} in milliseconds, or null if there is none
+     */
+    @Nullable
+    public WritableMap getLastKnownPosition() {
+        Location location = mLocationCache.getLatest();
+        if (location == null) {
+            return null;
+        }
+
+        WritableMap map = Arguments.createMap();
+        map.putMap("position", locationToMap(location));
+        map.putDouble("age", LastLocationCache.getAge(location));
+        return map;
+    }
+
+    /**
+     * Starts or stops warm-starting the location cache with the fixes other apps and the system
+     * request, so the first {@link #getCurrentLocationData} accepting a cached position does not
+     * have to wait for the provider. Passive updates cost no power of their own. Enabling is
+     * retried by later calls until location permission is granted.
+     */
+    public synchronized void setWarmStart(boolean enabled) {
+        if (enabled == mWarmStart) {
+            return;
+        }
+
+        if (!enabled) {
+            stopPassiveUpdates();
+            mWarmStart = false;
+            return;
+        }
+
+        try {
+            startPassiveUpdates();
+            mWarmStart = true;
+        } catch (SecurityException e) {
+            // Without permission yet, the next call tries again
+        }
+    }
+
+    /**
+     * Starts observing for a watch, or updates the options of an existing one, and adjusts the
+     * provider request to cover all active watches.
+     *
+     * @param options location options, with an optional {@code watchId}
+     */
+    public void startObserving(ReadableMap options) {
+        int watchId = options.hasKey("watchId") ? options.getInt("watchId") : WatchRegistry.DEFAULT_WATCH_ID;
+        if (!mWatchRegistry.add(watchId, LocationOptions.fromReactMap(options))) {
+            emitError(PositionError.POSITION_UNAVAILABLE, "Too many active watches.");
+            return;
+        }
+        updateObserving();
+    }
+
+    /**
+     * Stops delivering locations to a single watch. Location updates stop with the last watch.
+     */
+    public void clearWatch(int watchId) {
+        if (mWatchRegistry.remove(watchId)) {
+            updateObserving();
+        }
+    }
+
+    /**
+     * Stops observing for all watches.
+     */
+    public void stopObserving() {
+        mWatchRegistry.clear();
+        updateObserving();
+    }
+
+    /**
+     * Adds geofences, or replaces fences with the same id. Locations are requested with the
+     * given options while there are geofences, in addition to the watches.
+     */
+    public void addGeofences(ReadableArray fences, ReadableMap options) {
+        mGeofenceEngine.add(fences);
+        mGeofenceOptions = LocationOptions.fromReactMap(options);
+        updateObserving();
+    }
+
+    public void removeGeofences(ReadableArray ids) {
+        mGeofenceEngine.remove(ids);
+        updateObserving();
+    }
+
+    public void clearGeofences() {
+        mGeofenceEngine.clear();
+        updateObserving();
+    }
+
+    /**
+     * Starts a position request that reports every more accurate fix as a
+     * {@code geolocationRefinement} event, starting with a cached location if it is recent
+     * enough. It finishes with the first fix within {@code desiredAccuracy}, or with the best fix
+     * when its {@code timeout} runs out.
+     */
+    public void startRefinement(int id, ReadableMap options) {
+        LocationOptions locationOptions = LocationOptions.fromReactMap(options);
+        stopRefinement(id);
+        PositionRefiner.Refinement refinement = mPositionRefiner.add(id, locationOptions,
+                mLocationCache.get(locationOptions.maximumAge, false));
+        if (refinement.best != null) {
+            emitRefinement(refinement);
+        }
+        if (refinement.finished) {
+            return;
+        }
+
+        mHandler.postAtTime(
+                () -> onRefinementTimeout(id),
+                refinement,
+                refinement.deadline);
+        updateObserving();
+    }
+
+    /**
+     * Cancels a refinement without reporting anything more.
+     */
+    public void stopRefinement(int id) {
+        PositionRefiner.Refinement refinement = mPositionRefiner.finish(id);
+        if (refinement != null) {
+            mHandler.removeCallbacksAndMessages(refinement);
+            updateObserving();
+        }
+    }
+
+    private void onRefinementTimeout(int id) {
+        PositionRefiner.Refinement refinement = mPositionRefiner.finish(id);
+        if (refinement == null) {
+            return;
+        }
+
+        if (refinement.best != null) {
+            emitRefinement(refinement);
+        } else {
+            emitRefinementError(id, PositionError.buildError(PositionError.TIMEOUT, "Location request timed out"));
+        }
+        updateObserving();
+    }
+
+    /**
+     * Ends a refinement with an error, for failures outside of the manager like missing
+     * permissions.
+     */
+    public void emitRefinementError(int id, WritableMap error) {
+        emit("geolocationRefinement", refinementErrorToMap(id, error));
+    }
+
+    /**
+     * @return the final {@code geolocationRefinement} event of a refinement that failed
+     */
+    protected static WritableMap refinementErrorToMap(int id, WritableMap error) {
+        WritableMap event = Arguments.createMap();
+        event.putInt("id", id);
+        event.putBoolean("final", true);
+        event.putMap("error", error);
+        return event;
+    }
+
+    /**
+     * Requests the updates for the current watches, geofences and refinements again, for
+     * providers that only became ready after they were requested.
+     */
+    protected void resumeObserving() {
+        updateObserving();
+    }
+
+    private void updateObserving() {
+        synchronized (mIntervalScheduler) {
+            LocationOptions watchOptions = mWatchRegistry.getMergedOptions();
+            LocationOptions options = watchOptions;
+            LocationOptions geofenceOptions = mGeofenceOptions;
+            if (geofenceOptions != null && !mGeofenceEngine.isEmpty()) {
+                options = options == null ? geofenceOptions : LocationOptions.merge(Arrays.asList(options, geofenceOptions));
+            }
+            LocationOptions refinementOptions = mPositionRefiner.getMergedOptions();
+            if (refinementOptions != null) {
+                options = options == null ? refinementOptions : LocationOptions.merge(Arrays.asList(options, refinementOptions));
+            }
+            if (options == null) {
+                mIntervalScheduler.stop();
+                stopLocationUpdates();
+                resetObserving();
+                // Nothing is waiting for locations, so there is no gap to bridge
+                releaseReplacedManager();
+                GeolocationMetrics.getInstance().observingStopped();
+                return;
+            }
+
+            // Batching and encoding only concern the positions emitted to watches
+            if (watchOptions != null) {
+                configureObserving(watchOptions);
+            } else {
+                resetObserving();
+            }
+            GeolocationMetrics.getInstance().observingStarted();
+            startLocationUpdates(mIntervalScheduler.start(options, getImplicitInterval(options)));
+        }
+    }
+
+    /**
+     * Re-issues the provider request when the scheduler adapts the interval to a new speed.
+     */
+    private void rescheduleLocationUpdates(Location location) {
+        synchronized (mIntervalScheduler) {
+            LocationOptions options = mIntervalScheduler.update(location);
+            if (options != null) {
+                startLocationUpdates(options);
+            }
+        }
+    }
+
+    /**
+     * Applies the output options of the observers: batching, position encoding and the geohash
+     * precision. Any locations batched with the previous options are flushed first.
+     */
+    private void configureObserving(LocationOptions options) {
+        mLocationBatcher.configure(options.batchSize, options.batchMaxAge);
+        mCompactPositions = options.compact;
+        mGeohashPrecision = options.geohashPrecision;
+    }
+
+    /**
+     * Delivers any pending batched locations and restores the default output options.
+     */
+    private void resetObserving() {
+        mLocationBatcher.configure(0, -1);
+        mCompactPositions = false;
+        mGeohashPrecision = 0;
+        mKalmanFilter.reset();
+    }
+
+    /**
+     * A {@link #getCurrentLocationData} call that was not answered yet. Only the manager that
+     * tracks it may answer it, so the request can be handed to another manager while the
+     * provider of this one is still busy with it.
+     */
+    private static class PendingRequest {
+        final LocationOptions options;
+        final Callback success;
+        final Callback error;
+        // Timeout as SystemClock#uptimeMillis
+        final long deadline;
+
+        PendingRequest(LocationOptions options, Callback success, Callback error) {
+            this.options = options;
+            this.success = success;
+            this.error = error;
+            this.deadline = SystemClock.uptimeMillis() + options.timeout;
+        }
+    }
+
+    public void getCurrentLocationData(ReadableMap options, Callback success, Callback error) {
+        request(new PendingRequest(LocationOptions.fromReactMap(options), success, error));
+    }
+
+    private void request(PendingRequest request) {
+        synchronized (mPendingRequests) {
+            mPendingRequests.add(request);
+        }
+        getCurrentLocation(request.options, args -> {
+            if (settle(request)) {
+                request.success.invoke(args);
+            }
+        }, args -> {
+            if (settle(request)) {
+                request.error.invoke(args);
+            }
+        });
+    }
+
+    /**
+     * @return false if the request was already answered or handed to another manager
+     */
+    private boolean settle(PendingRequest request) {
+        synchronized (mPendingRequests) {
+            return mPendingRequests.remove(request);
+        }
+    }
+
+    /**
+     * Takes over the state of the manager this one replaces: cached locations, watches,
+     * geofences, refinements and unanswered position requests, which are requested again with
+     * the time they have left. Location updates then start on this manager's provider. The
+     * previous manager keeps its provider running and passes its locations on until this
+     * manager's provider has started, see {@link #onLocationUpdatesStarted}, and is released
+     * then, so watches see no gap.
+     *
+     * @param keepService whether this manager runs the background service too, which is then
+     *        left running when the previous manager is released
+     */
+    public void takeOver(BaseLocationManager previous, boolean keepService) {
+        synchronized (this) {
+            mReplacedManager = previous;
+            mKeepReplacedService = keepService;
+        }
+        previous.mSuccessor = this;
+
+        mLocationCache.putAll(previous.mLocationCache);
+        mWatchRegistry.moveFrom(previous.mWatchRegistry);
+        mGeofenceEngine.moveFrom(previous.mGeofenceEngine);
+        mGeofenceOptions = previous.mGeofenceOptions;
+        previous.mGeofenceOptions = null;
+        // Stages keep their state across the swap
+        mPipeline = previous.mPipeline;
+        for (PositionRefiner.Refinement refinement : mPositionRefiner.moveFrom(previous.mPositionRefiner)) {
+            previous.mHandler.removeCallbacksAndMessages(refinement);
+            mHandler.postAtTime(() -> onRefinementTimeout(refinement.id), refinement, refinement.deadline);
+        }
+
+        List<PendingRequest> requests;
+        synchronized (previous.mPendingRequests) {
+            requests = new ArrayList<>(previous.mPendingRequests);
+            previous.mPendingRequests.clear();
+        }
+        long now = SystemClock.uptimeMillis();
+        for (PendingRequest request : requests) {
+            long timeout = request.deadline - now;
+            if (timeout <= 0) {
+                request.error.invoke(PositionError.buildError(PositionError.TIMEOUT, "Location request timed out"));
+            } else {
+                request(new PendingRequest(request.options.withTimeout(timeout), request.success, request.error));
+            }
+        }
+
+        updateObserving();
+    }
+
+    /**
+     * Releases the manager this one replaced, now that this manager's provider delivers the
+     * locations.
+     */
+    @Override
+    public void onLocationUpdatesStarted() {
+        releaseReplacedManager();
+    }
+
+    private void releaseReplacedManager() {
+        BaseLocationManager previous;
+        boolean keepService;
+        synchronized (this) {
+            previous = mReplacedManager;
+            keepService = mKeepReplacedService;
+            mReplacedManager = null;
+        }
+        if (previous != null) {
+            previous.release(keepService);
+        }
+    }
+
+    /**
+     * Stops the provider of a manager that was replaced, see {@link #takeOver}. Locations
+     * still batched are delivered first. A manager this one was still waiting to replace is
+     * released as well.
+     *
+     * @param keepService whether the replacing manager runs the background service too, which
+     *        is then left running
+     */
+    public void release(boolean keepService) {
+        synchronized (mIntervalScheduler) {
+            mIntervalScheduler.stop();
+            resetObserving();
+        }
+        releaseProvider(keepService);
+        releaseReplacedManager();
+    }
+
+    abstract protected void getCurrentLocation(LocationOptions options, Callback success, Callback error);
+    abstract protected void startLocationUpdates(LocationOptions options);
+
+    /**
+     * @return the interval {@link #startLocationUpdates} asks the provider for when the options
+     *         do not set one
+     */
+    protected int getImplicitInterval(LocationOptions options) {
+        return options.interval;
+    }
+
+    abstract protected void stopLocationUpdates();
+
+    /**
+     * Seeds {@link #mLocationCache} with the last known location and keeps it filled with
+     * passive fixes until {@link #stopPassiveUpdates()}.
+     *
+     * @throws SecurityException if location permission was not granted
+     */
+    abstract protected void startPassiveUpdates();
+    abstract protected void stopPassiveUpdates();
     abstract public void stopService();
+
+    /**
+     * Stops this manager's own location updates and pending provider requests, without going
+     * through the background service, which may already serve the replacing manager.
+     */
+    abstract protected void releaseProvider(boolean keepService);
 }
@@ -0,0 +1,230 @@
+package com.reactnativecommunity.geolocation;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bounded queue between a location manager and JS. Events are handed to the bridge from the JS
+ * queue thread, so while JS is busy they wait here instead of piling up in the bridge queue,
+ * and the policy decides what to do with the positions that went stale in the meantime:
+ *
+ * <ul>
+ *     <li>{@code latestWins}: a position replaces the queued ones whose watches it is all
+ *         for. A queued position that is also for other watches is kept, so those watches may
+ *         get both positions</li>
+ *     <li>{@code dropOldest}: the oldest positions are dropped beyond the capacity</li>
+ *     <li>{@code batch}: the queued positions are emitted as one batch, as
+ *         {@link LocationBatcher} does</li>
+ * </ul>
+ *
+ * Every policy keeps at most {@code capacity} positions. Errors, geofence transitions and the
+ * other events are never dropped or merged, and all events keep their order. With the
+ * {@code none} policy events are emitted right away, as if there was no queue, unless older
+ * events are still waiting or being emitted.
+ *
+ * Positions can be offered as a {@link Payload}, which is only built for the events that are
+ * emitted, so positions that are coalesced or dropped are never encoded.
+ */
+public class EmissionQueue {
+    public static final String POLICY_NONE = "none";
+    public static final String POLICY_LATEST_WINS = "latestWins";
+    public static final String POLICY_DROP_OLDEST = "dropOldest";
+    public static final String POLICY_BATCH = "batch";
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final ReactApplicationContext mReactContext;
+    // Guarded by this
+    private final ArrayDeque<Event> mEvents = new ArrayDeque<>();
+    private String mPolicy = POLICY_NONE;
+    private int mCapacity = DEFAULT_CAPACITY;
+    private int mPositions;
+    // Set while a drain is scheduled or running
+    private boolean mDrainPending;
+    private final Runnable mDrain = this::drain;
+
+    /**
+     * Builds the payload of an event when it is emitted.
+     */
+    public interface Payload {
+        Object build();
+    }
+
+    private static class Event {
+        final String name;
+        final Object payload;
+        // Watches a position is for, 0 for other events
+        final long watchMask;
+
+        Event(String name, Object payload, long watchMask) {
+            this.name = name;
+            this.payload = payload;
+            this.watchMask = watchMask;
+        }
+    }
+
+    public EmissionQueue(ReactApplicationContext reactContext) {
+        mReactContext = reactContext;
+    }
+
+    /**
+     * @param policy one of the {@code POLICY_} constants, unknown ones are treated as
+     *               {@link #POLICY_NONE}
+     */
+    public synchronized void setPolicy(String policy, int capacity) {
+        mPolicy = policy;
+        mCapacity = Math.max(1, capacity);
+    }
+
+    public void offer(String name, Object payload) {
+        offer(name, payload, 0);
+    }
+
+    /**
+     * @param watchMask the watches a position is for, 0 if the event is not a position
+     */
+    public void offer(String name, Object payload, long watchMask) {
+        synchronized (this) {
+            // Without a policy, events only wait to stay behind the ones still queued or emitted
+            if (isQueueing() || mDrainPending) {
+                enqueue(new Event(name, payload, watchMask));
+                return;
+            }
+        }
+        emitToJS(name, payload);
+    }
+
+    private boolean isQueueing() {
+        return POLICY_LATEST_WINS.equals(mPolicy)
+                || POLICY_DROP_OLDEST.equals(mPolicy)
+                || POLICY_BATCH.equals(mPolicy);
+    }
+
+    // Called while holding this
+    private void enqueue(Event event) {
+        if (event.watchMask != 0) {
+            if (POLICY_LATEST_WINS.equals(mPolicy)) {
+                removeCoveredPositions(event.watchMask);
+            }
+            mEvents.add(event);
+            mPositions++;
+            // Switching to the none policy leaves the queue unbounded until it drains
+            while (isQueueing() && mPositions > mCapacity) {
+                removeOldestPosition();
+                GeolocationMetrics.getInstance().eventDropped();
+            }
+        } else {
+            mEvents.add(event);
+        }
+
+        if (!mDrainPending) {
+            mDrainPending = true;
+            mReactContext.runOnJSQueueThread(mDrain);
+        }
+    }
+
+    /**
+     * Removes the queued positions that are only for watches in the given mask.
+     */
+    private void removeCoveredPositions(long watchMask) {
+        Iterator<Event> iterator = mEvents.iterator();
+        while (iterator.hasNext()) {
+            Event event = iterator.next();
+            if (event.watchMask != 0 && (event.watchMask & ~watchMask) == 0) {
+                iterator.remove();
+                mPositions--;
+                GeolocationMetrics.getInstance().eventCoalesced();
+            }
+        }
+    }
+
+    private void removeOldestPosition() {
+        Iterator<Event> iterator = mEvents.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().watchMask != 0) {
+                iterator.remove();
+                mPositions--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Emits everything queued, runs on the JS queue thread. Events queued meanwhile are left
+     * for another drain, so they can still be coalesced.
+     */
+    private void drain() {
+        List<Event> events;
+        boolean batch;
+        synchronized (this) {
+            events = new ArrayList<>(mEvents);
+            mEvents.clear();
+            mPositions = 0;
+            batch = POLICY_BATCH.equals(mPolicy);
+        }
+
+        List<Event> positions = new ArrayList<>();
+        for (Event event : events) {
+            if (batch && event.watchMask != 0) {
+                positions.add(event);
+                continue;
+            }
+            emitPositions(positions);
+            emitToJS(event.name, event.payload);
+        }
+        emitPositions(positions);
+
+        synchronized (this) {
+            if (mEvents.isEmpty()) {
+                mDrainPending = false;
+            } else {
+                mReactContext.runOnJSQueueThread(mDrain);
+            }
+        }
+    }
+
+    /**
+     * Emits the positions collected by the batch policy, as one batch if there are several.
+     */
+    private void emitPositions(List<Event> positions) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        if (positions.size() == 1) {
+            emitToJS(positions.get(0).name, positions.get(0).payload);
+            positions.clear();
+            return;
+        }
+
+        WritableArray batch = Arguments.createArray();
+        for (Event position : positions) {
+            Object payload = build(position.payload);
+            if (payload instanceof ReadableArray) {
+                batch.pushArray((ReadableArray) payload);
+            } else {
+                batch.pushMap((ReadableMap) payload);
+            }
+        }
+        GeolocationMetrics.getInstance().eventsBatched(positions.size() - 1);
+        positions.clear();
+        emitToJS("geolocationDidChangeBatch", batch);
+    }
+
+    private void emitToJS(String name, Object payload) {
+        GeolocationMetrics.getInstance().eventEmitted();
+        mReactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(name, build(payload));
+    }
+
+    private static Object build(Object payload) {
+        return payload instanceof Payload ? ((Payload) payload).build() : payload;
+    }
+}
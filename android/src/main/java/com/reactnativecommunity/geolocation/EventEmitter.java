@@ -1,6 +1,14 @@
 package com.reactnativecommunity.geolocation;
 
+import android.location.Location;
+
 public interface EventEmitter {
     void emitError(int code, String message);
     void emit(String message, Object obj);
-}
\ No newline at end of file
+    void emitLocation(Location location);
+
+    /**
+     * Called once the provider accepted a request for location updates.
+     */
+    void onLocationUpdatesStarted();
+}
@@ -0,0 +1,320 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates incoming locations against registered circular and polygonal geofences and
+ * reports enter, exit and dwell transitions.
+ *
+ * Fences are indexed in a grid of {@link #CELL_SIZE} degree cells, keyed by the cells their
+ * bounding box overlaps, so a location is only tested against the fences of its own cell and
+ * the fences it is currently inside. Fences that would span more than {@link #MAX_CELLS} cells
+ * are kept in a separate list that is always tested.
+ *
+ * Dwell is reported with the first location received once a fence has been occupied for its
+ * {@code dwellTime}.
+ */
+public class GeofenceEngine {
+    private static final String TAG = "GeofenceEngine";
+    public static final String TRANSITION_ENTER = "enter";
+    public static final String TRANSITION_EXIT = "exit";
+    public static final String TRANSITION_DWELL = "dwell";
+
+    private static final double CELL_SIZE = 0.01;
+    private static final int MAX_CELLS = 64;
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    private final Map<String, Fence> mFences = new HashMap<>();
+    private final Map<Long, List<Fence>> mCells = new HashMap<>();
+    private final List<Fence> mLargeFences = new ArrayList<>();
+    private final Map<String, Fence> mInside = new LinkedHashMap<>();
+    private final float[] mDistance = new float[1];
+
+    private static class Fence {
+        final String id;
+        final double latitude;
+        final double longitude;
+        final float radius;
+        // Alternating latitudes and longitudes, null for circles
+        final @Nullable double[] polygon;
+        final long dwellTime;
+        double minLatitude;
+        double maxLatitude;
+        double minLongitude;
+        double maxLongitude;
+        long enterElapsedTime;
+        boolean dwelled;
+
+        Fence(String id, double latitude, double longitude, float radius, @Nullable double[] polygon, long dwellTime) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radius = radius;
+            this.polygon = polygon;
+            this.dwellTime = dwellTime;
+
+            if (polygon == null) {
+                double latitudeRadius = radius / METERS_PER_DEGREE;
+                double longitudeRadius = radius / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 1e-6));
+                minLatitude = latitude - latitudeRadius;
+                maxLatitude = latitude + latitudeRadius;
+                minLongitude = longitude - longitudeRadius;
+                maxLongitude = longitude + longitudeRadius;
+            } else {
+                minLatitude = maxLatitude = polygon[0];
+                minLongitude = maxLongitude = polygon[1];
+                for (int i = 2; i < polygon.length; i += 2) {
+                    minLatitude = Math.min(minLatitude, polygon[i]);
+                    maxLatitude = Math.max(maxLatitude, polygon[i]);
+                    minLongitude = Math.min(minLongitude, polygon[i + 1]);
+                    maxLongitude = Math.max(maxLongitude, polygon[i + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds fences from their JS representation, replacing fences with the same id. Invalid
+     * fences are skipped.
+     *
+     * @return the number of fences added
+     */
+    public synchronized int add(ReadableArray fences) {
+        int added = 0;
+        for (int i = 0; i < fences.size(); i++) {
+            Fence fence = fromReactMap(fences.getMap(i));
+            if (fence == null) {
+                continue;
+            }
+            remove(fence.id);
+            mFences.put(fence.id, fence);
+            index(fence);
+            added++;
+        }
+        return added;
+    }
+
+    public synchronized void remove(ReadableArray ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            remove(ids.getString(i));
+        }
+    }
+
+    public synchronized void clear() {
+        mFences.clear();
+        mCells.clear();
+        mLargeFences.clear();
+        mInside.clear();
+    }
+
+    public synchronized boolean isEmpty() {
+        return mFences.isEmpty();
+    }
+
+    /**
+     * Takes over the fences of another engine, including which ones the device is inside, and
+     * clears it. Used when the location manager is swapped.
+     */
+    public synchronized void moveFrom(GeofenceEngine other) {
+        synchronized (other) {
+            clear();
+            mFences.putAll(other.mFences);
+            mCells.putAll(other.mCells);
+            mLargeFences.addAll(other.mLargeFences);
+            mInside.putAll(other.mInside);
+            other.clear();
+        }
+    }
+
+    /**
+     * Tests a location against the fences.
+     *
+     * @return the transitions caused by the location, or null if there are none
+     */
+    @Nullable
+    public synchronized WritableArray evaluate(double latitude, double longitude, long elapsedRealtimeNanos) {
+        if (mFences.isEmpty()) {
+            return null;
+        }
+
+        long elapsedTime = elapsedRealtimeNanos / 1000000;
+        WritableArray transitions = null;
+
+        Iterator<Fence> inside = mInside.values().iterator();
+        while (inside.hasNext()) {
+            Fence fence = inside.next();
+            if (!contains(fence, latitude, longitude)) {
+                inside.remove();
+                transitions = addTransition(transitions, fence, TRANSITION_EXIT);
+            } else if (!fence.dwelled && fence.dwellTime >= 0 && elapsedTime - fence.enterElapsedTime >= fence.dwellTime) {
+                fence.dwelled = true;
+                transitions = addTransition(transitions, fence, TRANSITION_DWELL);
+            }
+        }
+
+        List<Fence> candidates = mCells.get(cellKey(cellIndex(latitude), cellIndex(longitude)));
+        if (candidates != null) {
+            transitions = enterFences(candidates, latitude, longitude, elapsedTime, transitions);
+        }
+        return enterFences(mLargeFences, latitude, longitude, elapsedTime, transitions);
+    }
+
+    @Nullable
+    private WritableArray enterFences(List<Fence> candidates, double latitude, double longitude, long elapsedTime, @Nullable WritableArray transitions) {
+        for (int i = 0; i < candidates.size(); i++) {
+            Fence fence = candidates.get(i);
+            if (mInside.containsKey(fence.id) || !contains(fence, latitude, longitude)) {
+                continue;
+            }
+            fence.enterElapsedTime = elapsedTime;
+            fence.dwelled = fence.dwellTime == 0;
+            mInside.put(fence.id, fence);
+            transitions = addTransition(transitions, fence, TRANSITION_ENTER);
+            if (fence.dwelled) {
+                transitions = addTransition(transitions, fence, TRANSITION_DWELL);
+            }
+        }
+        return transitions;
+    }
+
+    private static WritableArray addTransition(@Nullable WritableArray transitions, Fence fence, String transition) {
+        if (transitions == null) {
+            transitions = Arguments.createArray();
+        }
+        WritableMap map = Arguments.createMap();
+        map.putString("id", fence.id);
+        map.putString("transition", transition);
+        transitions.pushMap(map);
+        return transitions;
+    }
+
+    private boolean contains(Fence fence, double latitude, double longitude) {
+        if (latitude < fence.minLatitude || latitude > fence.maxLatitude
+                || longitude < fence.minLongitude || longitude > fence.maxLongitude) {
+            return false;
+        }
+
+        if (fence.polygon == null) {
+            Location.distanceBetween(fence.latitude, fence.longitude, latitude, longitude, mDistance);
+            return mDistance[0] <= fence.radius;
+        }
+
+        // Even-odd ray casting towards increasing longitude
+        double[] polygon = fence.polygon;
+        boolean inside = false;
+        for (int i = 0, j = polygon.length - 2; i < polygon.length; j = i, i += 2) {
+            double latitudeI = polygon[i];
+            double latitudeJ = polygon[j];
+            if ((latitudeI > latitude) != (latitudeJ > latitude)) {
+                double crossing = polygon[i + 1] + (latitude - latitudeI) * (polygon[j + 1] - polygon[i + 1]) / (latitudeJ - latitudeI);
+                if (longitude < crossing) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    private void index(Fence fence) {
+        long minLatitudeCell = cellIndex(fence.minLatitude);
+        long maxLatitudeCell = cellIndex(fence.maxLatitude);
+        long minLongitudeCell = cellIndex(fence.minLongitude);
+        long maxLongitudeCell = cellIndex(fence.maxLongitude);
+        if ((maxLatitudeCell - minLatitudeCell + 1) * (maxLongitudeCell - minLongitudeCell + 1) > MAX_CELLS) {
+            mLargeFences.add(fence);
+            return;
+        }
+
+        for (long latitudeCell = minLatitudeCell; latitudeCell <= maxLatitudeCell; latitudeCell++) {
+            for (long longitudeCell = minLongitudeCell; longitudeCell <= maxLongitudeCell; longitudeCell++) {
+                long key = cellKey(latitudeCell, longitudeCell);
+                List<Fence> cell = mCells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<>(2);
+                    mCells.put(key, cell);
+                }
+                cell.add(fence);
+            }
+        }
+    }
+
+    private void remove(String id) {
+        Fence fence = mFences.remove(id);
+        if (fence == null) {
+            return;
+        }
+        mInside.remove(id);
+        if (mLargeFences.remove(fence)) {
+            return;
+        }
+
+        for (long latitudeCell = cellIndex(fence.minLatitude); latitudeCell <= cellIndex(fence.maxLatitude); latitudeCell++) {
+            for (long longitudeCell = cellIndex(fence.minLongitude); longitudeCell <= cellIndex(fence.maxLongitude); longitudeCell++) {
+                long key = cellKey(latitudeCell, longitudeCell);
+                List<Fence> cell = mCells.get(key);
+                if (cell != null && cell.remove(fence) && cell.isEmpty()) {
+                    mCells.remove(key);
+                }
+            }
+        }
+    }
+
+    private static long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / CELL_SIZE);
+    }
+
+    private static long cellKey(long latitudeCell, long longitudeCell) {
+        return latitudeCell << 32 | (longitudeCell & 0xFFFFFFFFL);
+    }
+
+    @Nullable
+    private static Fence fromReactMap(ReadableMap map) {
+        if (!map.hasKey("id")) {
+            Log.w(TAG, "Ignoring geofence without id");
+            return null;
+        }
+        String id = map.getString("id");
+        long dwellTime = map.hasKey("dwellTime") ? (long) map.getDouble("dwellTime") : -1;
+
+        if (map.hasKey("polygon")) {
+            ReadableArray points = map.getArray("polygon");
+            if (points.size() < 6 || points.size() % 2 != 0) {
+                Log.w(TAG, "Ignoring geofence " + id + ", a polygon needs at least 3 points");
+                return null;
+            }
+            double[] polygon = new double[points.size()];
+            for (int i = 0; i < polygon.length; i++) {
+                polygon[i] = points.getDouble(i);
+            }
+            return new Fence(id, 0, 0, 0, polygon, dwellTime);
+        }
+
+        if (!map.hasKey("latitude") || !map.hasKey("longitude") || !map.hasKey("radius")) {
+            Log.w(TAG, "Ignoring geofence " + id + ", it needs either a polygon or a center and radius");
+            return null;
+        }
+        return new Fence(
+                id,
+                map.getDouble("latitude"),
+                map.getDouble("longitude"),
+                (float) map.getDouble("radius"),
+                null,
+                dwellTime);
+    }
+}
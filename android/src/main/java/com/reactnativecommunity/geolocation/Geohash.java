@@ -0,0 +1,68 @@
+package com.reactnativecommunity.geolocation;
+
+/**
+ * Geohash encoding of coordinates. A geohash of precision {@code n} names a cell of the
+ * latitude/longitude grid with {@code 5 * n} bits, interleaving longitude and latitude bits,
+ * and every prefix of a geohash names the cell containing it. Cells are about 5 km wide at
+ * precision 5, 150 m at precision 7 and 5 m at precision 9.
+ *
+ * Cells are computed as bits first, so comparing the cells of two locations does not allocate.
+ */
+public final class Geohash {
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    /**
+     * @param precision number of geohash characters, between 1 and {@link #MAX_PRECISION}
+     * @return the bits of the geohash cell containing the coordinates
+     */
+    public static long encodeCell(double latitude, double longitude, int precision) {
+        double minLatitude = -90;
+        double maxLatitude = 90;
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        long cell = 0;
+        int bits = precision * 5;
+        for (int i = 0; i < bits; i++) {
+            cell <<= 1;
+            if (i % 2 == 0) {
+                double middle = (minLongitude + maxLongitude) / 2;
+                if (longitude >= middle) {
+                    cell |= 1;
+                    minLongitude = middle;
+                } else {
+                    maxLongitude = middle;
+                }
+            } else {
+                double middle = (minLatitude + maxLatitude) / 2;
+                if (latitude >= middle) {
+                    cell |= 1;
+                    minLatitude = middle;
+                } else {
+                    maxLatitude = middle;
+                }
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * @return the geohash of a cell computed by {@link #encodeCell} with the same precision
+     */
+    public static String toString(long cell, int precision) {
+        char[] chars = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            chars[i] = BASE32[(int) (cell & 0x1f)];
+            cell >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        return toString(encodeCell(latitude, longitude, precision), precision);
+    }
+}
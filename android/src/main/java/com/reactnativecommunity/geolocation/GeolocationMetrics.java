@@ -0,0 +1,303 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.LocationManager;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide runtime metrics of the module, shared by both location managers and the
+ * {@link LocationService}: time to first fix per provider, {@code getCurrentPosition} latency,
+ * timeouts, fixes received and emitted, bridge events and the ones dropped, coalesced or batched
+ * by the {@link EmissionQueue}, fixes the {@link LocationPipeline} filtered or dropped, and how long the background service takes to start and stop.
+ *
+ * Everything is recorded with atomic counters, so recording never blocks the location path.
+ * Snapshots taken while fixes arrive may be off by the fixes recorded in between.
+ */
+public final class GeolocationMetrics {
+    private static final String[] PROVIDERS = {
+            LocationManager.GPS_PROVIDER,
+            LocationManager.NETWORK_PROVIDER,
+            LocationManager.FUSED_PROVIDER,
+            "other",
+    };
+    private static final int PROVIDER_OTHER = 3;
+
+    private static final GeolocationMetrics INSTANCE = new GeolocationMetrics();
+
+    private final AtomicLong mResetTime = new AtomicLong(SystemClock.elapsedRealtimeNanos());
+    private final AtomicLong mFixesReceived = new AtomicLong();
+    private final AtomicLong mFixesEmitted = new AtomicLong();
+    private final AtomicLong mEventsEmitted = new AtomicLong();
+    private final AtomicLong mEventsDropped = new AtomicLong();
+    private final AtomicLong mEventsCoalesced = new AtomicLong();
+    private final AtomicLong mEventsBatched = new AtomicLong();
+    private final AtomicLong mPipelineFiltered = new AtomicLong();
+    private final AtomicLong mPipelineDropped = new AtomicLong();
+    private final AtomicLong mTimeouts = new AtomicLong();
+    private final Histogram[] mTimeToFirstFix = new Histogram[PROVIDERS.length];
+    private final Histogram mCurrentPositionLatency = new Histogram();
+    private final Histogram mServiceStart = new Histogram();
+    private final Histogram mServiceStop = new Histogram();
+
+    // Start of the current observing session, 0 while not observing
+    private final AtomicLong mObservingStartTime = new AtomicLong();
+    // Providers that delivered a fix in the current observing session, one bit each
+    private final AtomicInteger mProvidersSeen = new AtomicInteger();
+    private final AtomicLong mServiceStartRequestTime = new AtomicLong();
+    private final AtomicLong mServiceStopRequestTime = new AtomicLong();
+
+    private GeolocationMetrics() {
+        for (int i = 0; i < mTimeToFirstFix.length; i++) {
+            mTimeToFirstFix[i] = new Histogram();
+        }
+    }
+
+    public static GeolocationMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Latency histogram with fixed buckets, in milliseconds.
+     */
+    private static class Histogram {
+        private static final long[] BOUNDS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, Long.MAX_VALUE};
+
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BOUNDS.length);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSum = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        void record(long millis) {
+            int bucket = 0;
+            while (millis > BOUNDS[bucket]) {
+                bucket++;
+            }
+            mBuckets.incrementAndGet(bucket);
+            mCount.incrementAndGet();
+            mSum.addAndGet(millis);
+            long max = mMax.get();
+            while (millis > max && !mMax.compareAndSet(max, millis)) {
+                max = mMax.get();
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < BOUNDS.length; i++) {
+                mBuckets.set(i, 0);
+            }
+            mCount.set(0);
+            mSum.set(0);
+            mMax.set(0);
+        }
+
+        /**
+         * Percentiles are reported as the upper bound of their bucket, or the maximum for the
+         * last bucket.
+         */
+        WritableMap toMap() {
+            long count = mCount.get();
+            long max = mMax.get();
+            WritableMap map = Arguments.createMap();
+            map.putDouble("count", count);
+            map.putDouble("mean", count > 0 ? (double) mSum.get() / count : 0);
+            map.putDouble("max", max);
+            map.putDouble("p50", percentile(count, 0.5, max));
+            map.putDouble("p90", percentile(count, 0.9, max));
+            map.putDouble("p99", percentile(count, 0.99, max));
+            return map;
+        }
+
+        private long percentile(long count, double percentile, long max) {
+            long rank = (long) Math.ceil(count * percentile);
+            long seen = 0;
+            for (int i = 0; i < BOUNDS.length; i++) {
+                seen += mBuckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Math.min(BOUNDS[i], max);
+                }
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Starts timing the first fix of every provider, if not observing already.
+     */
+    public void observingStarted() {
+        if (mObservingStartTime.compareAndSet(0, SystemClock.elapsedRealtimeNanos())) {
+            mProvidersSeen.set(0);
+        }
+    }
+
+    public void observingStopped() {
+        mObservingStartTime.set(0);
+    }
+
+    public void fixReceived(@Nullable String provider) {
+        mFixesReceived.incrementAndGet();
+
+        long startTime = mObservingStartTime.get();
+        if (startTime == 0) {
+            return;
+        }
+        int index = providerIndex(provider);
+        int seen = mProvidersSeen.get();
+        while ((seen & (1 << index)) == 0) {
+            if (mProvidersSeen.compareAndSet(seen, seen | 1 << index)) {
+                mTimeToFirstFix[index].record(millisSince(startTime));
+                return;
+            }
+            seen = mProvidersSeen.get();
+        }
+    }
+
+    public void fixEmitted() {
+        mFixesEmitted.incrementAndGet();
+    }
+
+    public void eventEmitted() {
+        mEventsEmitted.incrementAndGet();
+    }
+
+    public void eventDropped() {
+        mEventsDropped.incrementAndGet();
+    }
+
+    public void eventCoalesced() {
+        mEventsCoalesced.incrementAndGet();
+    }
+
+    /**
+     * @param events the events saved by merging positions into one batch
+     */
+    public void eventsBatched(int events) {
+        mEventsBatched.addAndGet(events);
+    }
+
+    public void pipelineFiltered() {
+        mPipelineFiltered.incrementAndGet();
+    }
+
+    public void pipelineDropped() {
+        mPipelineDropped.incrementAndGet();
+    }
+
+    public void serviceStartRequested() {
+        mServiceStartRequestTime.set(SystemClock.elapsedRealtimeNanos());
+    }
+
+    public void serviceStarted() {
+        long requestTime = mServiceStartRequestTime.getAndSet(0);
+        if (requestTime != 0) {
+            mServiceStart.record(millisSince(requestTime));
+        }
+    }
+
+    public void serviceStopRequested() {
+        mServiceStopRequestTime.set(SystemClock.elapsedRealtimeNanos());
+    }
+
+    public void serviceStopped() {
+        long requestTime = mServiceStopRequestTime.getAndSet(0);
+        if (requestTime != 0) {
+            mServiceStop.record(millisSince(requestTime));
+        }
+    }
+
+    /**
+     * Wraps the callbacks of a {@code getCurrentPosition} request to record its latency, or count
+     * it as timed out.
+     *
+     * @return the wrapped success and error callbacks
+     */
+    public Callback[] timeRequest(final Callback success, final Callback error) {
+        final long startTime = SystemClock.elapsedRealtimeNanos();
+        Callback timedSuccess = args -> {
+            mCurrentPositionLatency.record(millisSince(startTime));
+            success.invoke(args);
+        };
+        Callback timedError = args -> {
+            if (args.length > 0 && args[0] instanceof ReadableMap
+                    && ((ReadableMap) args[0]).hasKey("code")
+                    && ((ReadableMap) args[0]).getInt("code") == PositionError.TIMEOUT) {
+                mTimeouts.incrementAndGet();
+            }
+            error.invoke(args);
+        };
+        return new Callback[] {timedSuccess, timedError};
+    }
+
+    public WritableMap toMap() {
+        long uptime = millisSince(mResetTime.get());
+        long events = mEventsEmitted.get();
+
+        WritableMap timeToFirstFix = Arguments.createMap();
+        for (int i = 0; i < PROVIDERS.length; i++) {
+            timeToFirstFix.putMap(PROVIDERS[i], mTimeToFirstFix[i].toMap());
+        }
+
+        WritableMap map = Arguments.createMap();
+        map.putDouble("uptime", uptime);
+        map.putDouble("fixesReceived", mFixesReceived.get());
+        map.putDouble("fixesEmitted", mFixesEmitted.get());
+        map.putDouble("eventsEmitted", events);
+        map.putDouble("eventsPerSecond", uptime > 0 ? events * 1000.0 / uptime : 0);
+        map.putDouble("eventsDropped", mEventsDropped.get());
+        map.putDouble("eventsCoalesced", mEventsCoalesced.get());
+        map.putDouble("eventsBatched", mEventsBatched.get());
+        map.putDouble("pipelineFiltered", mPipelineFiltered.get());
+        map.putDouble("pipelineDropped", mPipelineDropped.get());
+        map.putDouble("timeouts", mTimeouts.get());
+        map.putMap("timeToFirstFix", timeToFirstFix);
+        map.putMap("currentPositionLatency", mCurrentPositionLatency.toMap());
+        map.putMap("serviceStart", mServiceStart.toMap());
+        map.putMap("serviceStop", mServiceStop.toMap());
+        return map;
+    }
+
+    /**
+     * Clears all counters and histograms. Pending timings, like an observing session or a
+     * service start, keep running.
+     */
+    public void reset() {
+        mResetTime.set(SystemClock.elapsedRealtimeNanos());
+        mFixesReceived.set(0);
+        mFixesEmitted.set(0);
+        mEventsEmitted.set(0);
+        mEventsDropped.set(0);
+        mEventsCoalesced.set(0);
+        mEventsBatched.set(0);
+        mPipelineFiltered.set(0);
+        mPipelineDropped.set(0);
+        mTimeouts.set(0);
+        for (Histogram histogram : mTimeToFirstFix) {
+            histogram.reset();
+        }
+        mCurrentPositionLatency.reset();
+        mServiceStart.reset();
+        mServiceStop.reset();
+    }
+
+    private static int providerIndex(@Nullable String provider) {
+        for (int i = 0; i < PROVIDER_OTHER; i++) {
+            if (PROVIDERS[i].equals(provider)) {
+                return i;
+            }
+        }
+        return PROVIDER_OTHER;
+    }
+
+    private static long millisSince(long elapsedRealtimeNanos) {
+        return (SystemClock.elapsedRealtimeNanos() - elapsedRealtimeNanos) / 1000000;
+    }
+}
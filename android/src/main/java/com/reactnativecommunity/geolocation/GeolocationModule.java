@@ -9,6 +9,11 @@ package com.reactnativecommunity.geolocation;
 
 import android.Manifest;
 import android.os.Build;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.JavaOnlyArray;
 import com.facebook.react.bridge.PromiseImpl;
@@ -16,26 +21,43 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
 import com.facebook.react.modules.permissions.PermissionsModule;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GoogleApiAvailability;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GeolocationModule extends ReactContextBaseJavaModule {
 
   public static final String NAME = "RNCGeolocation";
-  private BaseLocationManager mLocationManager;
+  private static final int DEFAULT_JOURNAL_READ_LIMIT = 1000;
+  private static final int JOURNAL_EXPORT_CHUNK = 1024;
+  // Created on first use, so loading the module starts no provider and no background service
+  private volatile @Nullable BaseLocationManager mLocationManager;
   private Configuration mConfiguration;
+  // Only a successful check is kept, Play services may still be installed or updated
+  private boolean mPlayServicesAvailable;
+  private @Nullable ExecutorService mFileExecutor;
 
   public GeolocationModule(ReactApplicationContext reactContext) {
     super(reactContext);
     mConfiguration = Configuration.getDefault();
-    mLocationManager = new AndroidLocationManager(reactContext, mConfiguration.enableBackgroundLocationUpdates);
   }
 
   @Override
@@ -48,27 +70,109 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
     onConfigurationChange(configuration);
   }
 
-  private void onConfigurationChange(Configuration config) {
-    ReactApplicationContext reactContext = mLocationManager.mReactContext;
-    if (Objects.equals(config.locationProvider, "android") && mLocationManager instanceof PlayServicesLocationManager
-            || config.enableBackgroundLocationUpdates != mConfiguration.enableBackgroundLocationUpdates) {
-      mLocationManager.stopService();
-      mLocationManager = new AndroidLocationManager(reactContext, config.enableBackgroundLocationUpdates);
-    } else if (Objects.equals(config.locationProvider, "playServices") && mLocationManager instanceof AndroidLocationManager
-            || config.enableBackgroundLocationUpdates != mConfiguration.enableBackgroundLocationUpdates) {
-      GoogleApiAvailability availability = new GoogleApiAvailability();
-      if (availability.isGooglePlayServicesAvailable(reactContext.getApplicationContext()) == ConnectionResult.SUCCESS) {
-        mLocationManager.stopService();
-        mLocationManager = new PlayServicesLocationManager(reactContext, config.enableBackgroundLocationUpdates);
+  private synchronized void onConfigurationChange(Configuration config) {
+    ReactApplicationContext reactContext = getReactApplicationContext();
+    LocationJournal.getInstance(reactContext).setEnabled(config.enableLocationJournal);
+    BaseLocationManager previousManager = mLocationManager;
+    if (previousManager == null) {
+      mConfiguration = config;
+      // Warm start is the one option asking for work before the first request
+      if (config.enableWarmStart) {
+        getLocationManager();
       }
+      return;
+    }
+
+    Looper looper = LocationThread.getLooper(config.enableLocationThread);
+    BaseLocationManager locationManager = previousManager;
+    if (Objects.equals(config.locationProvider, "android") && previousManager instanceof PlayServicesLocationManager
+            || config.enableBackgroundLocationUpdates != mConfiguration.enableBackgroundLocationUpdates
+            || config.enableLocationThread != mConfiguration.enableLocationThread && previousManager instanceof AndroidLocationManager) {
+      locationManager = new AndroidLocationManager(reactContext, config.enableBackgroundLocationUpdates, looper);
+    } else if (Objects.equals(config.locationProvider, "playServices") && previousManager instanceof AndroidLocationManager
+            || config.enableBackgroundLocationUpdates != mConfiguration.enableBackgroundLocationUpdates
+            || config.enableLocationThread != mConfiguration.enableLocationThread) {
+      if (isPlayServicesAvailable()) {
+        locationManager = new PlayServicesLocationManager(reactContext, config.enableBackgroundLocationUpdates, looper);
+      }
+    }
+    if (locationManager != previousManager) {
+      // The previous provider stops once the new one has started, so watches see no gap
+      previousManager.setWarmStart(false);
+      mLocationManager = locationManager;
+      locationManager.takeOver(previousManager, config.enableBackgroundLocationUpdates && mConfiguration.enableBackgroundLocationUpdates);
+    }
+    locationManager.setWarmStart(config.enableWarmStart);
+    locationManager.setPositionSmoothing(config.enablePositionSmoothing, config.includeRawCoordinates);
+    locationManager.setEventQueue(config.eventQueuePolicy, config.eventQueueSize);
+    // Stages keep state, such as the fixes held back by an average, so they are only rebuilt
+    // when they are configured differently
+    if (!isSamePipeline(config.pipeline, mConfiguration.pipeline)) {
+      locationManager.setPipeline(config.pipeline);
     }
     mConfiguration = config;
   }
 
+  private static boolean isSamePipeline(@Nullable ReadableArray stages, @Nullable ReadableArray previousStages) {
+    if (stages == null || previousStages == null) {
+      return stages == previousStages;
+    }
+    return stages.toArrayList().equals(previousStages.toArrayList());
+  }
+
+  /**
+   * Returns the location manager, creating it for the current configuration on first use.
+   * Creating it with background updates enabled starts the background service.
+   */
+  private synchronized BaseLocationManager getLocationManager() {
+    BaseLocationManager locationManager = mLocationManager;
+    if (locationManager != null) {
+      return locationManager;
+    }
+
+    Configuration config = mConfiguration;
+    Looper looper = LocationThread.getLooper(config.enableLocationThread);
+    if (Objects.equals(config.locationProvider, "playServices") && isPlayServicesAvailable()) {
+      locationManager = new PlayServicesLocationManager(getReactApplicationContext(), config.enableBackgroundLocationUpdates, looper);
+    } else {
+      locationManager = new AndroidLocationManager(getReactApplicationContext(), config.enableBackgroundLocationUpdates, looper);
+    }
+    locationManager.setWarmStart(config.enableWarmStart);
+    locationManager.setPositionSmoothing(config.enablePositionSmoothing, config.includeRawCoordinates);
+    locationManager.setEventQueue(config.eventQueuePolicy, config.eventQueueSize);
+    locationManager.setPipeline(config.pipeline);
+    mLocationManager = locationManager;
+    ProviderState.getInstance(getReactApplicationContext()).setListener(this::onProviderStateChanged);
+    return locationManager;
+  }
+
+  /**
+   * Emits provider availability changes as {@code geolocationProviderChange} events.
+   */
+  private void onProviderStateChanged(ProviderState state) {
+    emit("geolocationProviderChange", state.toMap());
+  }
+
+  private boolean isPlayServicesAvailable() {
+    if (!mPlayServicesAvailable) {
+      mPlayServicesAvailable = GoogleApiAvailability.getInstance().isGooglePlayServicesAvailable(getReactApplicationContext())
+              == ConnectionResult.SUCCESS;
+    }
+    return mPlayServicesAvailable;
+  }
+
   /**
    * Requests location permission.
    */
-  public void requestAuthorization(final Callback success, final Callback error) {
+  public void requestAuthorization(final Callback onAuthorized, final Callback error) {
+    // Warm start waits for the permission, retry it once granted
+    final Callback success = args -> {
+      if (mConfiguration.enableWarmStart) {
+        getLocationManager().setWarmStart(true);
+      }
+      onAuthorized.invoke(args);
+    };
+
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
       final PermissionsModule perms = getReactApplicationContext().getNativeModule(PermissionsModule.class);
       ArrayList<String> permissions = new ArrayList<>();
@@ -77,6 +181,7 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
       ReadableArray permissionsArray = JavaOnlyArray.from(permissions);
 
       final Callback onPermissionGranted = args -> {
+        ProviderState.getInstance(getReactApplicationContext()).onPermissionResult();
         WritableNativeMap result = (WritableNativeMap) args[0];
         if (result.getString(Manifest.permission.ACCESS_COARSE_LOCATION).equals("granted")) {
           success.invoke();
@@ -120,31 +225,40 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
       final Callback error) {
     try {
       if (mConfiguration.skipPermissionRequests) {
-        mLocationManager.getCurrentLocationData(options, success, error);
+        getTimedCurrentLocationData(options, success, error);
         return;
       }
 
-      requestAuthorization(args -> mLocationManager.getCurrentLocationData(options, success, error), error);
+      requestAuthorization(args -> getTimedCurrentLocationData(options, success, error), error);
     } catch (SecurityException e) {
       emitLocationPermissionMissing(e);
     }
   }
 
+  /**
+   * Requests the current location, recording its latency once permissions are granted.
+   */
+  private void getTimedCurrentLocationData(ReadableMap options, Callback success, Callback error) {
+    Callback[] callbacks = GeolocationMetrics.getInstance().timeRequest(success, error);
+    getLocationManager().getCurrentLocationData(options, callbacks[0], callbacks[1]);
+  }
+
 
   /**
    * Start listening for location updates. These will be emitted via the
    * {@link RCTDeviceEventEmitter} as {@code geolocationDidChange} events.
    *
-   * @param options map containing optional arguments: highAccuracy (boolean)
+   * @param options map containing optional arguments: highAccuracy (boolean), watchId (number).
+   *        Each watchId is observed with its own options.
    */
   public void startObserving(ReadableMap options) {
     try {
       if (mConfiguration.skipPermissionRequests) {
-        mLocationManager.startObserving(options);
+        getLocationManager().startObserving(options);
         return;
       }
 
-      requestAuthorization(args -> mLocationManager.startObserving(options), args -> {
+      requestAuthorization(args -> getLocationManager().startObserving(options), args -> {
         emitLocationPermissionMissing(new SecurityException(Arrays.toString(args)));
       });
     } catch (SecurityException e) {
@@ -152,6 +266,47 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
     }
   }
 
+  /**
+   * Request a position that is refined until it is accurate enough. Every more accurate fix is
+   * emitted via the {@link RCTDeviceEventEmitter} as a {@code geolocationRefinement} event
+   * carrying the refinement id, the last one flagged as {@code final}.
+   *
+   * @param options map containing optional arguments: desiredAccuracy (meters), timeout (millis)
+   *        as the time budget, maximumAge (millis) for the first cached position, and the usual
+   *        provider options
+   */
+  public void startRefinement(final int id, final ReadableMap options) {
+    try {
+      if (mConfiguration.skipPermissionRequests) {
+        getLocationManager().startRefinement(id, options);
+        return;
+      }
+
+      requestAuthorization(args -> getLocationManager().startRefinement(id, options),
+              args -> emit("geolocationRefinement", BaseLocationManager.refinementErrorToMap(id, (WritableMap) args[0])));
+    } catch (SecurityException e) {
+      emitLocationPermissionMissing(e);
+    }
+  }
+
+  public void stopRefinement(int id) {
+    BaseLocationManager locationManager = mLocationManager;
+    if (locationManager != null) {
+      locationManager.stopRefinement(id);
+    }
+  }
+
+  /**
+   * Stop delivering location updates to a single watch started with {@link #startObserving}.
+   * Location updates stop when the last watch is cleared.
+   */
+  public void clearWatch(int watchId) {
+    BaseLocationManager locationManager = mLocationManager;
+    if (locationManager != null) {
+      locationManager.clearWatch(watchId);
+    }
+  }
+
   /**
    * Stop listening for location updates.
    *
@@ -159,7 +314,222 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
    * be canceled by just one call to this one.
    */
   public void stopObserving() {
-    mLocationManager.stopObserving();
+    BaseLocationManager locationManager = mLocationManager;
+    if (locationManager != null) {
+      locationManager.stopObserving();
+    }
+  }
+
+  /**
+   * Returns the most recent location the module has seen, without querying the provider. Meant
+   * to be called synchronously from JS, so it only reads from memory.
+   */
+  @Nullable
+  public WritableMap getLastKnownPosition() {
+    BaseLocationManager locationManager = mLocationManager;
+    return locationManager != null ? locationManager.getLastKnownPosition() : null;
+  }
+
+  /**
+   * Start monitoring geofences, or replace the fences with the same ids. Transitions are
+   * emitted via the {@link RCTDeviceEventEmitter} as {@code geolocationGeofenceTransition}
+   * events.
+   *
+   * @param fences array of circles (id, latitude, longitude, radius) and polygons (id, polygon
+   *        as alternating latitudes and longitudes), each with an optional dwellTime (millis)
+   * @param options location options to request while there are geofences
+   */
+  public void addGeofences(final ReadableArray fences, final ReadableMap options) {
+    try {
+      if (mConfiguration.skipPermissionRequests) {
+        getLocationManager().addGeofences(fences, options);
+        return;
+      }
+
+      requestAuthorization(args -> getLocationManager().addGeofences(fences, options), args -> {
+        emitLocationPermissionMissing(new SecurityException(Arrays.toString(args)));
+      });
+    } catch (SecurityException e) {
+      emitLocationPermissionMissing(e);
+    }
+  }
+
+  public void removeGeofences(ReadableArray ids) {
+    BaseLocationManager locationManager = mLocationManager;
+    if (locationManager != null) {
+      locationManager.removeGeofences(ids);
+    }
+  }
+
+  public void clearGeofences() {
+    BaseLocationManager locationManager = mLocationManager;
+    if (locationManager != null) {
+      locationManager.clearGeofences();
+    }
+  }
+
+  /**
+   * Returns the runtime metrics of the module: time to first fix per provider,
+   * {@code getCurrentPosition} latency and timeouts, fixes received and emitted, the bridge event
+   * rate and the background service start and stop durations.
+   */
+  public WritableMap getMetrics() {
+    return GeolocationMetrics.getInstance().toMap();
+  }
+
+  public void resetMetrics() {
+    GeolocationMetrics.getInstance().reset();
+  }
+
+  /**
+   * Read the locations recorded by the background location service, oldest first. The result
+   * holds the {@code positions} and the {@code cursor} to pass to the next read.
+   *
+   * @param options map containing optional arguments: cursor (number), limit (number) and
+   *        compact (boolean)
+   */
+  public void readLocationJournal(
+      final ReadableMap options,
+      final Callback success,
+      final Callback error) {
+    getFileExecutor().execute(() -> readJournal(options, success, error));
+  }
+
+  private void readJournal(ReadableMap options, Callback success, Callback error) {
+    long cursor = options.hasKey("cursor") ? (long) options.getDouble("cursor") : 0;
+    int limit = options.hasKey("limit") ? options.getInt("limit") : DEFAULT_JOURNAL_READ_LIMIT;
+    boolean compact = options.hasKey("compact") && options.getBoolean("compact");
+
+    WritableArray positions = Arguments.createArray();
+    long next;
+    try {
+      next = LocationJournal.getInstance(getReactApplicationContext()).read(cursor, limit,
+              (sequence, latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked) -> {
+        if (compact) {
+          positions.pushArray(BaseLocationManager.positionToArray(latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked));
+        } else {
+          positions.pushMap(BaseLocationManager.positionToMap(latitude, longitude, altitude, accuracy, heading, speed, timestamp, null, mocked));
+        }
+        return true;
+      });
+    } catch (IOException e) {
+      error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Failed to read the location journal: " + e.getMessage()));
+      return;
+    }
+
+    WritableMap result = Arguments.createMap();
+    result.putArray("positions", positions);
+    result.putDouble("cursor", next);
+    success.invoke(result);
+  }
+
+  /**
+   * Export the locations recorded by the location journal to a file, or convert a
+   * track previously exported in the binary {@code track} format. Positions are streamed to the
+   * file, and the journal is read in chunks so recording is not held up by long exports. The
+   * result holds the {@code path} of the file, the {@code count} of exported positions and, for
+   * journal exports, the {@code cursor} to continue from.
+   *
+   * @param options map containing optional arguments: format ("geojson", "gpx" or "track"),
+   *        cursor (number), input (path of a binary track) and path (output file in the app's
+   *        files or cache directory)
+   */
+  public void exportLocationTrack(
+      final ReadableMap options,
+      final Callback success,
+      final Callback error) {
+    getFileExecutor().execute(() -> exportTrack(options, success, error));
+  }
+
+  private void exportTrack(ReadableMap options, Callback success, Callback error) {
+    String format = options.hasKey("format") ? options.getString("format") : TrackWriter.FORMAT_GEOJSON;
+    String input = options.hasKey("input") ? options.getString("input") : null;
+    long cursor = options.hasKey("cursor") ? (long) options.getDouble("cursor") : 0;
+    File output = options.hasKey("path")
+            ? new File(options.getString("path"))
+            : new File(getReactApplicationContext().getCacheDir(),
+                    "location-track-" + System.currentTimeMillis() + "." + TrackWriter.getExtension(format));
+
+    long count;
+    try {
+      if (!isInAppStorage(output)) {
+        error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "The export path must be in the app's files or cache directory: " + output));
+        return;
+      }
+
+      OutputStream stream = new BufferedOutputStream(new FileOutputStream(output));
+      TrackWriter writer = TrackWriter.create(format, stream);
+      if (writer == null) {
+        stream.close();
+        output.delete();
+        error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Unsupported track format: " + format));
+        return;
+      }
+
+      try {
+        if (input != null) {
+          try (InputStream track = new BufferedInputStream(new FileInputStream(input))) {
+            TrackDecoder decoder = new TrackDecoder(track);
+            while (decoder.next(writer)) {
+              writer.checkError();
+            }
+          }
+        } else {
+          LocationJournal journal = LocationJournal.getInstance(getReactApplicationContext());
+          long exported;
+          do {
+            exported = writer.getCount();
+            cursor = journal.read(cursor, JOURNAL_EXPORT_CHUNK, writer);
+            writer.checkError();
+          } while (writer.getCount() - exported == JOURNAL_EXPORT_CHUNK);
+        }
+        count = writer.getCount();
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      output.delete();
+      error.invoke(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Failed to export the location track: " + e.getMessage()));
+      return;
+    }
+
+    WritableMap result = Arguments.createMap();
+    result.putString("path", output.getAbsolutePath());
+    result.putDouble("count", count);
+    if (input == null) {
+      result.putDouble("cursor", cursor);
+    }
+    success.invoke(result);
+  }
+
+  /**
+   * @return whether the file is in the app's own files or cache directory, after resolving
+   *         {@code ..} and links
+   */
+  private boolean isInAppStorage(File file) throws IOException {
+    ReactApplicationContext reactContext = getReactApplicationContext();
+    String path = file.getCanonicalPath();
+    for (File directory : new File[] {reactContext.getFilesDir(), reactContext.getCacheDir()}) {
+      if (path.startsWith(directory.getCanonicalPath() + File.separator)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the thread journal reads and track exports run on, so they do not block the
+   * calling thread with file I/O.
+   */
+  private synchronized ExecutorService getFileExecutor() {
+    if (mFileExecutor == null) {
+      mFileExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "RNCGeolocationFiles");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return mFileExecutor;
   }
 
   /**
@@ -171,22 +541,51 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
                     "Add the following line to your app's AndroidManifest.xml:\n" +
                     "<uses-permission android:name=\"android.permission.ACCESS_FINE_LOCATION\" />\n" +
                     e.getMessage();
-    mLocationManager.emitError(PositionError.PERMISSION_DENIED, message);
+    emit("geolocationError", PositionError.buildError(PositionError.PERMISSION_DENIED, message));
+  }
+
+  /**
+   * Emits through the location manager if there is one, to stay in order with the events it
+   * queued, or straight to JS, as reporting an error is no reason to create it.
+   */
+  private void emit(String eventName, Object data) {
+    BaseLocationManager locationManager = mLocationManager;
+    if (locationManager != null) {
+      locationManager.emit(eventName, data);
+    } else {
+      getReactApplicationContext().getJSModule(RCTDeviceEventEmitter.class).emit(eventName, data);
+    }
   }
 
   private static class Configuration {
     String locationProvider;
     Boolean skipPermissionRequests;
     Boolean enableBackgroundLocationUpdates;
+    boolean enableLocationJournal;
+    boolean enablePositionSmoothing;
+    boolean includeRawCoordinates;
+    boolean enableLocationThread;
+    boolean enableWarmStart;
+    String eventQueuePolicy;
+    int eventQueueSize;
+    @Nullable ReadableArray pipeline;
 
-    private Configuration(String locationProvider, boolean skipPermissionRequests, boolean enableBackgroundLocationUpdates) {
+    private Configuration(String locationProvider, boolean skipPermissionRequests, boolean enableBackgroundLocationUpdates, boolean enableLocationJournal, boolean enablePositionSmoothing, boolean includeRawCoordinates, boolean enableLocationThread, boolean enableWarmStart, String eventQueuePolicy, int eventQueueSize, @Nullable ReadableArray pipeline) {
       this.locationProvider = locationProvider;
       this.skipPermissionRequests = skipPermissionRequests;
       this.enableBackgroundLocationUpdates = enableBackgroundLocationUpdates;
+      this.enableLocationJournal = enableLocationJournal;
+      this.enablePositionSmoothing = enablePositionSmoothing;
+      this.includeRawCoordinates = includeRawCoordinates;
+      this.enableLocationThread = enableLocationThread;
+      this.enableWarmStart = enableWarmStart;
+      this.eventQueuePolicy = eventQueuePolicy;
+      this.eventQueueSize = eventQueueSize;
+      this.pipeline = pipeline;
     }
 
     protected static Configuration getDefault() {
-      return new Configuration("auto", false, false);
+      return new Configuration("auto", false, false, false, false, false, false, false, EmissionQueue.POLICY_NONE, EmissionQueue.DEFAULT_CAPACITY, null);
     }
 
     protected static Configuration fromReactMap(ReadableMap map) {
@@ -195,7 +594,17 @@ public class GeolocationModule extends ReactContextBaseJavaModule {
       boolean skipPermissionRequests =
               map.hasKey("skipPermissionRequests") ? map.getBoolean("skipPermissionRequests") : false;
       boolean enableBackgroundLocationUpdates = map.hasKey("enableBackgroundLocationUpdates") ? map.getBoolean("enableBackgroundLocationUpdates") : false;
-      return new Configuration(locationProvider, skipPermissionRequests, enableBackgroundLocationUpdates);
+      boolean enableLocationJournal = map.hasKey("enableLocationJournal") && map.getBoolean("enableLocationJournal");
+      boolean enablePositionSmoothing = map.hasKey("enablePositionSmoothing") && map.getBoolean("enablePositionSmoothing");
+      boolean includeRawCoordinates = map.hasKey("includeRawCoordinates") && map.getBoolean("includeRawCoordinates");
+      boolean enableLocationThread = map.hasKey("enableLocationThread") && map.getBoolean("enableLocationThread");
+      boolean enableWarmStart = map.hasKey("enableWarmStart") && map.getBoolean("enableWarmStart");
+      String eventQueuePolicy =
+              map.hasKey("eventQueuePolicy") ? map.getString("eventQueuePolicy") : EmissionQueue.POLICY_NONE;
+      int eventQueueSize =
+              map.hasKey("eventQueueSize") ? map.getInt("eventQueueSize") : EmissionQueue.DEFAULT_CAPACITY;
+      ReadableArray pipeline = map.hasKey("pipeline") ? map.getArray("pipeline") : null;
+      return new Configuration(locationProvider, skipPermissionRequests, enableBackgroundLocationUpdates, enableLocationJournal, enablePositionSmoothing, includeRawCoordinates, enableLocationThread, enableWarmStart, eventQueuePolicy, eventQueueSize, pipeline);
     }
   }
 }
@@ -0,0 +1,105 @@
+package com.reactnativecommunity.geolocation;
+
+/**
+ * Constant-velocity Kalman filter for observed positions. Each location is weighted by its
+ * reported accuracy, so precise fixes move the estimate more than imprecise ones, and the
+ * jitter of fixes received while moving slowly or standing still is smoothed out.
+ *
+ * North and east are filtered independently with a position and velocity each. Since both
+ * axes see the same time steps and measurement noise, they share one covariance matrix. The
+ * position is kept in degrees and the velocity in meters per second.
+ */
+public class KalmanFilter {
+    private static final double METERS_PER_DEGREE = 111319.49;
+    /**
+     * Standard deviation of the acceleration assumed between fixes, in m/s^2.
+     */
+    private static final double ACCELERATION = 2;
+    private static final double PROCESS_NOISE = ACCELERATION * ACCELERATION;
+    /**
+     * Fixes further apart than this restart the filter instead of extrapolating the velocity.
+     */
+    private static final long MAX_GAP_NANOS = 60L * 1000000000L;
+    private static final float MIN_ACCURACY = 1;
+
+    private boolean mInitialized;
+    private long mElapsedRealtimeNanos;
+    private double mLatitude;
+    private double mLongitude;
+    private double mVelocityNorth;
+    private double mVelocityEast;
+    // Covariance of position (m^2), position and velocity, and velocity ((m/s)^2)
+    private double mPositionVariance;
+    private double mCovariance;
+    private double mVelocityVariance;
+
+    /**
+     * Adds a fix and writes the filtered latitude, longitude and accuracy to {@code result}.
+     */
+    public synchronized void filter(
+            double latitude,
+            double longitude,
+            float accuracy,
+            long elapsedRealtimeNanos,
+            double[] result) {
+        double measurementVariance = Math.max(accuracy, MIN_ACCURACY);
+        measurementVariance *= measurementVariance;
+        long gap = elapsedRealtimeNanos - mElapsedRealtimeNanos;
+
+        if (!mInitialized || gap > MAX_GAP_NANOS) {
+            mInitialized = true;
+            mElapsedRealtimeNanos = elapsedRealtimeNanos;
+            mLatitude = latitude;
+            mLongitude = longitude;
+            mVelocityNorth = 0;
+            mVelocityEast = 0;
+            mPositionVariance = measurementVariance;
+            mCovariance = 0;
+            mVelocityVariance = PROCESS_NOISE;
+        } else {
+            double metersPerDegreeEast = METERS_PER_DEGREE * Math.cos(Math.toRadians(mLatitude));
+
+            // Predict, fixes arriving out of order are only used as a measurement
+            if (gap > 0) {
+                double dt = gap / 1e9;
+                mLatitude += mVelocityNorth * dt / METERS_PER_DEGREE;
+                mLongitude += mVelocityEast * dt / metersPerDegreeEast;
+                mPositionVariance += dt * (2 * mCovariance + dt * mVelocityVariance) + PROCESS_NOISE * dt * dt * dt * dt / 4;
+                mCovariance += dt * mVelocityVariance + PROCESS_NOISE * dt * dt * dt / 2;
+                mVelocityVariance += PROCESS_NOISE * dt * dt;
+                mElapsedRealtimeNanos = elapsedRealtimeNanos;
+            }
+
+            // Update
+            double positionGain = mPositionVariance / (mPositionVariance + measurementVariance);
+            double velocityGain = mCovariance / (mPositionVariance + measurementVariance);
+            double innovationNorth = (latitude - mLatitude) * METERS_PER_DEGREE;
+            // The short way round, for tracks crossing the antimeridian
+            double innovationEast = wrapLongitude(longitude - mLongitude) * metersPerDegreeEast;
+            mLatitude += positionGain * innovationNorth / METERS_PER_DEGREE;
+            mLongitude += positionGain * innovationEast / metersPerDegreeEast;
+            mVelocityNorth += velocityGain * innovationNorth;
+            mVelocityEast += velocityGain * innovationEast;
+            mVelocityVariance -= velocityGain * mCovariance;
+            mCovariance -= positionGain * mCovariance;
+            mPositionVariance -= positionGain * mPositionVariance;
+            mLongitude = wrapLongitude(mLongitude);
+        }
+
+        result[0] = mLatitude;
+        result[1] = mLongitude;
+        result[2] = Math.sqrt(mPositionVariance);
+    }
+
+    /**
+     * @return the longitude, or difference of longitudes, in [-180, 180)
+     */
+    private static double wrapLongitude(double longitude) {
+        double wrapped = (longitude + 180) % 360;
+        return (wrapped < 0 ? wrapped + 360 : wrapped) - 180;
+    }
+
+    public synchronized void reset() {
+        mInitialized = false;
+    }
+}
@@ -0,0 +1,145 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Keeps the most recent location seen by the module for every provider and accuracy tier, so
+ * requests that accept a cached position can be answered without asking the system.
+ *
+ * Ages are measured with {@link SystemClock#elapsedRealtimeNanos()}, which unlike the location
+ * timestamp is not affected by wall clock changes.
+ */
+public class LastLocationCache {
+    private static final int PROVIDER_GPS = 0;
+    private static final int PROVIDER_NETWORK = 1;
+    private static final int PROVIDER_FUSED = 2;
+    private static final int PROVIDER_OTHER = 3;
+    private static final int PROVIDER_COUNT = 4;
+
+    /**
+     * Tiers are ordered from the most to the least accurate.
+     */
+    private static final int TIER_FINE = 0;
+    private static final int TIER_MEDIUM = 1;
+    private static final int TIER_COARSE = 2;
+    private static final int TIER_COUNT = 3;
+    private static final float FINE_ACCURACY = 20;
+
+    private final Location[][] mLocations = new Location[PROVIDER_COUNT][TIER_COUNT];
+
+    public synchronized void put(@Nullable Location location) {
+        if (location == null) {
+            return;
+        }
+
+        int provider = providerIndex(location.getProvider());
+        int tier = tierIndex(location);
+        Location current = mLocations[provider][tier];
+        if (current == null || current.getElapsedRealtimeNanos() <= location.getElapsedRealtimeNanos()) {
+            mLocations[provider][tier] = location;
+        }
+    }
+
+    /**
+     * Returns the best cached location that is not older than {@code maximumAge}, weighing age
+     * against accuracy with {@link LocationQuality#isBetterLocation}, so a fresh coarse fix wins
+     * over a precise one taken long before. High accuracy requests only accept locations within
+     * {@link LocationOptions#RCT_DEFAULT_LOCATION_ACCURACY} meters.
+     */
+    @Nullable
+    public synchronized Location get(double maximumAge, boolean highAccuracy) {
+        int lastTier = highAccuracy ? TIER_MEDIUM : TIER_COARSE;
+        long now = SystemClock.elapsedRealtimeNanos();
+        Location best = null;
+        for (int tier = TIER_FINE; tier <= lastTier; tier++) {
+            for (int provider = 0; provider < PROVIDER_COUNT; provider++) {
+                Location location = mLocations[provider][tier];
+                if (location == null || getAge(location, now) >= maximumAge) {
+                    continue;
+                }
+                if (LocationQuality.isBetterLocation(location, best)) {
+                    best = location;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the most recent cached location, whatever its accuracy
+     */
+    @Nullable
+    public synchronized Location getLatest() {
+        Location latest = null;
+        for (int provider = 0; provider < PROVIDER_COUNT; provider++) {
+            for (int tier = 0; tier < TIER_COUNT; tier++) {
+                Location location = mLocations[provider][tier];
+                if (location != null && (latest == null || location.getElapsedRealtimeNanos() > latest.getElapsedRealtimeNanos())) {
+                    latest = location;
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Adds every location cached by another cache.
+     */
+    public synchronized void putAll(LastLocationCache other) {
+        synchronized (other) {
+            for (int provider = 0; provider < PROVIDER_COUNT; provider++) {
+                for (int tier = 0; tier < TIER_COUNT; tier++) {
+                    put(other.mLocations[provider][tier]);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (int provider = 0; provider < PROVIDER_COUNT; provider++) {
+            for (int tier = 0; tier < TIER_COUNT; tier++) {
+                mLocations[provider][tier] = null;
+            }
+        }
+    }
+
+    /**
+     * @return the age of the location in milliseconds
+     */
+    public static long getAge(Location location) {
+        return getAge(location, SystemClock.elapsedRealtimeNanos());
+    }
+
+    private static long getAge(Location location, long now) {
+        return (now - location.getElapsedRealtimeNanos()) / 1000000;
+    }
+
+    private static int providerIndex(@Nullable String provider) {
+        if (LocationManager.GPS_PROVIDER.equals(provider)) {
+            return PROVIDER_GPS;
+        } else if (LocationManager.NETWORK_PROVIDER.equals(provider)) {
+            return PROVIDER_NETWORK;
+        } else if (LocationManager.FUSED_PROVIDER.equals(provider)) {
+            return PROVIDER_FUSED;
+        }
+        return PROVIDER_OTHER;
+    }
+
+    private static int tierIndex(Location location) {
+        if (!location.hasAccuracy()) {
+            return TIER_COARSE;
+        }
+
+        float accuracy = location.getAccuracy();
+        if (accuracy <= FINE_ACCURACY) {
+            return TIER_FINE;
+        } else if (accuracy <= LocationOptions.RCT_DEFAULT_LOCATION_ACCURACY) {
+            return TIER_MEDIUM;
+        }
+        return TIER_COARSE;
+    }
+}
@@ -0,0 +1,97 @@
+package com.reactnativecommunity.geolocation;
+
+import android.os.Handler;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+
+/**
+ * Collects observed locations and delivers them to JS as a single
+ * {@code geolocationDidChangeBatch} event once the batch is full or its oldest
+ * entry is older than the configured age. The locations themselves stay in the
+ * {@link LocationRingBuffer} until the batch is emitted.
+ */
+public class LocationBatcher {
+    private final BaseLocationManager mEventEmitter;
+    private final Handler mHandler;
+    private final LocationRingBuffer mBuffer;
+    private long mFirstSequence;
+    private int mCount;
+    private int mBatchSize;
+    private long mBatchMaxAge = -1;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public LocationBatcher(BaseLocationManager eventEmitter, Handler handler, LocationRingBuffer buffer) {
+        mEventEmitter = eventEmitter;
+        mHandler = handler;
+        mBuffer = buffer;
+    }
+
+    public synchronized boolean isEnabled() {
+        return mBatchSize > 1;
+    }
+
+    /**
+     * @param batchSize maximum number of locations per event, values lower than 2 disable batching
+     * @param batchMaxAge maximum time (millis) a location may wait in the batch, -1 for no limit
+     */
+    public void configure(int batchSize, long batchMaxAge) {
+        flush();
+        synchronized (this) {
+            mBatchSize = batchSize;
+            mBatchMaxAge = batchMaxAge;
+            mBuffer.ensureCapacity(batchSize);
+        }
+    }
+
+    /**
+     * @param sequence sequence number of a location written to the ring buffer
+     */
+    public void add(long sequence) {
+        boolean isFull;
+        synchronized (this) {
+            if (mCount == 0) {
+                mFirstSequence = sequence;
+            }
+            mCount++;
+            isFull = mCount >= mBatchSize || mCount >= mBuffer.capacity();
+            if (!isFull && mCount == 1 && mBatchMaxAge >= 0) {
+                mHandler.postDelayed(mFlushRunnable, mBatchMaxAge);
+            }
+        }
+
+        if (isFull) {
+            flush();
+        }
+    }
+
+    /**
+     * Emits all pending locations, if any.
+     */
+    public void flush() {
+        WritableArray batch;
+        synchronized (this) {
+            mHandler.removeCallbacks(mFlushRunnable);
+            if (mCount == 0) {
+                return;
+            }
+
+            batch = Arguments.createArray();
+            for (long sequence = mFirstSequence; sequence < mFirstSequence + mCount; sequence++) {
+                // Entries may have been overwritten if locations arrived faster than we flushed
+                if (mBuffer.contains(sequence)) {
+                    mEventEmitter.pushEncoded(batch, sequence);
+                }
+            }
+            mCount = 0;
+        }
+
+        mEventEmitter.emit("geolocationDidChangeBatch", batch);
+    }
+}
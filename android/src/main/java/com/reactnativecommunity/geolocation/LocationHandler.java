@@ -8,6 +8,11 @@ public interface LocationHandler {
     void startLocationUpdates(LocationOptions options);
 
     void stopLocationUpdates();
+
+    /**
+     * Stops location updates and drops pending single requests without answering them.
+     */
+    void release();
 }
 
 
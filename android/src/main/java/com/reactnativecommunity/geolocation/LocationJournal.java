@@ -0,0 +1,369 @@
+package com.reactnativecommunity.geolocation;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only on-device store of the locations the module receives, so background tracks
+ * survive a paused or dead JS context. Locations are written on a thread of the journal's own
+ * through {@link #record}, so the location thread never waits for the file.
+ *
+ * Locations are written as delta-encoded records in the {@link TrackEncoder} format into
+ * memory-mapped segment files, so a position usually takes around 20 bytes. Every record is
+ * framed by its length and a checksum over its sequence number and content; when a segment is
+ * reopened the first record that is cut short or fails its checksum marks the end of the data,
+ * which drops a record that was only partially written when the process died. Deltas start over
+ * in every segment, so each segment can be read and deleted on its own. Full segments are rotated
+ * and only the most recent {@link #MAX_SEGMENTS} are kept.
+ *
+ * Records are addressed by sequence number, which also serves as the cursor for reading them
+ * back with {@link #read}. Since records vary in size, a read scans its segment from the start,
+ * or from where the previous read stopped.
+ */
+public class LocationJournal {
+    private static final String TAG = "LocationJournal";
+    private static final String DIRECTORY = "RNCGeolocation/journal";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private static final int MAGIC = 0x524e4a32; // "RNJ2"
+    private static final int HEADER_SIZE = 16;
+    // Length byte in front of the record, checksum behind it
+    private static final int FRAME_SIZE = 1 + 4;
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final int MAX_SEGMENTS = 16;
+
+    private static @Nullable LocationJournal sInstance;
+
+    private final File mDirectory;
+    private @Nullable ExecutorService mWriter;
+    private final CRC32 mCrc = new CRC32();
+    private final ByteBuffer mSequence = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] mRecord = new byte[TrackEncoder.MAX_RECORD_SIZE];
+    private final TrackEncoder mEncoder = new TrackEncoder();
+    private volatile boolean mEnabled;
+    private boolean mOpened;
+    private @Nullable MappedByteBuffer mSegment;
+    private long mSegmentFirstSequence;
+    private int mSegmentOffset;
+    private long mNextSequence;
+    // Where the last read stopped, so sequential reads don't rescan their segment
+    private @Nullable TrackDecoder mReadDecoder;
+    private long mReadSegment;
+    private long mReadSequence;
+    private int mReadOffset;
+
+    /**
+     * Receives the records read from the journal.
+     */
+    public interface Visitor {
+        /**
+         * @return false to stop reading
+         */
+        boolean visit(
+                long sequence,
+                double latitude,
+                double longitude,
+                double altitude,
+                float accuracy,
+                float heading,
+                float speed,
+                long timestamp,
+                boolean mocked);
+    }
+
+    LocationJournal(File directory) {
+        mDirectory = directory;
+    }
+
+    public static synchronized LocationJournal getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new LocationJournal(new File(context.getApplicationContext().getNoBackupFilesDir(), DIRECTORY));
+        }
+        return sInstance;
+    }
+
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Appends a location on the journal's writer thread, if the journal is enabled. Locations
+     * are written in the order they are recorded and none are dropped.
+     */
+    public void record(final Location location) {
+        if (!mEnabled) {
+            return;
+        }
+        getWriter().execute(() -> append(location));
+    }
+
+    private synchronized ExecutorService getWriter() {
+        if (mWriter == null) {
+            mWriter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "RNCGeolocationJournal");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return mWriter;
+    }
+
+    /**
+     * Appends a location right away, if the journal is enabled.
+     */
+    public synchronized void append(Location location) {
+        if (!mEnabled) {
+            return;
+        }
+
+        try {
+            open();
+            if (mSegment == null || mSegmentOffset + FRAME_SIZE + TrackEncoder.MAX_RECORD_SIZE > SEGMENT_SIZE) {
+                rotate();
+            }
+
+            boolean mocked = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                    && location.isFromMockProvider();
+            int length = mEncoder.encode(
+                    mRecord,
+                    location.getLatitude(),
+                    location.getLongitude(),
+                    location.getAltitude(),
+                    location.getAccuracy(),
+                    location.getBearing(),
+                    location.getSpeed(),
+                    location.getTime(),
+                    mocked);
+
+            mSegment.position(mSegmentOffset);
+            mSegment.put((byte) length);
+            mSegment.put(mRecord, 0, length);
+            mSegment.putInt(checksum(mNextSequence, length));
+            mSegmentOffset += FRAME_SIZE + length;
+            mNextSequence++;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append location", e);
+        }
+    }
+
+    /**
+     * Reads the journaled locations starting at {@code cursor}, oldest first.
+     *
+     * @return the cursor to continue reading from
+     */
+    public synchronized long read(long cursor, int limit, Visitor visitor) throws IOException {
+        open();
+        long next = Math.max(cursor, 0);
+        int remaining = limit;
+
+        File[] segments = listSegments();
+        for (int i = 0; i < segments.length && remaining > 0 && next < mNextSequence; i++) {
+            long firstSequence = firstSequence(segments[i]);
+            long endSequence = i + 1 < segments.length ? firstSequence(segments[i + 1]) : mNextSequence;
+            if (endSequence <= next) {
+                continue;
+            }
+            next = Math.max(next, firstSequence);
+
+            ByteBuffer segment = firstSequence == mSegmentFirstSequence && mSegment != null
+                    ? mSegment
+                    : mapReadOnly(segments[i]);
+            if (segment.limit() < HEADER_SIZE || segment.getInt(0) != MAGIC) {
+                continue;
+            }
+
+            TrackDecoder decoder;
+            long sequence;
+            int offset;
+            if (mReadDecoder != null && mReadSegment == firstSequence && mReadSequence <= next) {
+                decoder = mReadDecoder;
+                sequence = mReadSequence;
+                offset = mReadOffset;
+            } else {
+                decoder = new TrackDecoder();
+                sequence = firstSequence;
+                offset = HEADER_SIZE;
+            }
+
+            boolean more = true;
+            while (more && remaining > 0 && sequence < endSequence) {
+                int length = readRecord(segment, offset, sequence);
+                if (length < 0) {
+                    break;
+                }
+
+                boolean visit = sequence >= next;
+                more = decoder.decode(mRecord, length, sequence, visit ? visitor : null);
+                offset += FRAME_SIZE + length;
+                sequence++;
+                if (visit) {
+                    next = sequence;
+                    remaining--;
+                }
+            }
+
+            mReadDecoder = decoder;
+            mReadSegment = firstSequence;
+            mReadSequence = sequence;
+            mReadOffset = offset;
+            if (!more) {
+                break;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Finds the segments on disk and recovers the write position from the newest one.
+     */
+    private void open() throws IOException {
+        if (mOpened) {
+            return;
+        }
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + mDirectory);
+        }
+
+        File[] segments = listSegments();
+        if (segments.length > 0) {
+            File newest = segments[segments.length - 1];
+            mSegment = map(newest);
+            mSegmentFirstSequence = firstSequence(newest);
+            mSegmentOffset = HEADER_SIZE;
+            mNextSequence = mSegmentFirstSequence;
+            if (mSegment.getInt(0) == MAGIC) {
+                recover();
+            } else {
+                // Never got its header, or was written by an older version
+                writeHeader();
+            }
+        }
+        mOpened = true;
+    }
+
+    /**
+     * Moves the write position past the last intact record of the current segment.
+     */
+    private void recover() throws IOException {
+        TrackDecoder decoder = new TrackDecoder();
+        int length;
+        while ((length = readRecord(mSegment, mSegmentOffset, mNextSequence)) >= 0) {
+            decoder.decode(mRecord, length, mNextSequence, null);
+            mSegmentOffset += FRAME_SIZE + length;
+            mNextSequence++;
+        }
+        mEncoder.continueFrom(decoder);
+    }
+
+    private void rotate() throws IOException {
+        if (mSegment != null) {
+            mSegment.force();
+        }
+
+        File file = new File(mDirectory, String.format("%s%016x%s", SEGMENT_PREFIX, mNextSequence, SEGMENT_SUFFIX));
+        mSegment = map(file);
+        mSegmentFirstSequence = mNextSequence;
+        mSegmentOffset = HEADER_SIZE;
+        writeHeader();
+
+        File[] segments = listSegments();
+        for (int i = 0; i < segments.length - MAX_SEGMENTS; i++) {
+            if (!segments[i].delete()) {
+                Log.w(TAG, "Failed to delete " + segments[i]);
+            }
+        }
+    }
+
+    private void writeHeader() {
+        mSegment.position(0);
+        mSegment.putInt(MAGIC);
+        mSegment.putInt(TrackEncoder.MAGIC);
+        mSegment.putLong(mSegmentFirstSequence);
+        mEncoder.reset();
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile segment = new RandomAccessFile(file, "rw")) {
+            MappedByteBuffer buffer = segment.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static MappedByteBuffer mapReadOnly(File file) throws IOException {
+        try (RandomAccessFile segment = new RandomAccessFile(file, "r")) {
+            FileChannel channel = segment.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), SEGMENT_SIZE));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /**
+     * Copies the record at {@code offset} into {@link #mRecord} if it is intact.
+     *
+     * @return the size of the record, or -1 if there is no intact record at the offset
+     */
+    private int readRecord(ByteBuffer segment, int offset, long sequence) {
+        if (offset + FRAME_SIZE > segment.limit()) {
+            return -1;
+        }
+        int length = segment.get(offset) & 0xFF;
+        if (length == 0 || length > TrackEncoder.MAX_RECORD_SIZE || offset + FRAME_SIZE + length > segment.limit()) {
+            return -1;
+        }
+
+        for (int i = 0; i < length; i++) {
+            mRecord[i] = segment.get(offset + 1 + i);
+        }
+        return segment.getInt(offset + 1 + length) == checksum(sequence, length) ? length : -1;
+    }
+
+    /**
+     * Checksums the sequence number and the first {@code length} bytes of {@link #mRecord}.
+     */
+    private int checksum(long sequence, int length) {
+        mSequence.putLong(0, sequence);
+        mCrc.reset();
+        mCrc.update(mSequence.array(), 0, 8);
+        mCrc.update(length);
+        mCrc.update(mRecord, 0, length);
+        return (int) mCrc.getValue();
+    }
+
+    private File[] listSegments() {
+        File[] files = mDirectory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        // File names hold the zero padded first sequence, so they sort by age
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static long firstSequence(File file) {
+        String name = file.getName();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()), 16);
+    }
+}
@@ -2,34 +2,68 @@ package com.reactnativecommunity.geolocation;
 
 import com.facebook.react.bridge.ReadableMap;
 
+import java.util.List;
+
 public class LocationOptions {
     protected static final float RCT_DEFAULT_LOCATION_ACCURACY = 100;
+    protected static final int RCT_DEFAULT_INTERVAL = 10000;
     protected final int interval;
+    protected final boolean explicitInterval;
     protected final int fastestInterval;
     protected final long timeout;
     protected final double maximumAge;
     protected final boolean highAccuracy;
     protected final float distanceFilter;
+    protected final int batchSize;
+    protected final long batchMaxAge;
+    protected final boolean compact;
+    protected final float simplifyTolerance;
+    protected final int maxInterval;
+    protected final int geohashPrecision;
+    protected final boolean cellChangesOnly;
+    protected final boolean raceProviders;
+    protected final float desiredAccuracy;
 
     private LocationOptions(
             int interval,
+            boolean explicitInterval,
             int fastestInterval,
             long timeout,
             double maximumAge,
             boolean highAccuracy,
-            float distanceFilter) {
+            float distanceFilter,
+            int batchSize,
+            long batchMaxAge,
+            boolean compact,
+            float simplifyTolerance,
+            int maxInterval,
+            int geohashPrecision,
+            boolean cellChangesOnly,
+            boolean raceProviders,
+            float desiredAccuracy) {
         this.interval = interval;
+        this.explicitInterval = explicitInterval;
         this.fastestInterval = fastestInterval;
         this.timeout = timeout;
         this.maximumAge = maximumAge;
         this.highAccuracy = highAccuracy;
         this.distanceFilter = distanceFilter;
+        this.batchSize = batchSize;
+        this.batchMaxAge = batchMaxAge;
+        this.compact = compact;
+        this.simplifyTolerance = simplifyTolerance;
+        this.maxInterval = maxInterval;
+        this.geohashPrecision = geohashPrecision;
+        this.cellChangesOnly = cellChangesOnly;
+        this.raceProviders = raceProviders;
+        this.desiredAccuracy = desiredAccuracy;
     }
 
     protected static LocationOptions fromReactMap(ReadableMap map) {
         // precision might be dropped on timeout (double -> int conversion), but that's OK
+        boolean explicitInterval = map.hasKey("interval");
         int interval =
-                map.hasKey("interval") ? map.getInt("interval") : 10000;
+                explicitInterval ? map.getInt("interval") : RCT_DEFAULT_INTERVAL;
         int fastestInterval =
                 map.hasKey("fastestInterval") ? map.getInt("fastestInterval") : -1;
         long timeout =
@@ -41,7 +75,114 @@ public class LocationOptions {
         float distanceFilter = map.hasKey("distanceFilter") ?
                 (float) map.getDouble("distanceFilter") :
                 RCT_DEFAULT_LOCATION_ACCURACY;
+        int batchSize =
+                map.hasKey("batchSize") ? map.getInt("batchSize") : 0;
+        long batchMaxAge =
+                map.hasKey("batchMaxAge") ? (long) map.getDouble("batchMaxAge") : -1;
+        boolean compact =
+                map.hasKey("compact") && map.getBoolean("compact");
+        float simplifyTolerance =
+                map.hasKey("simplifyTolerance") ? (float) map.getDouble("simplifyTolerance") : 0;
+        int maxInterval =
+                map.hasKey("maxInterval") ? Math.max(map.getInt("maxInterval"), interval) : interval;
+        int geohashPrecision = map.hasKey("geohashPrecision") ?
+                Math.max(0, Math.min(map.getInt("geohashPrecision"), Geohash.MAX_PRECISION)) :
+                0;
+        boolean cellChangesOnly =
+                geohashPrecision > 0 && map.hasKey("cellChangesOnly") && map.getBoolean("cellChangesOnly");
+        boolean raceProviders =
+                map.hasKey("raceProviders") && map.getBoolean("raceProviders");
+        float desiredAccuracy = map.hasKey("desiredAccuracy") ?
+                (float) map.getDouble("desiredAccuracy") :
+                Float.POSITIVE_INFINITY;
+
+        return new LocationOptions(interval, explicitInterval, fastestInterval, timeout, maximumAge, highAccuracy, distanceFilter, batchSize, batchMaxAge, compact, simplifyTolerance, maxInterval, geohashPrecision, cellChangesOnly, raceProviders, desiredAccuracy);
+    }
+
+    /**
+     * Combines the options of several observers into the most demanding request: the shortest
+     * intervals, the smallest distance filter and high accuracy if any of them asks for it.
+     * Batching is only kept as far as every observer allows it, and positions are only sent
+     * compact if every observer accepts that. Simplification is applied per watch by
+     * {@link WatchRegistry}, the merged tolerance is the smallest one. The interval may only
+     * be adapted up to the smallest {@code maxInterval}. Positions carry the geohash at the
+     * highest precision asked for, cell changes are filtered per watch. Provider racing only
+     * applies to single requests.
+     */
+    protected static LocationOptions merge(List<LocationOptions> options) {
+        LocationOptions first = options.get(0);
+        int interval = first.interval;
+        boolean explicitInterval = first.explicitInterval;
+        int fastestInterval = first.fastestInterval;
+        long timeout = first.timeout;
+        double maximumAge = first.maximumAge;
+        boolean highAccuracy = first.highAccuracy;
+        float distanceFilter = first.distanceFilter;
+        int batchSize = first.batchSize;
+        long batchMaxAge = first.batchMaxAge;
+        boolean compact = first.compact;
+        float simplifyTolerance = first.simplifyTolerance;
+        int maxInterval = first.maxInterval;
+        int geohashPrecision = first.geohashPrecision;
+        boolean cellChangesOnly = first.cellChangesOnly;
+        boolean raceProviders = first.raceProviders;
+        float desiredAccuracy = first.desiredAccuracy;
+
+        for (int i = 1; i < options.size(); i++) {
+            LocationOptions other = options.get(i);
+            interval = Math.min(interval, other.interval);
+            explicitInterval = explicitInterval || other.explicitInterval;
+            fastestInterval = minNonNegative(fastestInterval, other.fastestInterval);
+            timeout = Math.min(timeout, other.timeout);
+            maximumAge = Math.min(maximumAge, other.maximumAge);
+            highAccuracy = highAccuracy || other.highAccuracy;
+            distanceFilter = Math.max(0, Math.min(distanceFilter, other.distanceFilter));
+            batchSize = Math.min(batchSize, other.batchSize);
+            batchMaxAge = minNonNegative(batchMaxAge, other.batchMaxAge);
+            compact = compact && other.compact;
+            simplifyTolerance = Math.min(simplifyTolerance, other.simplifyTolerance);
+            maxInterval = Math.min(maxInterval, other.maxInterval);
+            geohashPrecision = Math.max(geohashPrecision, other.geohashPrecision);
+            cellChangesOnly = cellChangesOnly && other.cellChangesOnly;
+            raceProviders = raceProviders || other.raceProviders;
+            desiredAccuracy = Math.min(desiredAccuracy, other.desiredAccuracy);
+        }
+
+        return new LocationOptions(interval, explicitInterval, fastestInterval, timeout, maximumAge, highAccuracy, distanceFilter, batchSize, batchMaxAge, compact, simplifyTolerance, maxInterval, geohashPrecision, cellChangesOnly, raceProviders, desiredAccuracy);
+    }
+
+    /**
+     * @return a copy of these options requesting updates at the given interval
+     */
+    protected LocationOptions withInterval(int interval) {
+        return new LocationOptions(interval, true, fastestInterval, timeout, maximumAge, highAccuracy, distanceFilter, batchSize, batchMaxAge, compact, simplifyTolerance, maxInterval, geohashPrecision, cellChangesOnly, raceProviders, desiredAccuracy);
+    }
+
+    /**
+     * @return a copy of these options with the given distance filter
+     */
+    protected LocationOptions withDistanceFilter(float distanceFilter) {
+        return new LocationOptions(interval, explicitInterval, fastestInterval, timeout, maximumAge, highAccuracy, distanceFilter, batchSize, batchMaxAge, compact, simplifyTolerance, maxInterval, geohashPrecision, cellChangesOnly, raceProviders, desiredAccuracy);
+    }
+
+    /**
+     * @return a copy of these options with the given timeout
+     */
+    protected LocationOptions withTimeout(long timeout) {
+        return new LocationOptions(interval, explicitInterval, fastestInterval, timeout, maximumAge, highAccuracy, distanceFilter, batchSize, batchMaxAge, compact, simplifyTolerance, maxInterval, geohashPrecision, cellChangesOnly, raceProviders, desiredAccuracy);
+    }
+
+    private static int minNonNegative(int a, int b) {
+        return (int) minNonNegative((long) a, b);
+    }
 
-        return new LocationOptions(interval, fastestInterval, timeout, maximumAge, highAccuracy, distanceFilter);
+    private static long minNonNegative(long a, long b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return Math.min(a, b);
     }
 }
\ No newline at end of file
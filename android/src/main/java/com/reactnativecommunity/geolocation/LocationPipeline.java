@@ -0,0 +1,344 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered chain of stages every fix goes through before it reaches the geofences and watches.
+ * A stage can drop a fix (filter), replace it (transform), hold fixes back and pass on one
+ * built from several (aggregate), or hand it to the app and drop it (sink).
+ *
+ * Stages run on one worker thread shared by the process, so they may keep state without
+ * locking and may take their time without holding up the location thread. Fixes wait for the
+ * worker in a bounded queue, where the oldest is dropped if the worker falls behind. Without
+ * stages, fixes do not go through the worker at all.
+ *
+ * The cache, the journal and refinements always see the fixes as the provider reported them.
+ */
+public class LocationPipeline {
+    private static final String TAG = "LocationPipeline";
+    private static final int HANDOFF_CAPACITY = 64;
+
+    private static final Map<String, Factory> sFactories = new HashMap<>();
+    private static ThreadPoolExecutor sWorker;
+
+    static {
+        sFactories.put("accuracyFilter", options -> new AccuracyFilter(
+                options.hasKey("maxAccuracy") ? (float) options.getDouble("maxAccuracy") : LocationOptions.RCT_DEFAULT_LOCATION_ACCURACY));
+        sFactories.put("speedFilter", options -> new SpeedFilter(
+                options.hasKey("maxSpeed") ? (float) options.getDouble("maxSpeed") : SpeedFilter.DEFAULT_MAX_SPEED));
+        sFactories.put("mockFilter", options -> new MockFilter());
+        sFactories.put("roundCoordinates", options -> new RoundCoordinates(
+                options.hasKey("decimals") ? options.getInt("decimals") : RoundCoordinates.DEFAULT_DECIMALS));
+        sFactories.put("average", options -> new Average(
+                options.hasKey("count") ? options.getInt("count") : Average.DEFAULT_COUNT));
+        sFactories.put("log", options -> new LogSink(
+                options.hasKey("tag") ? options.getString("tag") : TAG));
+    }
+
+    public interface Stage {
+        /**
+         * Called on the pipeline worker thread, one fix at a time.
+         *
+         * @return the fix to pass to the next stage, which may be a new one, or null to drop it
+         */
+        @Nullable
+        Location process(Location location);
+    }
+
+    /**
+     * A stage that takes the fixes it gets and ends the pipeline for them, for example to
+     * record or upload them natively without passing them on to JS.
+     */
+    public abstract static class Sink implements Stage {
+        /**
+         * Called on the pipeline worker thread, one fix at a time.
+         */
+        protected abstract void accept(Location location);
+
+        @Nullable
+        @Override
+        public final Location process(Location location) {
+            accept(location);
+            return null;
+        }
+    }
+
+    /**
+     * A stage that holds fixes back to merge them into a later one. Holding a fix back is not
+     * counted as filtering it.
+     */
+    public interface Accumulator extends Stage {
+    }
+
+    public interface Factory {
+        /**
+         * @param options the stage as configured from JS, with its {@code type}
+         */
+        Stage create(ReadableMap options);
+    }
+
+    public interface Listener {
+        /**
+         * Called on the pipeline worker thread with every fix that came out of the last stage.
+         */
+        void onLocation(Location location);
+    }
+
+    private final List<Stage> mStages;
+
+    private LocationPipeline(List<Stage> stages) {
+        mStages = stages;
+    }
+
+    /**
+     * Makes a stage type available to the {@code pipeline} configuration option, so apps can
+     * process fixes natively without changing the module. Register types before setting the
+     * configuration that uses them, for example in {@code Application#onCreate}.
+     */
+    public static void registerStage(String type, Factory factory) {
+        synchronized (sFactories) {
+            sFactories.put(type, factory);
+        }
+    }
+
+    /**
+     * Builds a pipeline with new stages, so no state is shared with other pipelines.
+     *
+     * @param stages maps with the {@code type} of each stage and its options, unknown types
+     *               are skipped
+     */
+    public static LocationPipeline fromReactArray(@Nullable ReadableArray stages) {
+        if (stages == null || stages.size() == 0) {
+            return new LocationPipeline(Collections.<Stage>emptyList());
+        }
+
+        List<Stage> list = new ArrayList<>(stages.size());
+        for (int i = 0; i < stages.size(); i++) {
+            ReadableMap options = stages.getMap(i);
+            String type = options.hasKey("type") ? options.getString("type") : null;
+            Factory factory;
+            synchronized (sFactories) {
+                factory = sFactories.get(type);
+            }
+            if (factory == null) {
+                Log.w(TAG, "Unknown pipeline stage: " + type);
+                continue;
+            }
+            list.add(factory.create(options));
+        }
+        return new LocationPipeline(list);
+    }
+
+    public boolean isEmpty() {
+        return mStages.isEmpty();
+    }
+
+    /**
+     * Hands the fix to the worker, which runs it through the stages.
+     */
+    public void process(final Location location, final Listener listener) {
+        getWorker().execute(() -> {
+            Location result = location;
+            try {
+                for (Stage stage : mStages) {
+                    result = stage.process(result);
+                    if (result == null) {
+                        if (!(stage instanceof Sink) && !(stage instanceof Accumulator)) {
+                            GeolocationMetrics.getInstance().pipelineFiltered();
+                        }
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                // A failing stage drops the fix, not the worker
+                Log.e(TAG, "Pipeline stage failed", e);
+                return;
+            }
+            listener.onLocation(result);
+        });
+    }
+
+    private static synchronized ThreadPoolExecutor getWorker() {
+        if (sWorker == null) {
+            sWorker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(HANDOFF_CAPACITY),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "RNCGeolocationPipeline");
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new DropOldestPolicy());
+        }
+        return sWorker;
+    }
+
+    /**
+     * Keeps the newest fixes when the worker falls behind, the oldest are the least useful.
+     */
+    private static class DropOldestPolicy extends ThreadPoolExecutor.DiscardOldestPolicy {
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (!executor.isShutdown()) {
+                GeolocationMetrics.getInstance().pipelineDropped();
+            }
+            super.rejectedExecution(runnable, executor);
+        }
+    }
+
+    /**
+     * Drops fixes less accurate than {@code maxAccuracy} meters, or without an accuracy.
+     */
+    static class AccuracyFilter implements Stage {
+        private final float mMaxAccuracy;
+
+        AccuracyFilter(float maxAccuracy) {
+            mMaxAccuracy = maxAccuracy;
+        }
+
+        @Nullable
+        @Override
+        public Location process(Location location) {
+            return location.hasAccuracy() && location.getAccuracy() <= mMaxAccuracy ? location : null;
+        }
+    }
+
+    /**
+     * Drops fixes that would mean moving faster than {@code maxSpeed} meters per second since
+     * the last fix passed on, which are most likely outliers.
+     */
+    static class SpeedFilter implements Stage {
+        static final float DEFAULT_MAX_SPEED = 100;
+
+        private final float mMaxSpeed;
+        private @Nullable Location mLast;
+
+        SpeedFilter(float maxSpeed) {
+            mMaxSpeed = maxSpeed;
+        }
+
+        @Nullable
+        @Override
+        public Location process(Location location) {
+            if (mLast != null) {
+                double seconds = (location.getElapsedRealtimeNanos() - mLast.getElapsedRealtimeNanos()) / 1e9;
+                if (seconds > 0 && location.distanceTo(mLast) / seconds > mMaxSpeed) {
+                    return null;
+                }
+            }
+            mLast = location;
+            return location;
+        }
+    }
+
+    /**
+     * Drops fixes from mock location providers.
+     */
+    static class MockFilter implements Stage {
+        @Nullable
+        @Override
+        public Location process(Location location) {
+            return location.isFromMockProvider() ? null : location;
+        }
+    }
+
+    /**
+     * Rounds latitude and longitude to {@code decimals} decimal places, 3 being about 100 meters.
+     */
+    static class RoundCoordinates implements Stage {
+        static final int DEFAULT_DECIMALS = 4;
+
+        private final double mFactor;
+
+        RoundCoordinates(int decimals) {
+            mFactor = Math.pow(10, Math.max(0, decimals));
+        }
+
+        @Override
+        public Location process(Location location) {
+            Location rounded = new Location(location);
+            rounded.setLatitude(Math.round(location.getLatitude() * mFactor) / mFactor);
+            rounded.setLongitude(Math.round(location.getLongitude() * mFactor) / mFactor);
+            return rounded;
+        }
+    }
+
+    /**
+     * Passes on one fix for every {@code count} fixes, at their mean position, altitude and
+     * accuracy. The other fields are those of the last fix. Longitudes are averaged as unit
+     * vectors, so fixes on both sides of the antimeridian average to a point on it.
+     */
+    static class Average implements Accumulator {
+        static final int DEFAULT_COUNT = 5;
+
+        private final int mCount;
+        private int mSeen;
+        private double mLatitude;
+        private double mLongitudeX;
+        private double mLongitudeY;
+        private double mAltitude;
+        private double mAccuracy;
+
+        Average(int count) {
+            mCount = Math.max(1, count);
+        }
+
+        @Nullable
+        @Override
+        public Location process(Location location) {
+            mLatitude += location.getLatitude();
+            double longitude = Math.toRadians(location.getLongitude());
+            mLongitudeX += Math.cos(longitude);
+            mLongitudeY += Math.sin(longitude);
+            mAltitude += location.getAltitude();
+            mAccuracy += location.getAccuracy();
+            if (++mSeen < mCount) {
+                return null;
+            }
+
+            Location average = new Location(location);
+            average.setLatitude(mLatitude / mSeen);
+            average.setLongitude(Math.toDegrees(Math.atan2(mLongitudeY, mLongitudeX)));
+            average.setAltitude(mAltitude / mSeen);
+            average.setAccuracy((float) (mAccuracy / mSeen));
+            mSeen = 0;
+            mLatitude = 0;
+            mLongitudeX = 0;
+            mLongitudeY = 0;
+            mAltitude = 0;
+            mAccuracy = 0;
+            return average;
+        }
+    }
+
+    /**
+     * Writes every fix it gets to logcat under {@code tag}, at the debug level.
+     */
+    static class LogSink extends Sink {
+        private final String mTag;
+
+        LogSink(String tag) {
+            mTag = tag;
+        }
+
+        @Override
+        protected void accept(Location location) {
+            Log.d(mTag, location.getProvider() + " " + location.getLatitude() + "," + location.getLongitude()
+                    + " accuracy " + location.getAccuracy() + " at " + location.getTime());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.Build;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Fixed-capacity store for observed locations, kept as parallel primitive arrays so recording a
+ * location does not allocate. Entries are addressed by a monotonically increasing sequence
+ * number; once more than {@code capacity} locations have been written the oldest are overwritten.
+ *
+ * It holds the positions a {@link LocationBatcher} collects, which are only encoded when the
+ * batch is flushed. Positions emitted one at a time are encoded straight from the location.
+ */
+public class LocationRingBuffer {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private int mCapacity;
+    private double[] mLatitude;
+    private double[] mLongitude;
+    private double[] mAltitude;
+    private double[] mAccuracy;
+    private double[] mBearing;
+    private double[] mSpeed;
+    private long[] mTime;
+    private boolean[] mMocked;
+    private Bundle[] mExtras;
+    private long[] mWatchMask;
+    private double[] mRawLatitude;
+    private double[] mRawLongitude;
+    private double[] mRawAccuracy;
+    private long mNextSequence;
+
+    public LocationRingBuffer(int capacity) {
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        mCapacity = capacity;
+        mLatitude = new double[capacity];
+        mLongitude = new double[capacity];
+        mAltitude = new double[capacity];
+        mAccuracy = new double[capacity];
+        mBearing = new double[capacity];
+        mSpeed = new double[capacity];
+        mTime = new long[capacity];
+        mMocked = new boolean[capacity];
+        mExtras = new Bundle[capacity];
+        mWatchMask = new long[capacity];
+        mRawLatitude = new double[capacity];
+        mRawLongitude = new double[capacity];
+        mRawAccuracy = new double[capacity];
+    }
+
+    /**
+     * Grows the buffer so it can hold at least {@code capacity} entries. Existing entries are
+     * dropped, so this should only be called while nothing is waiting to be emitted.
+     */
+    public synchronized void ensureCapacity(int capacity) {
+        if (capacity > mCapacity) {
+            allocate(capacity);
+        }
+    }
+
+    public synchronized int capacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Records a location and returns its sequence number.
+     *
+     * @param latitude the latitude to emit, which may differ from the raw location's
+     * @param longitude the longitude to emit
+     * @param accuracy the accuracy to emit
+     * @param watchMask watches the location is delivered to, see {@link WatchRegistry}
+     */
+    public synchronized long write(Location location, double latitude, double longitude, double accuracy, long watchMask) {
+        long sequence = mNextSequence++;
+        int slot = slot(sequence);
+        mLatitude[slot] = latitude;
+        mLongitude[slot] = longitude;
+        mAltitude[slot] = location.getAltitude();
+        mAccuracy[slot] = accuracy;
+        mBearing[slot] = location.getBearing();
+        mSpeed[slot] = location.getSpeed();
+        mTime[slot] = location.getTime();
+        mExtras[slot] = location.getExtras();
+        mWatchMask[slot] = watchMask;
+        mRawLatitude[slot] = location.getLatitude();
+        mRawLongitude[slot] = location.getLongitude();
+        mRawAccuracy[slot] = location.getAccuracy();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            mMocked[slot] = location.isFromMockProvider();
+        }
+        return sequence;
+    }
+
+    /**
+     * Returns whether the entry with the given sequence number is still held by the buffer.
+     */
+    public synchronized boolean contains(long sequence) {
+        return sequence < mNextSequence && sequence >= mNextSequence - mCapacity;
+    }
+
+    public synchronized WritableMap toMap(long sequence) {
+        int slot = slot(sequence);
+        return BaseLocationManager.positionToMap(
+                mLatitude[slot],
+                mLongitude[slot],
+                mAltitude[slot],
+                mAccuracy[slot],
+                mBearing[slot],
+                mSpeed[slot],
+                mTime[slot],
+                mExtras[slot],
+                mMocked[slot]);
+    }
+
+    public synchronized WritableArray toArray(long sequence) {
+        int slot = slot(sequence);
+        return BaseLocationManager.positionToArray(
+                mLatitude[slot],
+                mLongitude[slot],
+                mAltitude[slot],
+                mAccuracy[slot],
+                mBearing[slot],
+                mSpeed[slot],
+                mTime[slot],
+                mMocked[slot]);
+    }
+
+    /**
+     * @return the coordinates the location was recorded with, before filtering
+     */
+    public synchronized WritableMap toRawCoordsMap(long sequence) {
+        int slot = slot(sequence);
+        WritableMap coords = Arguments.createMap();
+        coords.putDouble("latitude", mRawLatitude[slot]);
+        coords.putDouble("longitude", mRawLongitude[slot]);
+        coords.putDouble("accuracy", mRawAccuracy[slot]);
+        return coords;
+    }
+
+    /**
+     * @return the geohash of the emitted coordinates
+     */
+    public synchronized String getGeohash(long sequence, int precision) {
+        int slot = slot(sequence);
+        return Geohash.encode(mLatitude[slot], mLongitude[slot], precision);
+    }
+
+    public synchronized long getWatchMask(long sequence) {
+        return mWatchMask[slot(sequence)];
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % mCapacity);
+    }
+}
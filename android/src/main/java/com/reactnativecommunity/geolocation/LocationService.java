@@ -37,6 +37,7 @@ public class LocationService extends Service implements LocationHandler {
     public void onDestroy() {
         super.onDestroy();
         Log.i(TAG, "onDestroy");
+        GeolocationMetrics.getInstance().serviceStopped();
         stopLocationUpdates();  // Clean up resources
     }
 
@@ -52,6 +53,7 @@ public class LocationService extends Service implements LocationHandler {
                 .build();
 
         startForeground(NOTIFICATION_ID, notification);
+        GeolocationMetrics.getInstance().serviceStarted();
 
         return START_STICKY;
     }
@@ -75,6 +77,11 @@ public class LocationService extends Service implements LocationHandler {
         mLocationHandler.stopLocationUpdates();
     }
 
+    public void release() {
+        Log.i(TAG, "release");
+        mLocationHandler.release();
+    }
+
     public void getCurrentLocation(LocationOptions options, final Callback success,
                                    Callback error) {
         Log.i(TAG, "getCurrentLocation");
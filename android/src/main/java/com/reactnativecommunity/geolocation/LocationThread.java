@@ -0,0 +1,38 @@
+package com.reactnativecommunity.geolocation;
+
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The thread location managers run their provider callbacks, timeouts and position encoding on
+ * when {@code enableLocationThread} is configured, so none of that competes with the UI for
+ * the main thread. The thread is started on first use and kept for the lifetime of the
+ * process; it only wakes up for location work.
+ */
+public final class LocationThread {
+    private static final String NAME = "RNCGeolocation";
+    private static @Nullable HandlerThread sThread;
+
+    private LocationThread() {
+    }
+
+    /**
+     * @param dedicated whether to use the dedicated location thread rather than the main thread
+     */
+    public static Looper getLooper(boolean dedicated) {
+        if (!dedicated) {
+            return Looper.getMainLooper();
+        }
+
+        synchronized (LocationThread.class) {
+            if (sThread == null) {
+                sThread = new HandlerThread(NAME, Process.THREAD_PRIORITY_BACKGROUND);
+                sThread.start();
+            }
+            return sThread.getLooper();
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package com.reactnativecommunity.geolocation;
 
 import android.annotation.SuppressLint;
-import android.app.Activity;
 import android.content.ComponentName;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.location.Location;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.content.Context;
 import android.location.LocationManager;
@@ -17,10 +18,7 @@ import androidx.annotation.NonNull;
 
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.common.SystemClock;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationAvailability;
 import com.google.android.gms.location.LocationCallback;
@@ -30,6 +28,13 @@ import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.LocationSettingsRequest;
 import com.google.android.gms.location.Priority;
 import com.google.android.gms.location.SettingsClient;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.annotation.Nullable;
 
@@ -37,6 +42,22 @@ import javax.annotation.Nullable;
 public class PlayServicesLocationManager extends BaseLocationManager {
     private boolean mIsServiceRunning = false;
     private @Nullable LocationHandler mLocationHandler;
+    // The handler this manager gave the background service, which may be handed another one
+    private @Nullable LocationHandler mServiceLocationHandler;
+    // Answers requests without the background service, or while it is being bound
+    private @Nullable LocationHandler mForegroundLocationHandler;
+    // Created with the first passive request, most apps never enable warm start
+    private @Nullable FusedLocationProviderClient mPassiveClient;
+
+    // Only fills the cache, passive fixes are not emitted to watches
+    private final LocationCallback mPassiveCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult locationResult) {
+            for (Location location : locationResult.getLocations()) {
+                mLocationCache.put(location);
+            }
+        }
+    };
 
     private final ServiceConnection mConnection = new ServiceConnection() {
         @Override
@@ -46,10 +67,13 @@ public class PlayServicesLocationManager extends BaseLocationManager {
             final PlayServicesLocationManager.LocationHandlerImpl locationHandlerImpl =
                     new PlayServicesLocationManager.LocationHandlerImpl(
                             (LocationService) mLocationHandler,
-                            mReactContext.getCurrentActivity(),
-                            PlayServicesLocationManager.this);
+                            PlayServicesLocationManager.this,
+                            mLocationCache,
+                            mLooper);
             ((LocationService) mLocationHandler).setLocationHandler(locationHandlerImpl);
+            mServiceLocationHandler = locationHandlerImpl;
             mIsServiceRunning = true;
+            resumeObserving();
         }
 
         @Override
@@ -59,28 +83,30 @@ public class PlayServicesLocationManager extends BaseLocationManager {
         }
     };
 
-    protected PlayServicesLocationManager(ReactApplicationContext reactContext, boolean enableBackgroundLocationUpdates) {
-        super(reactContext, enableBackgroundLocationUpdates);
+    protected PlayServicesLocationManager(ReactApplicationContext reactContext, boolean enableBackgroundLocationUpdates, Looper looper) {
+        super(reactContext, enableBackgroundLocationUpdates, looper);
         Log.d("PlayServicesLocationManager", "enableBackgroundLocationUpdates:" + enableBackgroundLocationUpdates);
 
         if (enableBackgroundLocationUpdates) {
             startService();
         } else {
-            mLocationHandler = new LocationHandlerImpl(reactContext, mReactContext.getCurrentActivity(), this);
+            mLocationHandler = getForegroundLocationHandler();
         }
     }
 
     @Override
-    public void getCurrentLocationData(ReadableMap options, Callback success, Callback error) {
-        LocationOptions locationOptions = LocationOptions.fromReactMap(options);
+    protected void getCurrentLocation(LocationOptions locationOptions, Callback success, Callback error) {
+        if (respondFromCache(locationOptions, success)) {
+            return;
+        }
 
         try {
             if (mIsServiceRunning) {
                 if (!mEnableBackgroundLocationUpdates) {
                     stopService();
-                    mLocationHandler = new LocationHandlerImpl(mReactContext, mReactContext.getCurrentActivity(), this);
+                    mLocationHandler = getForegroundLocationHandler();
                 } else if (mLocationHandler == null) {
-                    mLocationHandler = new LocationHandlerImpl(mReactContext, mReactContext.getCurrentActivity(), this);
+                    mLocationHandler = getForegroundLocationHandler();
                 }
             } else {
                 if (mEnableBackgroundLocationUpdates) {
@@ -88,21 +114,78 @@ public class PlayServicesLocationManager extends BaseLocationManager {
                 }
             }
 
-            mLocationHandler.getCurrentLocation(locationOptions, success, error);
+            // While the background service is being bound, answer from the foreground
+            LocationHandler handler = mLocationHandler != null
+                    ? mLocationHandler
+                    : getForegroundLocationHandler();
+            handler.getCurrentLocation(locationOptions, success, error);
         } catch (SecurityException e) {
             throw e;
         }
     }
 
     @Override
-    public void startObserving(ReadableMap options) {
-        LocationOptions locationOptions = LocationOptions.fromReactMap(options);
-        mLocationHandler.startLocationUpdates(locationOptions);
+    protected void startLocationUpdates(LocationOptions options) {
+        // Updates start once the background service is bound, see onServiceConnected
+        if (mLocationHandler != null) {
+            mLocationHandler.startLocationUpdates(options);
+        }
+    }
+
+    @Override
+    protected void stopLocationUpdates() {
+        if (mLocationHandler != null) {
+            mLocationHandler.stopLocationUpdates();
+        }
+    }
+
+    @Override
+    protected void startPassiveUpdates() {
+        FusedLocationProviderClient client = getPassiveClient();
+        client.getLastLocation().addOnSuccessListener(mHandler::post, mLocationCache::put);
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_PASSIVE, 0).build();
+        client.requestLocationUpdates(request, mPassiveCallback, mLooper);
+    }
+
+    @Override
+    protected void stopPassiveUpdates() {
+        getPassiveClient().removeLocationUpdates(mPassiveCallback);
+    }
+
+    private FusedLocationProviderClient getPassiveClient() {
+        if (mPassiveClient == null) {
+            mPassiveClient = LocationServices.getFusedLocationProviderClient(mReactContext);
+        }
+        return mPassiveClient;
     }
 
     @Override
-    public void stopObserving() {
-        mLocationHandler.stopLocationUpdates();
+    protected void releaseProvider(boolean keepService) {
+        LocationHandler handler = mLocationHandler instanceof LocationService ? mServiceLocationHandler : mLocationHandler;
+        if (handler != null) {
+            handler.release();
+        }
+        if (mForegroundLocationHandler != null && mForegroundLocationHandler != handler) {
+            mForegroundLocationHandler.release();
+        }
+
+        if (keepService && mIsServiceRunning) {
+            mReactContext.unbindService(mConnection);
+            mIsServiceRunning = false;
+        } else {
+            stopService();
+        }
+    }
+
+    /**
+     * @return the handler for requests made without the background service, created on first
+     *         use so concurrent requests share its provider requests
+     */
+    private LocationHandler getForegroundLocationHandler() {
+        if (mForegroundLocationHandler == null) {
+            mForegroundLocationHandler = new LocationHandlerImpl(mReactContext, this, mLocationCache, mLooper);
+        }
+        return mForegroundLocationHandler;
     }
 
     private void startService() {
@@ -110,6 +193,7 @@ public class PlayServicesLocationManager extends BaseLocationManager {
             return;
         }
 
+        GeolocationMetrics.getInstance().serviceStartRequested();
         Intent intent = new Intent(mReactContext, LocationService.class);
 
         // Start the LocationService as a foreground service
@@ -128,6 +212,7 @@ public class PlayServicesLocationManager extends BaseLocationManager {
             return;
         }
 
+        GeolocationMetrics.getInstance().serviceStopRequested();
         mReactContext.unbindService(mConnection);
         Intent intent = new Intent(mReactContext, LocationService.class);
         mReactContext.stopService(intent);
@@ -136,8 +221,10 @@ public class PlayServicesLocationManager extends BaseLocationManager {
     private static class CallbackHolder {
         Callback success;
         Callback error;
+        final LocationOptions options;
 
-        public CallbackHolder(Callback success, Callback error) {
+        public CallbackHolder(LocationOptions options, Callback success, Callback error) {
+            this.options = options;
             this.success = success;
             this.error = error;
         }
@@ -156,30 +243,43 @@ public class PlayServicesLocationManager extends BaseLocationManager {
                 Log.e(this.getClass().getSimpleName(), "tried to invoke null success callback");
                 return;
             }
-            this.success.invoke(locationToMap(location));
+            this.success.invoke(encodeLocation(location, options));
             this.success = null;
         }
     }
 
     private static class LocationHandlerImpl implements LocationHandler {
         private static final String TAG = "PlayServicesLocationHandlerImpl";
-        private final Context mContext;
-        private final Activity mActivity;
+        private final @Nullable ProviderState mProviderState;
         private FusedLocationProviderClient mFusedLocationClient;
         private SettingsClient mLocationServicesSettingsClient;
-        private LocationCallback mSingleLocationCallback;
+        private final Map<Integer, SingleLocationRequest> mSingleLocationRequests = new HashMap<>();
+        private final Looper mLooper;
+        private final Handler mHandler;
+        // Runs task listeners on the location looper
+        private final Executor mExecutor;
         private LocationCallback mLocationCallback;
         private final EventEmitter mEventEmitter;
-
-        public LocationHandlerImpl(Context context, Activity activity, EventEmitter errorEmitter) {
-            mContext = context;
-            mActivity = activity;
+        private final LastLocationCache mLocationCache;
+
+        public LocationHandlerImpl(Context context, EventEmitter errorEmitter, LastLocationCache locationCache, Looper looper) {
+            mProviderState = context != null ? ProviderState.getInstance(context) : null;
+            mLocationCache = locationCache;
+            mLooper = looper;
+            mHandler = new Handler(looper);
+            mExecutor = mHandler::post;
             mEventEmitter = errorEmitter;
             mFusedLocationClient = LocationServices.getFusedLocationProviderClient(context);
             mLocationServicesSettingsClient = LocationServices.getSettingsClient(context);
         }
 
         public void startLocationUpdates(LocationOptions options) {
+            // Requesting updates again with the same callback replaces the previous request
+            if (mLocationCallback != null) {
+                checkLocationSettings(options, mLocationCallback, null);
+                return;
+            }
+
             mLocationCallback = new LocationCallback() {
                 @Override
                 public void onLocationResult(LocationResult locationResult) {
@@ -188,7 +288,10 @@ public class PlayServicesLocationManager extends BaseLocationManager {
                         return;
                     }
 
-                    mEventEmitter.emit("geolocationDidChange", locationToMap(locationResult.getLastLocation()));
+                    // A result holds more than one location when the provider batched updates
+                    for (Location location : locationResult.getLocations()) {
+                        mEventEmitter.emitLocation(location);
+                    }
                 }
 
                 @Override
@@ -207,24 +310,29 @@ public class PlayServicesLocationManager extends BaseLocationManager {
                 return;
             }
             mFusedLocationClient.removeLocationUpdates(mLocationCallback);
+            mLocationCallback = null;
         }
 
-        public void getCurrentLocation(LocationOptions locationOptions, final Callback success,
-                                       Callback error) {
-            if (mActivity == null) {
-                mSingleLocationCallback = createSingleLocationCallback(success, error);
-                checkLocationSettings(locationOptions, mSingleLocationCallback, error);
-                return;
+        public void release() {
+            stopLocationUpdates();
+            synchronized (mSingleLocationRequests) {
+                for (SingleLocationRequest request : mSingleLocationRequests.values()) {
+                    request.cancel();
+                }
+                mSingleLocationRequests.clear();
             }
+        }
 
+        public void getCurrentLocation(LocationOptions locationOptions, final Callback success,
+                                       Callback error) {
             try {
                 mFusedLocationClient.getLastLocation()
-                        .addOnSuccessListener(mActivity, location -> {
-                            if (location != null && (SystemClock.currentTimeMillis() - location.getTime()) < locationOptions.maximumAge) {
-                                success.invoke(locationToMap(location));
+                        .addOnSuccessListener(mExecutor, location -> {
+                            mLocationCache.put(location);
+                            if (location != null && LastLocationCache.getAge(location) < locationOptions.maximumAge) {
+                                success.invoke(encodeLocation(location, locationOptions));
                             } else {
-                                mSingleLocationCallback = createSingleLocationCallback(success, error);
-                                checkLocationSettings(locationOptions, mSingleLocationCallback, error);
+                                requestSingleLocation(locationOptions, success, error);
                             }
                         });
             } catch (SecurityException e) {
@@ -232,37 +340,117 @@ public class PlayServicesLocationManager extends BaseLocationManager {
             }
         }
 
-        private LocationCallback createSingleLocationCallback(Callback success, Callback error) {
-            final CallbackHolder callbackHolder = new CallbackHolder(success, error);
+        /**
+         * Attaches the caller to the pending request with the same priority, or starts a new one.
+         */
+        private void requestSingleLocation(LocationOptions locationOptions, Callback success, Callback error) {
+            int priority = getPriority(locationOptions);
+            CallbackHolder callbackHolder = new CallbackHolder(locationOptions, success, error);
+
+            synchronized (mSingleLocationRequests) {
+                SingleLocationRequest request = mSingleLocationRequests.get(priority);
+                if (request != null && request.add(callbackHolder)) {
+                    return;
+                }
 
-            return new LocationCallback() {
-                @Override
-                public void onLocationResult(@NonNull LocationResult locationResult) {
-                    Location location = locationResult.getLastLocation();
+                final SingleLocationRequest newRequest = new SingleLocationRequest();
+                newRequest.add(callbackHolder);
+                mSingleLocationRequests.put(priority, newRequest);
+                checkLocationSettings(locationOptions, newRequest, args -> newRequest.fail((WritableMap) args[0]));
+            }
+        }
 
-                    if (location == null) {
-                        callbackHolder.error(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "No location provided (FusedLocationProvider/lastLocation)."));
-                        return;
-                    }
+        /**
+         * One fused location request shared by every caller that asked for a position with the
+         * same priority while it was pending. Each caller keeps its own timeout.
+         */
+        private class SingleLocationRequest extends LocationCallback {
+            private final List<CallbackHolder> mCallbacks = new ArrayList<>();
+            private boolean mFinished;
+
+            synchronized boolean add(CallbackHolder callbackHolder) {
+                if (mFinished) {
+                    return false;
+                }
+
+                mCallbacks.add(callbackHolder);
+                mHandler.postAtTime(
+                        () -> onTimeout(callbackHolder),
+                        callbackHolder,
+                        SystemClock.uptimeMillis() + callbackHolder.options.timeout);
+                return true;
+            }
+
+            @Override
+            public synchronized void onLocationResult(@NonNull LocationResult locationResult) {
+                Location location = locationResult.getLastLocation();
 
+                if (location == null) {
+                    fail(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "No location provided (FusedLocationProvider/lastLocation)."));
+                    return;
+                }
+
+                mLocationCache.put(location);
+                for (CallbackHolder callbackHolder : mCallbacks) {
                     callbackHolder.success(location);
+                }
+                finish();
+            }
 
-                    mFusedLocationClient.removeLocationUpdates(mSingleLocationCallback);
-                    mSingleLocationCallback = null;
+            @Override
+            public synchronized void onLocationAvailability(@NonNull LocationAvailability locationAvailability) {
+                if (!locationAvailability.isLocationAvailable()) {
+                    // Nobody is left waiting, so the fused request is removed right away
+                    fail(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Location not available (FusedLocationProvider/lastLocation)."));
                 }
+            }
 
-                @Override
-                public void onLocationAvailability(@NonNull LocationAvailability locationAvailability) {
-                    if (!locationAvailability.isLocationAvailable()) {
-                        callbackHolder.error(PositionError.buildError(PositionError.POSITION_UNAVAILABLE, "Location not available (FusedLocationProvider/lastLocation)."));
-                    }
+            synchronized void fail(WritableMap cause) {
+                for (CallbackHolder callbackHolder : mCallbacks) {
+                    callbackHolder.error(cause);
                 }
-            };
+                finish();
+            }
+
+            synchronized void cancel() {
+                if (!mFinished) {
+                    finish();
+                }
+            }
+
+            private synchronized void onTimeout(CallbackHolder callbackHolder) {
+                if (!mCallbacks.remove(callbackHolder)) {
+                    return;
+                }
+
+                callbackHolder.error(PositionError.buildError(PositionError.TIMEOUT, "Location request timed out"));
+                if (mCallbacks.isEmpty()) {
+                    finish();
+                }
+            }
+
+            private void finish() {
+                mFinished = true;
+                for (CallbackHolder callbackHolder : mCallbacks) {
+                    mHandler.removeCallbacksAndMessages(callbackHolder);
+                }
+                mCallbacks.clear();
+                mFusedLocationClient.removeLocationUpdates(this);
+                // Posted, since callers lock the map before attaching to a request
+                mHandler.post(() -> {
+                    synchronized (mSingleLocationRequests) {
+                        mSingleLocationRequests.values().remove(this);
+                    }
+                });
+            }
         }
 
         private void requestLocationUpdates(LocationRequest locationRequest, LocationCallback locationCallback) {
             try {
-                mFusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+                Task<Void> task = mFusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, mLooper);
+                if (locationCallback == mLocationCallback) {
+                    task.addOnSuccessListener(mExecutor, result -> mEventEmitter.onLocationUpdatesStarted());
+                }
             } catch (SecurityException e) {
                 throw e;
             }
@@ -270,7 +458,7 @@ public class PlayServicesLocationManager extends BaseLocationManager {
 
         private void checkLocationSettings(LocationOptions locationOptions, LocationCallback locationCallback, Callback error) {
             LocationRequest.Builder requestBuilder = new LocationRequest.Builder(locationOptions.interval);
-            requestBuilder.setPriority(locationOptions.highAccuracy ? Priority.PRIORITY_HIGH_ACCURACY : Priority.PRIORITY_LOW_POWER);
+            requestBuilder.setPriority(getPriority(locationOptions));
             requestBuilder.setMaxUpdateAgeMillis((long) locationOptions.maximumAge);
 
             if (locationOptions.fastestInterval >= 0) {
@@ -280,14 +468,20 @@ public class PlayServicesLocationManager extends BaseLocationManager {
             if (locationOptions.distanceFilter >= 0) {
                 requestBuilder.setMinUpdateDistanceMeters(locationOptions.distanceFilter);
             }
+
+            // Let the provider hold back updates for as long as the JS side is willing to wait
+            // for a batch, so the device can deliver them together.
+            if (locationOptions.batchSize > 1 && locationOptions.batchMaxAge > 0) {
+                requestBuilder.setMaxUpdateDelayMillis(locationOptions.batchMaxAge);
+            }
             LocationRequest locationRequest = requestBuilder.build();
 
             LocationSettingsRequest.Builder settingsBuilder = new LocationSettingsRequest.Builder();
             settingsBuilder.addLocationRequest(locationRequest);
             LocationSettingsRequest locationSettingsRequest = settingsBuilder.build();
             mLocationServicesSettingsClient.checkLocationSettings(locationSettingsRequest)
-                    .addOnSuccessListener(locationSettingsResponse -> requestLocationUpdates(locationRequest, locationCallback))
-                    .addOnFailureListener(err -> {
+                    .addOnSuccessListener(mExecutor, locationSettingsResponse -> requestLocationUpdates(locationRequest, locationCallback))
+                    .addOnFailureListener(mExecutor, err -> {
                         if (isAnyProviderAvailable()) {
                             requestLocationUpdates(locationRequest, locationCallback);
                             return;
@@ -303,13 +497,12 @@ public class PlayServicesLocationManager extends BaseLocationManager {
                     });
         }
 
+        private static int getPriority(LocationOptions locationOptions) {
+            return locationOptions.highAccuracy ? Priority.PRIORITY_HIGH_ACCURACY : Priority.PRIORITY_LOW_POWER;
+        }
+
         private boolean isAnyProviderAvailable() {
-            if (mContext == null) {
-                return false;
-            }
-            LocationManager locationManager =
-                    (LocationManager) mContext.getSystemService(Context.LOCATION_SERVICE);
-            return locationManager != null && (locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER) || locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER));
+            return mProviderState != null && (mProviderState.isProviderEnabled(LocationManager.GPS_PROVIDER) || mProviderState.isProviderEnabled(LocationManager.NETWORK_PROVIDER));
         }
     }
 }
@@ -0,0 +1,160 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the active {@code refinePosition} requests. Each one reports every fix that is more
+ * accurate than the ones it reported before, and finishes with the first fix within its
+ * {@code desiredAccuracy}. Running out of time is handled by the caller, see
+ * {@link #finish(int)}.
+ *
+ * Refinements ask the provider for updates every second unless they set an interval, since
+ * they are short lived and meant to converge quickly. They never set a distance filter, as a
+ * more accurate fix at the same place is exactly what they wait for.
+ */
+public class PositionRefiner {
+    private static final int DEFAULT_INTERVAL = 1000;
+
+    private final Map<Integer, Refinement> mRefinements = new LinkedHashMap<>();
+
+    public static class Refinement {
+        final int id;
+        final LocationOptions options;
+        // Time budget as SystemClock#uptimeMillis
+        final long deadline;
+        @Nullable Location best;
+        boolean finished;
+
+        Refinement(int id, LocationOptions options) {
+            this.id = id;
+            this.options = options;
+            this.deadline = SystemClock.uptimeMillis() + options.timeout;
+        }
+
+        /**
+         * @return true if the location is more accurate than the best one so far
+         */
+        private boolean offer(Location location) {
+            if (!location.hasAccuracy() && best != null) {
+                return false;
+            }
+            if (best != null && best.hasAccuracy() && location.getAccuracy() >= best.getAccuracy()) {
+                return false;
+            }
+
+            best = location;
+            finished = getAccuracy(location) <= options.desiredAccuracy;
+            return true;
+        }
+    }
+
+    /**
+     * Starts a refinement, replacing any previous one with the same id.
+     *
+     * @param cached a recent location to report right away, if any
+     */
+    public synchronized Refinement add(int id, LocationOptions options, @Nullable Location cached) {
+        LocationOptions refineOptions = options.explicitInterval ? options : options.withInterval(DEFAULT_INTERVAL);
+        Refinement refinement = new Refinement(id, refineOptions.withDistanceFilter(0));
+        if (cached != null) {
+            refinement.offer(cached);
+        }
+        if (!refinement.finished) {
+            mRefinements.put(id, refinement);
+        }
+        return refinement;
+    }
+
+    /**
+     * Ends a refinement, because it was cancelled or ran out of time.
+     *
+     * @return the refinement, or null if it already finished
+     */
+    @Nullable
+    public synchronized Refinement finish(int id) {
+        Refinement refinement = mRefinements.remove(id);
+        if (refinement != null) {
+            refinement.finished = true;
+        }
+        return refinement;
+    }
+
+    public synchronized boolean isEmpty() {
+        return mRefinements.isEmpty();
+    }
+
+    /**
+     * Takes over the refinements of another refiner and clears it. Used when the location
+     * manager is swapped.
+     *
+     * @return the refinements taken over, their timeouts need to be scheduled again
+     */
+    public synchronized List<Refinement> moveFrom(PositionRefiner other) {
+        synchronized (other) {
+            mRefinements.putAll(other.mRefinements);
+            List<Refinement> moved = new ArrayList<>(other.mRefinements.values());
+            other.mRefinements.clear();
+            return moved;
+        }
+    }
+
+    /**
+     * Offers a location to every refinement. Refinements that reach their desired accuracy are
+     * finished and removed.
+     *
+     * @param improved receives the refinements the location improved
+     */
+    public synchronized void offer(Location location, List<Refinement> improved) {
+        if (mRefinements.isEmpty()) {
+            return;
+        }
+
+        List<Integer> finished = null;
+        for (Refinement refinement : mRefinements.values()) {
+            if (!refinement.offer(location)) {
+                continue;
+            }
+            improved.add(refinement);
+            if (refinement.finished) {
+                if (finished == null) {
+                    finished = new ArrayList<>();
+                }
+                finished.add(refinement.id);
+            }
+        }
+
+        if (finished != null) {
+            for (Integer id : finished) {
+                mRefinements.remove(id);
+            }
+        }
+    }
+
+    /**
+     * @return the options covering every refinement, or null if there are none
+     */
+    @Nullable
+    public synchronized LocationOptions getMergedOptions() {
+        if (mRefinements.isEmpty()) {
+            return null;
+        }
+
+        List<LocationOptions> options = new ArrayList<>(mRefinements.size());
+        for (Refinement refinement : mRefinements.values()) {
+            options.add(refinement.options);
+        }
+        return LocationOptions.merge(options);
+    }
+
+    private static float getAccuracy(Location location) {
+        return location.hasAccuracy() ? location.getAccuracy() : Float.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,203 @@
+package com.reactnativecommunity.geolocation;
+
+import android.Manifest;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.location.LocationManager;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Process-wide cache of which location providers are enabled and which location permissions
+ * are granted, so location requests do not ask the system for them on every call. Providers
+ * are read again on {@link LocationManager#PROVIDERS_CHANGED_ACTION}, permissions after every
+ * permission request made through the module.
+ *
+ * A granted permission stays cached, since revoking it restarts the app process. A missing one
+ * is checked on every call until it is granted, as the user may grant it from the system
+ * settings at any time.
+ */
+public final class ProviderState {
+    private static final int GPS = 1;
+    private static final int NETWORK = 1 << 1;
+    private static final int FUSED = 1 << 2;
+    private static final int FINE = 1 << 3;
+    private static final int COARSE = 1 << 4;
+
+    public interface Listener {
+        /**
+         * Called when a provider is enabled or disabled, or a permission is granted.
+         */
+        void onProviderStateChanged(ProviderState state);
+    }
+
+    private static ProviderState sInstance;
+
+    private final Context mContext;
+    private final LocationManager mLocationManager;
+    private volatile int mState;
+    private volatile @Nullable Listener mListener;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            refreshProviders();
+        }
+    };
+
+    private ProviderState(Context context) {
+        mContext = context;
+        mLocationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        // Registered before the first read so no change is missed, and kept for the process
+        IntentFilter filter = new IntentFilter(LocationManager.PROVIDERS_CHANGED_ACTION);
+        filter.addAction(LocationManager.MODE_CHANGED_ACTION);
+        context.registerReceiver(mReceiver, filter);
+        mState = readProviders() | readPermissions();
+    }
+
+    public static synchronized ProviderState getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ProviderState(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Sets the listener notified of changes, replacing the previous one.
+     */
+    public void setListener(@Nullable Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @return whether the provider is enabled, from the cache for the gps, network and fused
+     *         providers
+     */
+    public boolean isProviderEnabled(String provider) {
+        int flag = providerFlag(provider);
+        if (flag == 0) {
+            return mLocationManager.isProviderEnabled(provider);
+        }
+        return (mState & flag) != 0;
+    }
+
+    public boolean hasFinePermission() {
+        return hasPermission(FINE);
+    }
+
+    /**
+     * @return whether coarse location is available, which fine location permission includes
+     */
+    public boolean hasCoarsePermission() {
+        return hasPermission(COARSE);
+    }
+
+    /**
+     * @return whether an enabled provider can be used with the granted permissions
+     */
+    public boolean isLocationAvailable() {
+        return isLocationAvailable(mState);
+    }
+
+    /**
+     * Reads the permissions again, after the user answered a permission request.
+     */
+    public void onPermissionResult() {
+        update(~(FINE | COARSE), readPermissions());
+    }
+
+    public WritableMap toMap() {
+        int state = mState;
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("gps", (state & GPS) != 0);
+        map.putBoolean("network", (state & NETWORK) != 0);
+        map.putBoolean("fused", (state & FUSED) != 0);
+        map.putBoolean("available", isLocationAvailable(state));
+        return map;
+    }
+
+    private boolean hasPermission(int flag) {
+        if ((mState & flag) != 0) {
+            return true;
+        }
+        int permissions = readPermissions();
+        if ((permissions & flag) == 0) {
+            return false;
+        }
+        update(~(FINE | COARSE), permissions);
+        return true;
+    }
+
+    private void refreshProviders() {
+        update(~(GPS | NETWORK | FUSED), readProviders());
+    }
+
+    /**
+     * Replaces the flags outside of {@code keep} and notifies the listener if they changed.
+     */
+    private void update(int keep, int flags) {
+        Listener listener;
+        synchronized (this) {
+            int state = mState & keep | flags;
+            if (state == mState) {
+                return;
+            }
+            mState = state;
+            listener = mListener;
+        }
+        if (listener != null) {
+            listener.onProviderStateChanged(this);
+        }
+    }
+
+    private int readProviders() {
+        int state = 0;
+        if (mLocationManager.isProviderEnabled(LocationManager.GPS_PROVIDER)) {
+            state |= GPS;
+        }
+        if (mLocationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
+            state |= NETWORK;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                && mLocationManager.isProviderEnabled(LocationManager.FUSED_PROVIDER)) {
+            state |= FUSED;
+        }
+        return state;
+    }
+
+    private int readPermissions() {
+        if (ContextCompat.checkSelfPermission(mContext, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            return FINE | COARSE;
+        }
+        if (ContextCompat.checkSelfPermission(mContext, Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            return COARSE;
+        }
+        return 0;
+    }
+
+    private static boolean isLocationAvailable(int state) {
+        return (state & GPS) != 0 && (state & FINE) != 0
+                || (state & (NETWORK | FUSED)) != 0 && (state & COARSE) != 0;
+    }
+
+    private static int providerFlag(String provider) {
+        switch (provider) {
+            case LocationManager.GPS_PROVIDER:
+                return GPS;
+            case LocationManager.NETWORK_PROVIDER:
+                return NETWORK;
+            case LocationManager.FUSED_PROVIDER:
+                return FUSED;
+            default:
+                return 0;
+        }
+    }
+}
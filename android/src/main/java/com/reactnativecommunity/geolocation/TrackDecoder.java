@@ -0,0 +1,135 @@
+package com.reactnativecommunity.geolocation;
+
+import androidx.annotation.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming reader for tracks written by {@link TrackEncoder}. Positions are decoded one at a
+ * time, so tracks of any length can be read with constant memory.
+ */
+public class TrackDecoder {
+    private final @Nullable InputStream mInput;
+    private long mIndex;
+    // Read by TrackEncoder#continueFrom
+    long mLatitude;
+    long mLongitude;
+    long mAltitude;
+    long mTimestamp;
+    // The record being decoded, when it is not read from the stream
+    private @Nullable byte[] mRecord;
+    private int mRecordPosition;
+    private int mRecordLength;
+
+    /**
+     * Creates a decoder for records stored elsewhere, see {@link #decode}.
+     */
+    TrackDecoder() {
+        mInput = null;
+    }
+
+    /**
+     * @throws IOException if the stream does not start with a track header
+     */
+    public TrackDecoder(InputStream input) throws IOException {
+        mInput = input;
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            magic = magic << 8 | readByte();
+        }
+        if (magic != TrackEncoder.MAGIC) {
+            throw new IOException("Not a location track");
+        }
+    }
+
+    /**
+     * Decodes the next position and passes it to the visitor, with its index in the track as
+     * the sequence number.
+     *
+     * @return false at the end of the track
+     */
+    public boolean next(LocationJournal.Visitor visitor) throws IOException {
+        int first = mInput.read();
+        if (first < 0) {
+            return false;
+        }
+
+        decode(first, mIndex++, visitor);
+        return true;
+    }
+
+    /**
+     * Decodes a record of {@code length} bytes as the next position of the track.
+     *
+     * @param visitor receives the position, or null to only move past it
+     * @return what the visitor returned, true without a visitor
+     */
+    boolean decode(byte[] record, int length, long sequence, @Nullable LocationJournal.Visitor visitor) throws IOException {
+        mRecord = record;
+        mRecordPosition = 0;
+        mRecordLength = length;
+        try {
+            return decode(readByte(), sequence, visitor);
+        } finally {
+            mRecord = null;
+        }
+    }
+
+    private boolean decode(int first, long sequence, @Nullable LocationJournal.Visitor visitor) throws IOException {
+        long time = readVarint(first);
+        mTimestamp += unzigzag(time >>> 1);
+        mLatitude += unzigzag(readVarint(readByte()));
+        mLongitude += unzigzag(readVarint(readByte()));
+        mAltitude += unzigzag(readVarint(readByte()));
+        float accuracy = (float) (readVarint(readByte()) / TrackEncoder.ACCURACY_SCALE);
+        float speed = (float) (readVarint(readByte()) / TrackEncoder.SPEED_SCALE);
+        float heading = (float) (readVarint(readByte()) / TrackEncoder.HEADING_SCALE);
+
+        return visitor == null || visitor.visit(
+                sequence,
+                mLatitude / TrackEncoder.COORDINATE_SCALE,
+                mLongitude / TrackEncoder.COORDINATE_SCALE,
+                mAltitude / TrackEncoder.ALTITUDE_SCALE,
+                accuracy,
+                heading,
+                speed,
+                mTimestamp,
+                (time & 1) != 0);
+    }
+
+    private int readByte() throws IOException {
+        if (mRecord != null) {
+            if (mRecordPosition >= mRecordLength) {
+                throw new EOFException("Truncated location record");
+            }
+            return mRecord[mRecordPosition++] & 0xFF;
+        }
+
+        int value = mInput.read();
+        if (value < 0) {
+            throw new EOFException("Truncated location track");
+        }
+        return value;
+    }
+
+    private long readVarint(int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int current = first;
+        while ((current & 0x80) != 0) {
+            if (shift > 63) {
+                throw new IOException("Malformed location track");
+            }
+            current = readByte();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
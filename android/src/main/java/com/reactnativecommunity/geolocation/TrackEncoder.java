@@ -0,0 +1,151 @@
+package com.reactnativecommunity.geolocation;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streaming writer for the compact binary track format read by {@link TrackDecoder}.
+ *
+ * A track starts with a 4 byte magic followed by one variable-length record per position.
+ * Latitude, longitude and altitude are stored as fixed-point deltas to the previous position
+ * and the timestamp as a millisecond delta, all zigzag varints, so a position usually takes
+ * 10-15 bytes instead of 64 in the {@link LocationJournal}. Accuracy, speed and heading are
+ * quantized and stored as absolute values.
+ *
+ * Record layout, all varints:
+ * <ol>
+ *   <li>zigzag(time delta in ms) &lt;&lt; 1 | mocked</li>
+ *   <li>zigzag(latitude delta in 1e-7 degrees)</li>
+ *   <li>zigzag(longitude delta in 1e-7 degrees)</li>
+ *   <li>zigzag(altitude delta in decimeters)</li>
+ *   <li>accuracy in decimeters</li>
+ *   <li>speed in cm/s</li>
+ *   <li>heading in tenths of a degree</li>
+ * </ol>
+ */
+public class TrackEncoder {
+    static final int MAGIC = 0x524e5431; // "RNT1"
+    static final double COORDINATE_SCALE = 1e7;
+    static final double ALTITUDE_SCALE = 10;
+    static final double ACCURACY_SCALE = 10;
+    static final double SPEED_SCALE = 100;
+    static final double HEADING_SCALE = 10;
+
+    static final int MAX_RECORD_SIZE = 7 * 10;
+
+    private final @Nullable OutputStream mOutput;
+    private final byte[] mBuffer = new byte[MAX_RECORD_SIZE];
+    private long mLatitude;
+    private long mLongitude;
+    private long mAltitude;
+    private long mTimestamp;
+
+    /**
+     * Creates an encoder for records stored elsewhere, see {@link #encode}.
+     */
+    TrackEncoder() {
+        mOutput = null;
+    }
+
+    public TrackEncoder(OutputStream output) throws IOException {
+        mOutput = output;
+        mOutput.write(MAGIC >>> 24);
+        mOutput.write(MAGIC >>> 16);
+        mOutput.write(MAGIC >>> 8);
+        mOutput.write(MAGIC);
+    }
+
+    public void write(
+            double latitude,
+            double longitude,
+            double altitude,
+            double accuracy,
+            double heading,
+            double speed,
+            long timestamp,
+            boolean mocked) throws IOException {
+        int length = encode(mBuffer, latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked);
+        mOutput.write(mBuffer, 0, length);
+    }
+
+    /**
+     * Encodes the next position of the track into {@code buffer}, which needs room for
+     * {@link #MAX_RECORD_SIZE} bytes.
+     *
+     * @return the size of the record
+     */
+    int encode(
+            byte[] buffer,
+            double latitude,
+            double longitude,
+            double altitude,
+            double accuracy,
+            double heading,
+            double speed,
+            long timestamp,
+            boolean mocked) {
+        long fixedLatitude = Math.round(latitude * COORDINATE_SCALE);
+        long fixedLongitude = Math.round(longitude * COORDINATE_SCALE);
+        long fixedAltitude = Math.round(altitude * ALTITUDE_SCALE);
+
+        int position = putVarint(buffer, 0, zigzag(timestamp - mTimestamp) << 1 | (mocked ? 1 : 0));
+        position = putVarint(buffer, position, zigzag(fixedLatitude - mLatitude));
+        position = putVarint(buffer, position, zigzag(fixedLongitude - mLongitude));
+        position = putVarint(buffer, position, zigzag(fixedAltitude - mAltitude));
+        position = putVarint(buffer, position, quantize(accuracy, ACCURACY_SCALE));
+        position = putVarint(buffer, position, quantize(speed, SPEED_SCALE));
+        position = putVarint(buffer, position, quantize(heading, HEADING_SCALE));
+
+        mLatitude = fixedLatitude;
+        mLongitude = fixedLongitude;
+        mAltitude = fixedAltitude;
+        mTimestamp = timestamp;
+        return position;
+    }
+
+    /**
+     * Starts the deltas over, as at the beginning of a track.
+     */
+    void reset() {
+        mLatitude = 0;
+        mLongitude = 0;
+        mAltitude = 0;
+        mTimestamp = 0;
+    }
+
+    /**
+     * Continues a track after the last position the decoder read from it.
+     */
+    void continueFrom(TrackDecoder decoder) {
+        mLatitude = decoder.mLatitude;
+        mLongitude = decoder.mLongitude;
+        mAltitude = decoder.mAltitude;
+        mTimestamp = decoder.mTimestamp;
+    }
+
+    public void flush() throws IOException {
+        mOutput.flush();
+    }
+
+    private static int putVarint(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Negative values mean "unknown" for the quantized fields and are stored as 0.
+     */
+    private static long quantize(double value, double scale) {
+        return value > 0 ? Math.round(value * scale) : 0;
+    }
+}
@@ -0,0 +1,192 @@
+package com.reactnativecommunity.geolocation;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Writes positions to a stream as they are visited, in one of the export formats: the binary
+ * track of {@link TrackEncoder}, a GeoJSON {@code FeatureCollection} of points, or a GPX track.
+ * Nothing is buffered beyond the underlying stream, so tracks of any length can be exported.
+ */
+public abstract class TrackWriter implements LocationJournal.Visitor, Closeable {
+    public static final String FORMAT_TRACK = "track";
+    public static final String FORMAT_GEOJSON = "geojson";
+    public static final String FORMAT_GPX = "gpx";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private long mCount;
+    private @Nullable IOException mError;
+
+    /**
+     * @return null if the format is not supported
+     */
+    @Nullable
+    public static TrackWriter create(String format, OutputStream output) throws IOException {
+        switch (format) {
+            case FORMAT_TRACK:
+                return new BinaryTrackWriter(output);
+            case FORMAT_GEOJSON:
+                return new GeoJsonTrackWriter(output);
+            case FORMAT_GPX:
+                return new GpxTrackWriter(output);
+            default:
+                return null;
+        }
+    }
+
+    public static String getExtension(String format) {
+        return FORMAT_TRACK.equals(format) ? "rnt" : format;
+    }
+
+    @Override
+    public boolean visit(
+            long sequence,
+            double latitude,
+            double longitude,
+            double altitude,
+            float accuracy,
+            float heading,
+            float speed,
+            long timestamp,
+            boolean mocked) {
+        try {
+            write(latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked);
+        } catch (IOException e) {
+            mError = e;
+            return false;
+        }
+        mCount++;
+        return true;
+    }
+
+    /**
+     * @return the number of positions written so far
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Rethrows the first error raised while visiting positions.
+     */
+    public void checkError() throws IOException {
+        if (mError != null) {
+            throw mError;
+        }
+    }
+
+    protected abstract void write(
+            double latitude,
+            double longitude,
+            double altitude,
+            float accuracy,
+            float heading,
+            float speed,
+            long timestamp,
+            boolean mocked) throws IOException;
+
+    private static class BinaryTrackWriter extends TrackWriter {
+        private final OutputStream mOutput;
+        private final TrackEncoder mEncoder;
+
+        BinaryTrackWriter(OutputStream output) throws IOException {
+            mOutput = output;
+            mEncoder = new TrackEncoder(output);
+        }
+
+        @Override
+        protected void write(double latitude, double longitude, double altitude, float accuracy, float heading, float speed, long timestamp, boolean mocked) throws IOException {
+            mEncoder.write(latitude, longitude, altitude, accuracy, heading, speed, timestamp, mocked);
+        }
+
+        @Override
+        public void close() throws IOException {
+            mOutput.close();
+        }
+    }
+
+    private static class GeoJsonTrackWriter extends TrackWriter {
+        private final Writer mWriter;
+
+        GeoJsonTrackWriter(OutputStream output) throws IOException {
+            mWriter = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+            mWriter.write("{\"type\":\"FeatureCollection\",\"features\":[");
+        }
+
+        @Override
+        protected void write(double latitude, double longitude, double altitude, float accuracy, float heading, float speed, long timestamp, boolean mocked) throws IOException {
+            if (getCount() > 0) {
+                mWriter.write(',');
+            }
+            mWriter.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+            mWriter.write(Double.toString(longitude));
+            mWriter.write(',');
+            mWriter.write(Double.toString(latitude));
+            mWriter.write(',');
+            mWriter.write(Double.toString(altitude));
+            mWriter.write("]},\"properties\":{\"timestamp\":");
+            mWriter.write(Long.toString(timestamp));
+            mWriter.write(",\"accuracy\":");
+            mWriter.write(Float.toString(accuracy));
+            mWriter.write(",\"heading\":");
+            mWriter.write(Float.toString(heading));
+            mWriter.write(",\"speed\":");
+            mWriter.write(Float.toString(speed));
+            mWriter.write(",\"mocked\":");
+            mWriter.write(mocked ? "true" : "false");
+            mWriter.write("}}");
+        }
+
+        @Override
+        public void close() throws IOException {
+            mWriter.write("]}");
+            mWriter.close();
+        }
+    }
+
+    private static class GpxTrackWriter extends TrackWriter {
+        private final Writer mWriter;
+        private final SimpleDateFormat mTimeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        private final Date mDate = new Date();
+
+        GpxTrackWriter(OutputStream output) throws IOException {
+            mTimeFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+            mWriter = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+            mWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            mWriter.write("<gpx version=\"1.1\" creator=\"react-native-geolocation\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n");
+            mWriter.write("<trk><trkseg>\n");
+        }
+
+        @Override
+        protected void write(double latitude, double longitude, double altitude, float accuracy, float heading, float speed, long timestamp, boolean mocked) throws IOException {
+            mDate.setTime(timestamp);
+            mWriter.write("<trkpt lat=\"");
+            mWriter.write(Double.toString(latitude));
+            mWriter.write("\" lon=\"");
+            mWriter.write(Double.toString(longitude));
+            mWriter.write("\"><ele>");
+            mWriter.write(Double.toString(altitude));
+            mWriter.write("</ele><time>");
+            mWriter.write(mTimeFormat.format(mDate));
+            mWriter.write("</time></trkpt>\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            mWriter.write("</trkseg></trk>\n</gpx>\n");
+            mWriter.close();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.reactnativecommunity.geolocation;
+
+import android.location.Location;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the options of every active {@code watchPosition} call. The provider is asked for the
+ * most demanding combination of all watches (see {@link #getMergedOptions()}), and every
+ * incoming location is then matched against each watch's own interval and distance filter, so
+ * watches only receive the locations they asked for.
+ *
+ * Each watch owns one bit of a {@code long} mask, which is how matched watches are recorded
+ * without allocating. This limits the number of simultaneous watches to 64.
+ *
+ * Watches with a {@code simplifyTolerance} additionally drop the locations that add no shape
+ * to their track, see {@link #addsShape}, and watches with {@code cellChangesOnly} only receive
+ * locations in a different geohash cell than the last one delivered to them.
+ */
+public class WatchRegistry {
+    private static final String TAG = "WatchRegistry";
+    /**
+     * Id used for observers started without a watch id. Locations delivered only to this watch
+     * are emitted without {@code watchIds}.
+     */
+    public static final int DEFAULT_WATCH_ID = -1;
+    private static final int MAX_WATCHES = 64;
+    private static final double METERS_PER_DEGREE = 111319.49;
+
+    private final Map<Integer, Watch> mWatches = new LinkedHashMap<>();
+    private final Watch[] mSlots = new Watch[MAX_WATCHES];
+    private final float[] mDistance = new float[1];
+
+    private static class Watch {
+        final int id;
+        final int slot;
+        final LocationOptions options;
+        final long minInterval;
+        boolean hasLastLocation;
+        double lastLatitude;
+        double lastLongitude;
+        long lastElapsedTime;
+        boolean hasSleeve;
+        double sleeveCenter;
+        double sleeveHalfWidth;
+        long lastCell;
+
+        Watch(int id, int slot, LocationOptions options) {
+            this.id = id;
+            this.slot = slot;
+            this.options = options;
+            // Fixes may arrive slightly early, accept them within 10% of the interval
+            this.minInterval = options.explicitInterval ? options.interval - options.interval / 10 : 0;
+        }
+    }
+
+    /**
+     * Adds a watch, or replaces the options of an existing one.
+     *
+     * @return false if there are already too many watches
+     */
+    public synchronized boolean add(int watchId, LocationOptions options) {
+        Watch existing = mWatches.get(watchId);
+        int slot = existing != null ? existing.slot : freeSlot();
+        if (slot < 0) {
+            Log.w(TAG, "Too many watches, ignoring watch " + watchId);
+            return false;
+        }
+
+        Watch watch = new Watch(watchId, slot, options);
+        mWatches.put(watchId, watch);
+        mSlots[slot] = watch;
+        return true;
+    }
+
+    /**
+     * @return whether a watch with the given id was registered
+     */
+    public synchronized boolean remove(int watchId) {
+        Watch watch = mWatches.remove(watchId);
+        if (watch == null) {
+            return false;
+        }
+        mSlots[watch.slot] = null;
+        return true;
+    }
+
+    public synchronized void clear() {
+        mWatches.clear();
+        for (int i = 0; i < MAX_WATCHES; i++) {
+            mSlots[i] = null;
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return mWatches.isEmpty();
+    }
+
+    /**
+     * Takes over the watches of another registry, with what they were last delivered, and
+     * clears it. Used when the location manager is swapped.
+     */
+    public synchronized void moveFrom(WatchRegistry other) {
+        synchronized (other) {
+            clear();
+            mWatches.putAll(other.mWatches);
+            System.arraycopy(other.mSlots, 0, mSlots, 0, MAX_WATCHES);
+            other.clear();
+        }
+    }
+
+    /**
+     * @return the options to request from the provider, or null if there are no watches
+     */
+    @Nullable
+    public synchronized LocationOptions getMergedOptions() {
+        if (mWatches.isEmpty()) {
+            return null;
+        }
+
+        List<LocationOptions> options = new ArrayList<>(mWatches.size());
+        for (Watch watch : mWatches.values()) {
+            options.add(watch.options);
+        }
+        return LocationOptions.merge(options);
+    }
+
+    /**
+     * Returns the mask of watches that should receive the given location, and records it as
+     * their last delivered location.
+     */
+    public synchronized long match(double latitude, double longitude, long elapsedRealtimeNanos) {
+        long elapsedTime = elapsedRealtimeNanos / 1000000;
+        long mask = 0;
+        for (Watch watch : mWatches.values()) {
+            long cell = watch.options.cellChangesOnly ?
+                    Geohash.encodeCell(latitude, longitude, watch.options.geohashPrecision) :
+                    0;
+            if (watch.hasLastLocation) {
+                if (elapsedTime - watch.lastElapsedTime < watch.minInterval) {
+                    continue;
+                }
+
+                if (watch.options.distanceFilter > 0) {
+                    Location.distanceBetween(
+                            watch.lastLatitude,
+                            watch.lastLongitude,
+                            latitude,
+                            longitude,
+                            mDistance);
+                    if (mDistance[0] < watch.options.distanceFilter) {
+                        continue;
+                    }
+                }
+
+                if (watch.options.cellChangesOnly && cell == watch.lastCell) {
+                    continue;
+                }
+
+                if (watch.options.simplifyTolerance > 0 && !addsShape(watch, latitude, longitude)) {
+                    continue;
+                }
+            }
+
+            watch.hasLastLocation = true;
+            watch.lastLatitude = latitude;
+            watch.lastLongitude = longitude;
+            watch.lastElapsedTime = elapsedTime;
+            watch.lastCell = cell;
+            mask |= 1L << watch.slot;
+        }
+        return mask;
+    }
+
+    /**
+     * Streaming simplification by dead reckoning from the last delivered location: as long as
+     * some straight line from it passes within {@code simplifyTolerance} meters of every location
+     * seen since, those locations add no shape to the track and are dropped. The directions of
+     * such lines form a sleeve, which every location further away than the tolerance narrows. A
+     * location outside the sleeve is delivered and starts a new one. Because locations are
+     * sampled closely, the polyline through the delivered locations stays within about one
+     * sampling step of the full track.
+     *
+     * @return whether the location should be delivered to the watch
+     */
+    private static boolean addsShape(Watch watch, double latitude, double longitude) {
+        float tolerance = watch.options.simplifyTolerance;
+        double north = (latitude - watch.lastLatitude) * METERS_PER_DEGREE;
+        double longitudeDelta = Math.toDegrees(normalizeAngle(Math.toRadians(longitude - watch.lastLongitude)));
+        double east = longitudeDelta * METERS_PER_DEGREE * Math.cos(Math.toRadians(watch.lastLatitude));
+        double distance = Math.sqrt(north * north + east * east);
+        if (distance <= tolerance) {
+            return false;
+        }
+
+        double direction = Math.atan2(east, north);
+        double halfWidth = Math.asin(tolerance / distance);
+        if (!watch.hasSleeve) {
+            watch.hasSleeve = true;
+            watch.sleeveCenter = direction;
+            watch.sleeveHalfWidth = halfWidth;
+            return false;
+        }
+
+        // Intersect both sleeves, relative to the current center
+        double offset = normalizeAngle(direction - watch.sleeveCenter);
+        double low = Math.max(-watch.sleeveHalfWidth, offset - halfWidth);
+        double high = Math.min(watch.sleeveHalfWidth, offset + halfWidth);
+        if (low > high) {
+            watch.hasSleeve = false;
+            return true;
+        }
+        watch.sleeveCenter = normalizeAngle(watch.sleeveCenter + (low + high) / 2);
+        watch.sleeveHalfWidth = (high - low) / 2;
+        return false;
+    }
+
+    /**
+     * @return the angle in radians, wrapped to [-pi, pi)
+     */
+    private static double normalizeAngle(double angle) {
+        return angle - 2 * Math.PI * Math.floor((angle + Math.PI) / (2 * Math.PI));
+    }
+
+    /**
+     * @return the ids of the watches in the given mask, or null if the mask only holds the
+     *         default watch
+     */
+    @Nullable
+    public synchronized WritableArray getWatchIds(long mask) {
+        WritableArray ids = null;
+        for (int slot = 0; slot < MAX_WATCHES; slot++) {
+            Watch watch = mSlots[slot];
+            if ((mask & (1L << slot)) == 0 || watch == null || watch.id == DEFAULT_WATCH_ID) {
+                continue;
+            }
+            if (ids == null) {
+                ids = Arguments.createArray();
+            }
+            ids.pushInt(watch.id);
+        }
+        return ids;
+    }
+
+    private int freeSlot() {
+        for (int slot = 0; slot < MAX_WATCHES; slot++) {
+            if (mSlots[slot] == null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
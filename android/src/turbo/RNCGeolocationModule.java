@@ -1,11 +1,14 @@
 package com.reactnativecommunity.geolocation;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 
 public class RNCGeolocationModule extends NativeRNCGeolocationSpec {
     public static final String NAME = GeolocationModule.NAME;
@@ -46,12 +49,85 @@ public class RNCGeolocationModule extends NativeRNCGeolocationSpec {
       mImpl.startObserving(options);
     }
 
+    @Override
+    @ReactMethod
+    public void clearWatch(double watchId) {
+      mImpl.clearWatch((int) watchId);
+    }
+
+    @Override
+    @ReactMethod
+    public void startRefinement(double id, ReadableMap options) {
+      mImpl.startRefinement((int) id, options);
+    }
+
+    @Override
+    @ReactMethod
+    public void stopRefinement(double id) {
+      mImpl.stopRefinement((int) id);
+    }
+
     @Override
     @ReactMethod
     public void stopObserving() {
       mImpl.stopObserving();
     }
 
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    @Nullable
+    public WritableMap getLastKnownPosition() {
+      return mImpl.getLastKnownPosition();
+    }
+
+    @Override
+    @ReactMethod
+    public void addGeofences(ReadableArray fences, ReadableMap options) {
+      mImpl.addGeofences(fences, options);
+    }
+
+    @Override
+    @ReactMethod
+    public void removeGeofences(ReadableArray ids) {
+      mImpl.removeGeofences(ids);
+    }
+
+    @Override
+    @ReactMethod
+    public void clearGeofences() {
+      mImpl.clearGeofences();
+    }
+
+    @Override
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getMetrics() {
+      return mImpl.getMetrics();
+    }
+
+    @Override
+    @ReactMethod
+    public void resetMetrics() {
+      mImpl.resetMetrics();
+    }
+
+    @Override
+    @ReactMethod
+    public void readLocationJournal(
+        final ReadableMap options,
+        final Callback success,
+        final Callback error) {
+          mImpl.readLocationJournal(options, success, error);
+    }
+
+    @Override
+    @ReactMethod
+    public void exportLocationTrack(
+        final ReadableMap options,
+        final Callback success,
+        final Callback error) {
+          mImpl.exportLocationTrack(options, success, error);
+    }
+
     @Override
     public void addListener(String eventName) {
         // Keep: Required for RN RCTEventEmitter class (iOS).
@@ -167,7 +167,7 @@ RCT_EXPORT_MODULE()
 
 - (NSArray<NSString *> *)supportedEvents
 {
-  return @[@"geolocationDidChange", @"geolocationError"];
+  return @[@"geolocationDidChange", @"geolocationDidChangeBatch", @"geolocationError", @"geolocationGeofenceTransition", @"geolocationProviderChange"];
 }
 
 #pragma mark - Private API
@@ -325,6 +325,11 @@ RCT_REMAP_METHOD(startObserving, startObserving:(RNCGeolocationOptions)options)
   _observingLocation = YES;
 }
 
+RCT_REMAP_METHOD(clearWatch, clearWatch:(double)watchId)
+{
+  // Watches share a single observer on iOS, JS stops observing once the last watch is cleared
+}
+
 RCT_REMAP_METHOD(stopObserving, stopObserving)
 {
   // Stop observing
@@ -336,6 +341,69 @@ RCT_REMAP_METHOD(stopObserving, stopObserving)
   }
 }
 
+RCT_REMAP_METHOD(startRefinement, startRefinement:(double)refinementId
+                  options:(NSDictionary *)options)
+{
+  // Refinements run on Android only, JS reports the current position as final instead
+}
+
+RCT_REMAP_METHOD(stopRefinement, stopRefinement:(double)refinementId)
+{
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getLastKnownPosition)
+{
+  NSDictionary<NSString *, id> *lastLocationEvent = _lastLocationEvent;
+  if (!lastLocationEvent) {
+    return nil;
+  }
+
+  double age = [NSDate date].timeIntervalSince1970 * 1000 - [lastLocationEvent[@"timestamp"] doubleValue];
+  return @{
+           @"position": lastLocationEvent,
+           @"age": @(MAX(age, 0)),
+           };
+}
+
+RCT_EXPORT_BLOCKING_SYNCHRONOUS_METHOD(getMetrics)
+{
+  // Runtime metrics are collected by the Android module only
+  return nil;
+}
+
+RCT_REMAP_METHOD(resetMetrics, resetMetrics)
+{
+}
+
+RCT_REMAP_METHOD(readLocationJournal, readLocationJournal:(NSDictionary *)options
+                  success:(RCTResponseSenderBlock)successBlock
+                  error:(RCTResponseSenderBlock)errorBlock)
+{
+  // The location journal is written by the Android background location service
+  errorBlock(@[RNCPositionError(RNCPositionErrorUnavailable, @"The location journal is only available on Android")]);
+}
+
+RCT_REMAP_METHOD(exportLocationTrack, exportLocationTrack:(NSDictionary *)options
+                  success:(RCTResponseSenderBlock)successBlock
+                  error:(RCTResponseSenderBlock)errorBlock)
+{
+  errorBlock(@[RNCPositionError(RNCPositionErrorUnavailable, @"The location journal is only available on Android")]);
+}
+
+RCT_REMAP_METHOD(addGeofences, addGeofences:(NSArray *)fences
+                  options:(RNCGeolocationOptions)options)
+{
+  // Geofences are evaluated natively on Android only
+}
+
+RCT_REMAP_METHOD(removeGeofences, removeGeofences:(NSArray *)ids)
+{
+}
+
+RCT_REMAP_METHOD(clearGeofences, clearGeofences)
+{
+}
+
 RCT_REMAP_METHOD(getCurrentPosition, getCurrentPosition:(RNCGeolocationOptions)options
                   position:(RCTResponseSenderBlock)successBlock
                   error:(RCTResponseSenderBlock)errorBlock)
@@ -13,13 +13,24 @@ import { NativeModules } from 'react-native';
 
 // Mock the RNCGeolocation native module to allow us to unit test the JavaScript code
 NativeModules.RNCGeolocation = {
+  addGeofences: jest.fn(),
   addListener: jest.fn(),
+  clearGeofences: jest.fn(),
+  clearWatch: jest.fn(),
+  exportLocationTrack: jest.fn(),
   getCurrentPosition: jest.fn(),
+  getLastKnownPosition: jest.fn(),
+  getMetrics: jest.fn(),
+  readLocationJournal: jest.fn(),
+  removeGeofences: jest.fn(),
   removeListeners: jest.fn(),
   requestAuthorization: jest.fn(),
+  resetMetrics: jest.fn(),
   setConfiguration: jest.fn(),
   startObserving: jest.fn(),
+  startRefinement: jest.fn(),
   stopObserving: jest.fn(),
+  stopRefinement: jest.fn(),
 };
 
 // Reset the mocks before each test
@@ -1,11 +1,30 @@
 import type { TurboModule } from 'react-native';
 import { TurboModuleRegistry } from 'react-native';
 
+export type PipelineStage = {
+  type: string;
+  maxAccuracy?: number;
+  maxSpeed?: number;
+  decimals?: number;
+  count?: number;
+  tag?: string;
+  // Options of the stages an app registers natively
+  options?: Object;
+};
+
 export type GeolocationConfiguration = {
   skipPermissionRequests: boolean;
   authorizationLevel?: 'always' | 'whenInUse' | 'auto';
   locationProvider?: 'playServices' | 'android' | 'auto';
   enableBackgroundLocationUpdates?: boolean;
+  enableLocationJournal?: boolean;
+  enablePositionSmoothing?: boolean;
+  includeRawCoordinates?: boolean;
+  enableLocationThread?: boolean;
+  enableWarmStart?: boolean;
+  eventQueuePolicy?: 'none' | 'latestWins' | 'dropOldest' | 'batch';
+  eventQueueSize?: number;
+  pipeline?: PipelineStage[];
 };
 
 export type GeolocationOptions = {
@@ -16,6 +35,15 @@ export type GeolocationOptions = {
   useSignificantChanges?: boolean;
   interval?: number;
   fastestInterval?: number;
+  batchSize?: number;
+  batchMaxAge?: number;
+  compact?: boolean;
+  simplifyTolerance?: number;
+  maxInterval?: number;
+  geohashPrecision?: number;
+  cellChangesOnly?: boolean;
+  raceProviders?: boolean;
+  desiredAccuracy?: number;
 };
 
 export type GeolocationResponse = {
@@ -28,9 +56,105 @@ export type GeolocationResponse = {
     heading: number | null;
     speed: number | null;
   };
+  rawCoords?: {
+    latitude: number;
+    longitude: number;
+    accuracy: number;
+  };
+  geohash?: string;
   timestamp: number;
 };
 
+export type LastKnownPosition = {
+  position: GeolocationResponse;
+  // Milliseconds since the position was received
+  age: number;
+};
+
+// Latencies in milliseconds; percentiles are rounded up to histogram buckets
+export type LatencyMetrics = {
+  count: number;
+  mean: number;
+  max: number;
+  p50: number;
+  p90: number;
+  p99: number;
+};
+
+export type GeolocationMetrics = {
+  // Milliseconds since the metrics were last reset
+  uptime: number;
+  fixesReceived: number;
+  fixesEmitted: number;
+  eventsEmitted: number;
+  eventsPerSecond: number;
+  eventsDropped: number;
+  eventsCoalesced: number;
+  eventsBatched: number;
+  pipelineFiltered: number;
+  pipelineDropped: number;
+  timeouts: number;
+  timeToFirstFix: {
+    gps: LatencyMetrics;
+    network: LatencyMetrics;
+    fused: LatencyMetrics;
+    other: LatencyMetrics;
+  };
+  currentPositionLatency: LatencyMetrics;
+  serviceStart: LatencyMetrics;
+  serviceStop: LatencyMetrics;
+};
+
+export type LocationJournalOptions = {
+  cursor?: number;
+  limit?: number;
+  compact?: boolean;
+};
+
+export type LocationJournalResult = {
+  positions: GeolocationResponse[];
+  cursor: number;
+};
+
+export type LocationTrackExportOptions = {
+  format?: string;
+  cursor?: number;
+  input?: string;
+  path?: string;
+};
+
+export type LocationTrackExportResult = {
+  path: string;
+  count: number;
+  cursor?: number;
+};
+
+// Either a circle around latitude/longitude or a polygon of alternating
+// latitudes and longitudes
+export type Geofence = {
+  id: string;
+  latitude?: number;
+  longitude?: number;
+  radius?: number;
+  polygon?: number[];
+  dwellTime?: number;
+};
+
+export type GeofenceTransitionEvent = {
+  transitions: {
+    id: string;
+    transition: string;
+  }[];
+  position: GeolocationResponse;
+};
+
+export type ProviderChangeEvent = {
+  gps: boolean;
+  network: boolean;
+  fused: boolean;
+  available: boolean;
+};
+
 export type GeolocationError = {
   code: number;
   message: string;
@@ -44,6 +168,14 @@ export interface Spec extends TurboModule {
     skipPermissionRequests: boolean;
     authorizationLevel?: string;
     enableBackgroundLocationUpdates?: string;
+    enableLocationJournal?: boolean;
+    enablePositionSmoothing?: boolean;
+    includeRawCoordinates?: boolean;
+    enableLocationThread?: boolean;
+    enableWarmStart?: boolean;
+    eventQueuePolicy?: string;
+    eventQueueSize?: number;
+    pipeline?: PipelineStage[];
   }): void;
   requestAuthorization(
     success: () => void,
@@ -54,8 +186,28 @@ export interface Spec extends TurboModule {
     position: (position: GeolocationResponse) => void,
     error: (error: GeolocationError) => void
   ): void;
+  // On Android, options may also carry the `watchId` the observer is registered under
   startObserving(options: GeolocationOptions): void;
+  clearWatch(watchId: number): void;
   stopObserving(): void;
+  startRefinement(refinementId: number, options: GeolocationOptions): void;
+  stopRefinement(refinementId: number): void;
+  getLastKnownPosition(): LastKnownPosition | null;
+  getMetrics(): GeolocationMetrics | null;
+  resetMetrics(): void;
+  readLocationJournal(
+    options: LocationJournalOptions,
+    success: (result: LocationJournalResult) => void,
+    error: (error: GeolocationError) => void
+  ): void;
+  exportLocationTrack(
+    options: LocationTrackExportOptions,
+    success: (result: LocationTrackExportResult) => void,
+    error: (error: GeolocationError) => void
+  ): void;
+  addGeofences(fences: Geofence[], options: GeolocationOptions): void;
+  removeGeofences(ids: string[]): void;
+  clearGeofences(): void;
 
   // RCTEventEmitter
   addListener: (eventName: string) => void;
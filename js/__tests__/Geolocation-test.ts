@@ -7,7 +7,7 @@
  * @format
  */
 
-import { NativeModules } from 'react-native';
+import { DeviceEventEmitter, NativeModules, Platform } from 'react-native';
 import Geolocation from '../';
 
 jest.mock('../utils', () => {
@@ -48,6 +48,69 @@ describe('react-native-geolocation', () => {
     ).toBe(callback);
   });
 
+  it('should decode compact positions before passing them to the callback', () => {
+    const callback = jest.fn();
+    Geolocation.getCurrentPosition(callback, undefined, { compact: true });
+    NativeModules.RNCGeolocation.getCurrentPosition.mock.calls[0][1]([
+      52.1, 21.2, 100, 5, 90, 1.5, 1700000000000, 0,
+    ]);
+    expect(callback.mock.calls[0][0]).toEqual({
+      coords: {
+        latitude: 52.1,
+        longitude: 21.2,
+        altitude: 100,
+        accuracy: 5,
+        altitudeAccuracy: null,
+        heading: 90,
+        speed: 1.5,
+      },
+      timestamp: 1700000000000,
+      mocked: false,
+    });
+  });
+
+  it('should decode the geohash of compact positions', () => {
+    const callback = jest.fn();
+    Geolocation.getCurrentPosition(callback, undefined, {
+      compact: true,
+      geohashPrecision: 7,
+    });
+    NativeModules.RNCGeolocation.getCurrentPosition.mock.calls[0][1]([
+      52.1, 21.2, 100, 5, 90, 1.5, 1700000000000, 1, 'u3qcnhz',
+    ]);
+    expect(callback.mock.calls[0][0].geohash).toEqual('u3qcnhz');
+    expect(callback.mock.calls[0][0].mocked).toBe(true);
+  });
+
+  it('should not pass the native routing fields to watch callbacks', () => {
+    const callback = jest.fn();
+    const watchID = Geolocation.watchPosition(callback);
+    const position = {
+      coords: { latitude: 1, longitude: 2, accuracy: 3 },
+      rawCoords: { latitude: 1.1, longitude: 2.1, accuracy: 4 },
+      timestamp: 5,
+    };
+    DeviceEventEmitter.emit('geolocationDidChange', {
+      ...position,
+      watchIds: [watchID],
+    });
+    expect(callback.mock.calls[0][0]).toEqual({
+      coords: position.coords,
+      timestamp: 5,
+    });
+
+    Geolocation.setRNConfiguration({
+      skipPermissionRequests: false,
+      includeRawCoordinates: true,
+    });
+    DeviceEventEmitter.emit('geolocationDidChange', {
+      ...position,
+      watchIds: [watchID],
+    });
+    expect(callback.mock.calls[1][0]).toEqual(position);
+    Geolocation.setRNConfiguration({ skipPermissionRequests: false });
+  });
+
   it('should add a success listener to the geolocation', () => {
     const watchID = Geolocation.watchPosition(() => {});
     expect(watchID).toEqual(1000);
@@ -67,6 +130,27 @@ describe('react-native-geolocation', () => {
     );
   });
 
+  it('should add a batch listener when batching is requested', () => {
+    Geolocation.watchPosition(() => {}, undefined, { batchSize: 10 });
+    // Without an error callback errors are still logged
+    expect(
+      NativeModules.RNCGeolocation.addListener.mock.calls.map(
+        ([eventName]: [string]) => eventName
+      )
+    ).toEqual([
+      'geolocationDidChange',
+      'geolocationError',
+      'geolocationDidChangeBatch',
+    ]);
+  });
+
+  it('should not reuse the watchID of an active watch', () => {
+    const firstWatchID = Geolocation.watchPosition(() => {});
+    const secondWatchID = Geolocation.watchPosition(() => {});
+    Geolocation.clearWatch(firstWatchID);
+    expect(Geolocation.watchPosition(() => {})).not.toEqual(secondWatchID);
+  });
+
   it('should clear the listeners associated with a watchID', () => {
     const watchID = Geolocation.watchPosition(
       () => {},
@@ -120,4 +204,389 @@ describe('react-native-geolocation', () => {
     );
     expect(mockWarningCallback.mock.calls.length).toBeGreaterThanOrEqual(1);
   });
+
+  it('should read the location journal from the given cursor', () => {
+    const callback = () => {};
+    Geolocation.readLocationJournal(callback, undefined, { cursor: 42 });
+    expect(
+      NativeModules.RNCGeolocation.readLocationJournal.mock.calls[0][0]
+    ).toEqual({ cursor: 42 });
+    expect(
+      NativeModules.RNCGeolocation.readLocationJournal.mock.calls[0][1]
+    ).toBe(callback);
+  });
+
+  it('should pass the export options to the native module', () => {
+    const callback = () => {};
+    Geolocation.exportLocationTrack(callback, undefined, { format: 'gpx' });
+    expect(
+      NativeModules.RNCGeolocation.exportLocationTrack.mock.calls[0][0]
+    ).toEqual({ format: 'gpx' });
+    expect(
+      NativeModules.RNCGeolocation.exportLocationTrack.mock.calls[0][1]
+    ).toBe(callback);
+  });
+
+  it('should pass geofences and their options to the native module', () => {
+    const fences = [{ id: 'home', latitude: 1, longitude: 2, radius: 100 }];
+    Geolocation.addGeofences(fences, { interval: 5000 });
+    expect(NativeModules.RNCGeolocation.addGeofences.mock.calls[0][0]).toBe(
+      fences
+    );
+    expect(
+      NativeModules.RNCGeolocation.addGeofences.mock.calls[0][1]
+    ).toEqual({ interval: 5000 });
+  });
+
+  it('should pass the geohash options to the native module', () => {
+    Geolocation.watchPosition(() => {}, undefined, {
+      geohashPrecision: 7,
+      cellChangesOnly: true,
+    });
+    expect(
+      NativeModules.RNCGeolocation.startObserving.mock.calls[0][0]
+    ).toEqual({ geohashPrecision: 7, cellChangesOnly: true });
+  });
+
+  it('should return the last known position synchronously', () => {
+    const lastKnownPosition = {
+      position: {
+        coords: {
+          latitude: 52.1,
+          longitude: 21.2,
+          altitude: 100,
+          accuracy: 5,
+          altitudeAccuracy: null,
+          heading: 90,
+          speed: 1.5,
+        },
+        timestamp: 1700000000000,
+      },
+      age: 1500,
+    };
+    NativeModules.RNCGeolocation.getLastKnownPosition.mockReturnValue(
+      lastKnownPosition
+    );
+    expect(Geolocation.getLastKnownPosition()).toBe(lastKnownPosition);
+  });
+
+  it('should report the current position as final where refinement is not native', () => {
+    const success = jest.fn();
+    const position = { coords: { latitude: 52.1, longitude: 21.2 } };
+    Geolocation.refinePosition(success);
+    NativeModules.RNCGeolocation.getCurrentPosition.mock.calls[0][1](position);
+    expect(success).toHaveBeenCalledWith(position, true);
+    expect(NativeModules.RNCGeolocation.startRefinement).not.toHaveBeenCalled();
+  });
+
+  it('should listen to provider changes', () => {
+    const listener = jest.fn();
+    const subscription = Geolocation.addProviderChangeListener(listener);
+    expect(NativeModules.RNCGeolocation.addListener.mock.calls[0][0]).toBe(
+      'geolocationProviderChange'
+    );
+    subscription.remove();
+  });
+
+  it('should pass the event queue policy to the native module', () => {
+    Geolocation.setRNConfiguration({
+      skipPermissionRequests: false,
+      eventQueuePolicy: 'latestWins',
+      eventQueueSize: 4,
+    });
+    expect(
+      NativeModules.RNCGeolocation.setConfiguration.mock.calls[0][0]
+    ).toMatchObject({ eventQueuePolicy: 'latestWins', eventQueueSize: 4 });
+  });
+
+  it('should pass the pipeline stages to the native module', () => {
+    const pipeline = [
+      { type: 'accuracyFilter', maxAccuracy: 20 },
+      { type: 'average', count: 3 },
+    ];
+    Geolocation.setRNConfiguration({ skipPermissionRequests: false, pipeline });
+    expect(
+      NativeModules.RNCGeolocation.setConfiguration.mock.calls[0][0].pipeline
+    ).toEqual(pipeline);
+  });
+
+  it('should read and reset the native metrics', () => {
+    expect(Geolocation.getMetrics()).toBeNull();
+    Geolocation.resetMetrics();
+    expect(NativeModules.RNCGeolocation.resetMetrics).toHaveBeenCalledTimes(1);
+  });
+
+  describe('on Android', () => {
+    const OS = Platform.OS;
+    const coords = { latitude: 1, longitude: 2, accuracy: 3 };
+
+    beforeEach(() => {
+      (Platform as { OS: string }).OS = 'android';
+    });
+
+    afterEach(() => {
+      (Platform as { OS: string }).OS = OS;
+    });
+
+    it('should register every watch natively with its own options', () => {
+      const firstWatchID = Geolocation.watchPosition(() => {}, undefined, {
+        distanceFilter: 10,
+      });
+      const secondWatchID = Geolocation.watchPosition(() => {}, undefined, {
+        interval: 5000,
+      });
+      expect(NativeModules.RNCGeolocation.startObserving.mock.calls).toEqual([
+        [{ distanceFilter: 10, watchId: firstWatchID }],
+        [{ interval: 5000, watchId: secondWatchID }],
+      ]);
+
+      Geolocation.clearWatch(firstWatchID);
+      expect(NativeModules.RNCGeolocation.clearWatch).toHaveBeenCalledWith(
+        firstWatchID
+      );
+      expect(
+        NativeModules.RNCGeolocation.stopObserving
+      ).not.toHaveBeenCalled();
+    });
+
+    it('should only pass positions to the watches they are tagged with', () => {
+      const first = jest.fn();
+      const second = jest.fn();
+      const firstWatchID = Geolocation.watchPosition(first);
+      const secondWatchID = Geolocation.watchPosition(second);
+
+      DeviceEventEmitter.emit('geolocationDidChange', {
+        coords,
+        timestamp: 1,
+        watchIds: [secondWatchID],
+      });
+      DeviceEventEmitter.emit('geolocationDidChange', {
+        coords,
+        timestamp: 2,
+        watchIds: [firstWatchID, secondWatchID],
+      });
+      // Untagged positions are meant for every watch
+      DeviceEventEmitter.emit('geolocationDidChange', { coords, timestamp: 3 });
+
+      expect(first.mock.calls.map(([position]) => position)).toEqual([
+        { coords, timestamp: 2 },
+        { coords, timestamp: 3 },
+      ]);
+      expect(second.mock.calls.map(([position]) => position)).toEqual([
+        { coords, timestamp: 1 },
+        { coords, timestamp: 2 },
+        { coords, timestamp: 3 },
+      ]);
+    });
+
+    it('should route compact positions by their trailing watch ids', () => {
+      const first = jest.fn();
+      const second = jest.fn();
+      Geolocation.watchPosition(first, undefined, { compact: true });
+      const secondWatchID = Geolocation.watchPosition(second, undefined, {
+        compact: true,
+      });
+
+      DeviceEventEmitter.emit('geolocationDidChange', [
+        52.1, 21.2, 100, 5, 90, 1.5, 1700000000000, 0, null, secondWatchID,
+      ]);
+      expect(first).not.toHaveBeenCalled();
+      expect(second.mock.calls[0][0]).toEqual({
+        coords: {
+          latitude: 52.1,
+          longitude: 21.2,
+          altitude: 100,
+          accuracy: 5,
+          altitudeAccuracy: null,
+          heading: 90,
+          speed: 1.5,
+        },
+        timestamp: 1700000000000,
+        mocked: false,
+      });
+
+      DeviceEventEmitter.emit('geolocationDidChange', [
+        52.1, 21.2, 100, 5, 90, 1.5, 1700000001000, 0, null,
+      ]);
+      expect(first).toHaveBeenCalledTimes(1);
+      expect(second).toHaveBeenCalledTimes(2);
+    });
+
+    it('should decode and route batched positions', () => {
+      const first = jest.fn();
+      const second = jest.fn();
+      const firstWatchID = Geolocation.watchPosition(first, undefined, {
+        batchSize: 2,
+      });
+      const secondWatchID = Geolocation.watchPosition(second);
+
+      DeviceEventEmitter.emit('geolocationDidChangeBatch', [
+        { coords, timestamp: 1, watchIds: [firstWatchID] },
+        [52.1, 21.2, 100, 5, 90, 1.5, 2, 1, 'u3qcnhz', secondWatchID],
+        { coords, timestamp: 3, watchIds: [firstWatchID, secondWatchID] },
+      ]);
+
+      expect(first.mock.calls.map(([position]) => position)).toEqual([
+        { coords, timestamp: 1 },
+        { coords, timestamp: 3 },
+      ]);
+      expect(second.mock.calls.map(([position]) => position)).toEqual([
+        expect.objectContaining({
+          timestamp: 2,
+          mocked: true,
+          geohash: 'u3qcnhz',
+        }),
+        { coords, timestamp: 3 },
+      ]);
+    });
+
+    it('should return null without a last known position', () => {
+      NativeModules.RNCGeolocation.getLastKnownPosition.mockReturnValue(null);
+      expect(Geolocation.getLastKnownPosition()).toBeNull();
+      NativeModules.RNCGeolocation.getLastKnownPosition.mockReturnValue(
+        undefined
+      );
+      expect(Geolocation.getLastKnownPosition()).toBeNull();
+    });
+
+    it('should return the cached position without querying the provider', () => {
+      const lastKnownPosition = {
+        position: { coords, timestamp: 1700000000000 },
+        age: 250,
+      };
+      NativeModules.RNCGeolocation.getLastKnownPosition.mockReturnValue(
+        lastKnownPosition
+      );
+      expect(Geolocation.getLastKnownPosition()).toBe(lastKnownPosition);
+      expect(
+        NativeModules.RNCGeolocation.getCurrentPosition
+      ).not.toHaveBeenCalled();
+      expect(
+        NativeModules.RNCGeolocation.startObserving
+      ).not.toHaveBeenCalled();
+    });
+
+    it('should pass the provider race options to the native module', () => {
+      const success = jest.fn();
+      const error = jest.fn();
+      const options = {
+        raceProviders: true,
+        desiredAccuracy: 20,
+        timeout: 5000,
+      };
+      Geolocation.getCurrentPosition(success, error, options);
+
+      const [nativeOptions, nativeSuccess, nativeError] =
+        NativeModules.RNCGeolocation.getCurrentPosition.mock.calls[0];
+      expect(nativeOptions).toEqual(options);
+      expect(nativeSuccess).toBe(success);
+      // Reported when no provider delivered a fix before the timeout
+      expect(nativeError).toBe(error);
+    });
+
+    it('should decode the compact position that won the race', () => {
+      const success = jest.fn();
+      Geolocation.getCurrentPosition(success, undefined, {
+        raceProviders: true,
+        desiredAccuracy: 20,
+        compact: true,
+      });
+      NativeModules.RNCGeolocation.getCurrentPosition.mock.calls[0][1]([
+        52.1, 21.2, 100, 15, 90, 1.5, 1700000000000, 0, null,
+      ]);
+      expect(success.mock.calls[0][0]).toMatchObject({
+        coords: { latitude: 52.1, longitude: 21.2, accuracy: 15 },
+        timestamp: 1700000000000,
+      });
+    });
+
+    it('should pass every refined position to the success callback', () => {
+      const success = jest.fn();
+      const options = { desiredAccuracy: 10, timeout: 30000 };
+      const refinementID = Geolocation.refinePosition(success, undefined, {
+        ...options,
+        compact: true,
+      });
+      expect(NativeModules.RNCGeolocation.startRefinement).toHaveBeenCalledWith(
+        refinementID,
+        { ...options, compact: true }
+      );
+
+      DeviceEventEmitter.emit('geolocationRefinement', {
+        id: refinementID + 1,
+        final: true,
+        position: { coords, timestamp: 1 },
+      });
+      DeviceEventEmitter.emit('geolocationRefinement', {
+        id: refinementID,
+        final: false,
+        position: [52.1, 21.2, 100, 50, 90, 1.5, 2, 0, null],
+      });
+      DeviceEventEmitter.emit('geolocationRefinement', {
+        id: refinementID,
+        final: true,
+        position: [52.1, 21.2, 100, 8, 90, 1.5, 3, 0, null],
+      });
+      DeviceEventEmitter.emit('geolocationRefinement', {
+        id: refinementID,
+        final: true,
+        position: { coords, timestamp: 4 },
+      });
+
+      expect(success).toHaveBeenCalledTimes(2);
+      expect(success.mock.calls[0][0]).toMatchObject({
+        coords: { accuracy: 50 },
+        timestamp: 2,
+      });
+      expect(success.mock.calls[0][1]).toBe(false);
+      expect(success.mock.calls[1][0]).toMatchObject({
+        coords: { accuracy: 8 },
+        timestamp: 3,
+      });
+      expect(success.mock.calls[1][1]).toBe(true);
+    });
+
+    it('should report the error that ended a refinement', () => {
+      const success = jest.fn();
+      const error = jest.fn();
+      const refinementID = Geolocation.refinePosition(success, error);
+      const positionError = { code: 3, message: 'Location request timed out' };
+
+      DeviceEventEmitter.emit('geolocationRefinement', {
+        id: refinementID,
+        final: true,
+        error: positionError,
+      });
+      DeviceEventEmitter.emit('geolocationRefinement', {
+        id: refinementID,
+        final: true,
+        error: positionError,
+      });
+
+      expect(success).not.toHaveBeenCalled();
+      expect(error).toHaveBeenCalledTimes(1);
+      expect(error).toHaveBeenCalledWith(positionError);
+    });
+
+    it('should stop a refinement without reporting anything more', () => {
+      const success = jest.fn();
+      const refinementID = Geolocation.refinePosition(success);
+      Geolocation.clearRefinement(refinementID);
+      expect(NativeModules.RNCGeolocation.stopRefinement).toHaveBeenCalledWith(
+        refinementID
+      );
+
+      DeviceEventEmitter.emit('geolocationRefinement', {
+        id: refinementID,
+        final: true,
+        position: { coords, timestamp: 1 },
+      });
+      expect(success).not.toHaveBeenCalled();
+
+      Geolocation.clearRefinement(refinementID);
+      expect(NativeModules.RNCGeolocation.stopRefinement).toHaveBeenCalledTimes(
+        1
+      );
+    });
+  });
 });
@@ -7,6 +7,7 @@
  * @format
  */
 
+import { Platform } from 'react-native';
 import type { EmitterSubscription } from 'react-native';
 
 import GeolocationNativeInterface from './nativeInterface';
@@ -19,14 +20,124 @@ import type {
   GeolocationConfiguration,
   GeolocationResponse,
   GeolocationError,
+  LocationJournalOptions,
+  LocationJournalResult,
+  LocationTrackExportOptions,
+  LocationTrackExportResult,
+  Geofence,
+  GeofenceTransitionEvent,
+  ProviderChangeEvent,
+  LastKnownPosition,
+  GeolocationMetrics,
 } from './NativeRNCGeolocation';
 
 const { RNCGeolocation, GeolocationEventEmitter } = GeolocationNativeInterface;
 
 let subscriptions: {
-  [key: number]: [EmitterSubscription, EmitterSubscription | null];
+  [key: number]: EmitterSubscription[];
 } = {};
 let updatesEnabled = false;
+// Only positions of apps that asked for them carry `rawCoords` to callbacks
+let includeRawCoordinates = false;
+const refinements: {
+  [key: number]: EmitterSubscription;
+} = {};
+let nextRefinementID = 1;
+
+/**
+ * Event emitted by Android for every more accurate position of a refinement,
+ * or for the error that ended it.
+ */
+type RefinementEvent = {
+  id: number;
+  final: boolean;
+  position?: GeolocationResponse | CompactPosition;
+  error?: GeolocationError;
+};
+
+/**
+ * Native encoding used by the `compact` option: latitude, longitude, altitude,
+ * accuracy, heading, speed, timestamp, mocked, geohash or null, followed by
+ * the ids of the watches the position is meant for. Journal entries end
+ * before the geohash. Must be kept in sync with
+ * `BaseLocationManager.positionToArray` on Android.
+ */
+type CompactPosition = Array<number | string | null>;
+const COMPACT_POSITION_LENGTH = 9;
+
+/**
+ * Android filters positions for each watch natively and tags them with the
+ * ids of the watches that should receive them. Untagged positions are meant
+ * for every watch.
+ */
+function isForWatch(
+  position: GeolocationResponse | CompactPosition,
+  watchID: number
+): boolean {
+  if (Array.isArray(position)) {
+    return (
+      position.length <= COMPACT_POSITION_LENGTH ||
+      position.indexOf(watchID, COMPACT_POSITION_LENGTH) !== -1
+    );
+  }
+  const { watchIds } = position as { watchIds?: number[] };
+  return !watchIds || watchIds.includes(watchID);
+}
+
+/**
+ * Turns a position from native into the one passed to callbacks, without the
+ * fields only used for routing it.
+ */
+function decodePosition(
+  position: GeolocationResponse | CompactPosition
+): GeolocationResponse {
+  if (!Array.isArray(position)) {
+    const decoded: GeolocationResponse & { watchIds?: number[] } = {
+      ...position,
+    };
+    delete decoded.watchIds;
+    if (!includeRawCoordinates) {
+      delete decoded.rawCoords;
+    }
+    return decoded;
+  }
+  const decoded = {
+    coords: {
+      latitude: position[0],
+      longitude: position[1],
+      altitude: position[2],
+      accuracy: position[3],
+      altitudeAccuracy: null,
+      heading: position[4],
+      speed: position[5],
+    },
+    timestamp: position[6],
+    mocked: position[7] === 1,
+  } as GeolocationResponse;
+  const geohash = position[8];
+  if (typeof geohash === 'string') {
+    decoded.geohash = geohash;
+  }
+  return decoded;
+}
+
+/**
+ * Positions shared by several watches carry the geohash at the highest
+ * precision any of them asked for, every prefix of it names a containing cell.
+ */
+function truncateGeohash(
+  position: GeolocationResponse,
+  precision?: number
+): GeolocationResponse {
+  if (
+    !precision ||
+    !position.geohash ||
+    position.geohash.length <= precision
+  ) {
+    return position;
+  }
+  return { ...position, geohash: position.geohash.slice(0, precision) };
+}
 
 /**
  * The Geolocation API extends the web spec:
@@ -42,6 +153,7 @@ let updatesEnabled = false;
  *
  */
 export function setRNConfiguration(config: GeolocationConfiguration) {
+  includeRawCoordinates = !!config?.includeRawCoordinates;
   RNCGeolocation.setConfiguration({
     ...config,
     enableBackgroundLocationUpdates:
@@ -82,7 +194,14 @@ export async function getCurrentPosition(
     'Must provide a valid geo_success callback.'
   );
   // Permission checks/requests are done on the native side
-  RNCGeolocation.getCurrentPosition(options, success, error);
+  RNCGeolocation.getCurrentPosition(
+    options,
+    options.compact
+      ? (position: GeolocationResponse | CompactPosition) =>
+          success(decodePosition(position))
+      : success,
+    error
+  );
 }
 
 /*
@@ -95,17 +214,46 @@ export function watchPosition(
   error: (error: GeolocationError) => void = logError,
   options: GeolocationOptions = {}
 ): number {
-  if (!updatesEnabled) {
+  // Never reuse the id of an active watch, Android keys its native watches by it
+  const watchID =
+    Math.max(999, ...Object.keys(subscriptions).map(Number)) + 1;
+  if (Platform.OS === 'android') {
+    // Every watch is registered natively with its own options
+    RNCGeolocation.startObserving({ ...options, watchId: watchID });
+    updatesEnabled = true;
+  } else if (!updatesEnabled) {
     RNCGeolocation.startObserving(options);
     updatesEnabled = true;
   }
-  const watchID = Object.keys(subscriptions).length + 1000;
-  subscriptions[watchID] = [
-    GeolocationEventEmitter.addListener('geolocationDidChange', success),
-    error
-      ? GeolocationEventEmitter.addListener('geolocationError', error)
-      : null,
+  const onPosition = (position: GeolocationResponse | CompactPosition) => {
+    if (isForWatch(position, watchID)) {
+      success(
+        truncateGeohash(decodePosition(position), options.geohashPrecision)
+      );
+    }
+  };
+  const watchSubscriptions = [
+    GeolocationEventEmitter.addListener('geolocationDidChange', onPosition),
   ];
+  if (error) {
+    watchSubscriptions.push(
+      GeolocationEventEmitter.addListener('geolocationError', error)
+    );
+  }
+  // Android may also batch positions that waited for JS, see eventQueuePolicy
+  if (
+    Platform.OS === 'android' ||
+    (options.batchSize && options.batchSize > 1)
+  ) {
+    watchSubscriptions.push(
+      GeolocationEventEmitter.addListener(
+        'geolocationDidChangeBatch',
+        (positions: Array<GeolocationResponse | CompactPosition>) =>
+          positions.forEach(onPosition)
+      )
+    );
+  }
+  subscriptions[watchID] = watchSubscriptions;
   return watchID;
 }
 
@@ -122,15 +270,14 @@ export function clearWatch(watchID: number) {
     return;
   }
 
-  sub[0].remove();
-  // array element refinements not yet enabled in Flow
-  const sub1 = sub[1];
-  sub1 && sub1.remove();
+  sub.forEach((subscription) => subscription.remove());
 
   delete subscriptions[watchID];
   let noWatchers = Object.keys(subscriptions).length === 0;
   if (noWatchers) {
     stopObserving();
+  } else if (Platform.OS === 'android') {
+    RNCGeolocation.clearWatch(watchID);
   }
 }
 
@@ -143,11 +290,185 @@ export function stopObserving() {
   if (updatesEnabled) {
     RNCGeolocation.stopObserving();
     updatesEnabled = false;
-    Object.values(subscriptions).forEach(([sub, sub1]) => {
+    Object.values(subscriptions).forEach((sub) => {
       warning(false, 'Called stopObserving with existing subscriptions.');
-      sub.remove();
-      sub1 && sub1.remove();
+      sub.forEach((subscription) => subscription.remove());
     });
     subscriptions = {};
   }
 }
+
+/*
+ * Returns the most recent position the native module has received, with its
+ * age, synchronously and without querying the location provider.
+ */
+export function getLastKnownPosition(): LastKnownPosition | null {
+  return RNCGeolocation.getLastKnownPosition() ?? null;
+}
+
+/*
+ * Returns the runtime metrics collected by the Android native module, or null
+ * on platforms that do not collect any.
+ */
+export function getMetrics(): GeolocationMetrics | null {
+  return RNCGeolocation.getMetrics() ?? null;
+}
+
+export function resetMetrics() {
+  RNCGeolocation.resetMetrics();
+}
+
+/*
+ * Reads the positions recorded by the Android background location service
+ * since the given cursor. Pass the returned cursor to the next call to
+ * continue where this one stopped.
+ */
+export function readLocationJournal(
+  success: (result: LocationJournalResult) => void,
+  error: (error: GeolocationError) => void = logError,
+  options: LocationJournalOptions = {}
+) {
+  invariant(
+    typeof success === 'function',
+    'Must provide a valid success callback.'
+  );
+  RNCGeolocation.readLocationJournal(
+    options,
+    options.compact
+      ? (result: {
+          positions: Array<GeolocationResponse | CompactPosition>;
+          cursor: number;
+        }) =>
+          success({
+            positions: result.positions.map(decodePosition),
+            cursor: result.cursor,
+          })
+      : success,
+    error
+  );
+}
+
+/*
+ * Streams the Android location journal, or a previously exported binary
+ * track, to a GeoJSON, GPX or binary track file.
+ */
+export function exportLocationTrack(
+  success: (result: LocationTrackExportResult) => void,
+  error: (error: GeolocationError) => void = logError,
+  options: LocationTrackExportOptions = {}
+) {
+  invariant(
+    typeof success === 'function',
+    'Must provide a valid success callback.'
+  );
+  RNCGeolocation.exportLocationTrack(options, success, error);
+}
+
+/*
+ * Starts monitoring the given geofences on Android, replacing fences with the
+ * same id. Location updates are requested with the given options for as long
+ * as fences are registered.
+ */
+export function addGeofences(
+  fences: Geofence[],
+  options: GeolocationOptions = {}
+) {
+  RNCGeolocation.addGeofences(fences, options);
+}
+
+/*
+ * Stops monitoring the geofences with the given ids.
+ */
+export function removeGeofences(ids: string[]) {
+  RNCGeolocation.removeGeofences(ids);
+}
+
+/*
+ * Stops monitoring all geofences.
+ */
+export function clearGeofences() {
+  RNCGeolocation.clearGeofences();
+}
+
+/*
+ * Invokes the success callback with every more accurate position until one is
+ * within `desiredAccuracy` or the `timeout` budget runs out, the last one with
+ * `final` set. Only Android refines natively, elsewhere the current position is
+ * reported as final.
+ */
+export function refinePosition(
+  success: (position: GeolocationResponse, final: boolean) => void,
+  error: (error: GeolocationError) => void = logError,
+  options: GeolocationOptions = {}
+): number {
+  invariant(
+    typeof success === 'function',
+    'Must provide a valid geo_success callback.'
+  );
+  const refinementID = nextRefinementID++;
+  if (Platform.OS !== 'android') {
+    getCurrentPosition((position) => success(position, true), error, options);
+    return refinementID;
+  }
+
+  refinements[refinementID] = GeolocationEventEmitter.addListener(
+    'geolocationRefinement',
+    (event: RefinementEvent) => {
+      if (event.id !== refinementID) {
+        return;
+      }
+      if (event.final) {
+        refinements[refinementID]?.remove();
+        delete refinements[refinementID];
+      }
+      if (event.error) {
+        error(event.error);
+      } else if (event.position) {
+        success(decodePosition(event.position), event.final);
+      }
+    }
+  );
+  // Permission checks/requests are done on the native side
+  RNCGeolocation.startRefinement(refinementID, options);
+  return refinementID;
+}
+
+/*
+ * Stops refining the position of the given refinement, without reporting
+ * anything more.
+ */
+export function clearRefinement(refinementID: number) {
+  const sub = refinements[refinementID];
+  if (!sub) {
+    return;
+  }
+
+  sub.remove();
+  delete refinements[refinementID];
+  RNCGeolocation.stopRefinement(refinementID);
+}
+
+/*
+ * Invokes the listener with the geofence transitions caused by each location.
+ */
+export function addGeofenceListener(
+  listener: (event: GeofenceTransitionEvent) => void
+): EmitterSubscription {
+  return GeolocationEventEmitter.addListener(
+    'geolocationGeofenceTransition',
+    listener
+  );
+}
+
+/*
+ * Invokes the listener when a location provider is enabled or disabled, or a
+ * location permission is granted. Android only.
+ */
+export function addProviderChangeListener(
+  listener: (event: ProviderChangeEvent) => void
+): EmitterSubscription {
+  return GeolocationEventEmitter.addListener(
+    'geolocationProviderChange',
+    listener
+  );
+}
@@ -12,6 +12,15 @@ import type {
   GeolocationConfiguration,
   GeolocationResponse,
   GeolocationError,
+  LocationJournalOptions,
+  LocationJournalResult,
+  LocationTrackExportOptions,
+  LocationTrackExportResult,
+  Geofence,
+  GeofenceTransitionEvent,
+  ProviderChangeEvent,
+  LastKnownPosition,
+  GeolocationMetrics,
 } from './NativeRNCGeolocation';
 
 export function setRNConfiguration(_config: GeolocationConfiguration) {
@@ -63,3 +72,70 @@ export function clearWatch(watchID: number) {
 export function stopObserving() {
   throw new Error('stopObserving is not supported by the browser');
 }
+
+export function refinePosition(
+  _success: (position: GeolocationResponse, final: boolean) => void,
+  _error?: (error: GeolocationError) => void,
+  _options?: GeolocationOptions
+): number {
+  throw new Error('refinePosition is not supported by the browser');
+}
+
+export function clearRefinement(_refinementID: number) {
+  throw new Error('clearRefinement is not supported by the browser');
+}
+
+export function getLastKnownPosition(): LastKnownPosition | null {
+  throw new Error('getLastKnownPosition is not supported by the browser');
+}
+
+export function getMetrics(): GeolocationMetrics | null {
+  throw new Error('getMetrics is not supported by the browser');
+}
+
+export function resetMetrics() {
+  throw new Error('resetMetrics is not supported by the browser');
+}
+
+export function readLocationJournal(
+  _success: (result: LocationJournalResult) => void,
+  _error?: (error: GeolocationError) => void,
+  _options?: LocationJournalOptions
+) {
+  throw new Error('readLocationJournal is not supported by the browser');
+}
+
+export function exportLocationTrack(
+  _success: (result: LocationTrackExportResult) => void,
+  _error?: (error: GeolocationError) => void,
+  _options?: LocationTrackExportOptions
+) {
+  throw new Error('exportLocationTrack is not supported by the browser');
+}
+
+export function addGeofences(
+  _fences: Geofence[],
+  _options?: GeolocationOptions
+) {
+  throw new Error('addGeofences is not supported by the browser');
+}
+
+export function removeGeofences(_ids: string[]) {
+  throw new Error('removeGeofences is not supported by the browser');
+}
+
+export function clearGeofences() {
+  throw new Error('clearGeofences is not supported by the browser');
+}
+
+export function addGeofenceListener(
+  _listener: (event: GeofenceTransitionEvent) => void
+): { remove: () => void } {
+  throw new Error('addGeofenceListener is not supported by the browser');
+}
+
+export function addProviderChangeListener(
+  _listener: (event: ProviderChangeEvent) => void
+): { remove: () => void } {
+  throw new Error('addProviderChangeListener is not supported by the browser');
+}
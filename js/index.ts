@@ -12,8 +12,19 @@ import * as GeolocationModule from './implementation';
 import type {
   GeolocationOptions,
   GeolocationConfiguration,
+  PipelineStage,
   GeolocationResponse,
   GeolocationError,
+  LocationJournalOptions,
+  LocationJournalResult,
+  LocationTrackExportOptions,
+  LocationTrackExportResult,
+  Geofence,
+  GeofenceTransitionEvent,
+  ProviderChangeEvent,
+  LastKnownPosition,
+  GeolocationMetrics,
+  LatencyMetrics,
 } from './NativeRNCGeolocation';
 
 const Geolocation = {
@@ -60,6 +71,119 @@ const Geolocation = {
     GeolocationModule.stopObserving();
   },
 
+  /**
+   * Invokes the success callback with every more accurate position, so a coarse
+   * position can be shown right away, until one is within `desiredAccuracy`
+   * (m) or the `timeout` (ms) budget runs out.  The last position is reported
+   * with `final` set.  Returns an id for `clearRefinement`.
+   */
+  refinePosition: function (
+    success: (position: GeolocationResponse, final: boolean) => void,
+    error?: (error: GeolocationError) => void,
+    options?: GeolocationOptions
+  ): number {
+    return GeolocationModule.refinePosition(success, error, options);
+  },
+
+  clearRefinement: function (refinementID: number) {
+    GeolocationModule.clearRefinement(refinementID);
+  },
+
+  /**
+   * Returns the most recent position the native module has received and its
+   * age in milliseconds, or null if there is none.  Synchronous, the location
+   * provider is not queried.
+   */
+  getLastKnownPosition: function (): LastKnownPosition | null {
+    return GeolocationModule.getLastKnownPosition();
+  },
+
+  /**
+   * Returns the runtime metrics of the native module: time to first fix per
+   * provider, getCurrentPosition latency and timeouts, fixes received and
+   * emitted, the event rate and background service start/stop durations.
+   * Android only, null elsewhere.
+   */
+  getMetrics: function (): GeolocationMetrics | null {
+    return GeolocationModule.getMetrics();
+  },
+
+  /**
+   * Clears the runtime metrics returned by `getMetrics`.
+   */
+  resetMetrics: function () {
+    GeolocationModule.resetMetrics();
+  },
+
+  /**
+   * Reads the positions recorded while the Android background location service
+   * runs with `enableLocationJournal`.  Supported options: cursor, limit,
+   * compact (bool)
+   */
+  readLocationJournal: function (
+    success: (result: LocationJournalResult) => void,
+    error?: (error: GeolocationError) => void,
+    options?: LocationJournalOptions
+  ) {
+    GeolocationModule.readLocationJournal(success, error, options);
+  },
+
+  /**
+   * Exports the positions recorded by the Android location journal to a file.
+   * Supported options: format ('geojson', 'gpx' or 'track'), cursor, input
+   * (path of a binary track to convert instead), path
+   */
+  exportLocationTrack: function (
+    success: (result: LocationTrackExportResult) => void,
+    error?: (error: GeolocationError) => void,
+    options?: LocationTrackExportOptions
+  ) {
+    GeolocationModule.exportLocationTrack(success, error, options);
+  },
+
+  /**
+   * Starts monitoring circular or polygonal geofences on Android.  Location
+   * updates are requested with the given options while fences are registered.
+   */
+  addGeofences: function (fences: Geofence[], options?: GeolocationOptions) {
+    GeolocationModule.addGeofences(fences, options);
+  },
+
+  /**
+   * Stops monitoring the geofences with the given ids.
+   */
+  removeGeofences: function (ids: string[]) {
+    GeolocationModule.removeGeofences(ids);
+  },
+
+  /**
+   * Stops monitoring all geofences.
+   */
+  clearGeofences: function () {
+    GeolocationModule.clearGeofences();
+  },
+
+  /**
+   * Invokes the listener with the enter, exit and dwell transitions caused by
+   * each location.  Call `remove` on the returned subscription to stop.
+   */
+  addGeofenceListener: function (
+    listener: (event: GeofenceTransitionEvent) => void
+  ) {
+    return GeolocationModule.addGeofenceListener(listener);
+  },
+
+  /**
+   * Invokes the listener when a location provider is enabled or disabled, or a
+   * location permission is granted.  Android only.  Call `remove` on the
+   * returned subscription to stop.
+   */
+  addProviderChangeListener: function (
+    listener: (event: ProviderChangeEvent) => void
+  ) {
+    return GeolocationModule.addProviderChangeListener(listener);
+  },
+
   requestAuthorization: function (
     success?: () => void,
     error?: (error: GeolocationError) => void
@@ -75,8 +199,19 @@ const Geolocation = {
 export type {
   GeolocationOptions,
   GeolocationConfiguration,
+  PipelineStage,
   GeolocationResponse,
   GeolocationError,
+  LocationJournalOptions,
+  LocationJournalResult,
+  LocationTrackExportOptions,
+  LocationTrackExportResult,
+  Geofence,
+  GeofenceTransitionEvent,
+  ProviderChangeEvent,
+  LastKnownPosition,
+  GeolocationMetrics,
+  LatencyMetrics,
 };
 
 export default Geolocation;